@@ -0,0 +1,158 @@
+package net.pygmales.benchmark;
+
+import java.util.Random;
+
+public class Corpus {
+    private static final String[] PROGRAM_FRAGMENTS = {
+            "/* generated class, used to feed the lexer\n   with a bit of everything */\n",
+            "class Generated {\n    compute() {}\n}\n",
+            "// declarations and arithmetic\n",
+            "let value = 365.25 * (first_factor + 42) / 7;\n",
+            "let greeting = \"hello from a generated pathl script\";\n",
+            "def check(a, b) {\n    if (a >= b and !(a == b)) {\n        return a - b;\n    } else {\n        return null;\n    }\n}\n",
+            "while (counter <= 1000) { counter = counter + 1; } // loop\n",
+            "print this.greeting != \"bye\" or false;\n",
+    };
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "==", "!=", "<", "<=", ">", ">="};
+    private static final String[] OPERANDS = {"1", "2.5", "365", "true", "false", "null", "\"text\""};
+    private static final String[] ARITHMETIC_OPERATORS = {"+", "-", "*", "/"};
+    private static final String[] NUMBERS = {"1", "2.5", "365", "0.125"};
+
+    public static String program(int bytes) {
+        StringBuilder builder = new StringBuilder(bytes + 256);
+        for (int i = 0; builder.length() < bytes; i++)
+            builder.append(PROGRAM_FRAGMENTS[i % PROGRAM_FRAGMENTS.length]);
+        return builder.toString();
+    }
+
+    /**
+     * Mostly documentation: long line and block comments with a statement in between.
+     */
+    public static String comments(int bytes) {
+        StringBuilder builder = new StringBuilder(bytes + 256);
+        while (builder.length() < bytes) {
+            builder.append("/*\n * Computes the next value of the counter. The value wraps around at the\n")
+                    .append(" * limit, which keeps it within the range the caller expects.\n */\n")
+                    .append("// The limit is checked before every increment, never after it\n")
+                    .append("let counter = counter + 1;\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Mostly text: long string literals that are assigned and printed.
+     */
+    public static String strings(int bytes) {
+        StringBuilder builder = new StringBuilder(bytes + 256);
+        while (builder.length() < bytes) {
+            builder.append("let message = \"The quick brown fox jumps over the lazy dog, again and again.\";\n")
+                    .append("print \"Pack my box with five dozen liquor jugs and some more.\" + message;\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Mostly numbers: small and large integers and decimals, one sum per line.
+     */
+    public static String numbers(int bytes) {
+        Random random = new Random(bytes);
+        StringBuilder builder = new StringBuilder(bytes + 256);
+        while (builder.length() < bytes) {
+            builder.append("let total = ").append(random.nextInt(1000))
+                    .append(" + ").append(random.nextInt(100000)).append('.').append(random.nextInt(100))
+                    .append(" * ").append(random.nextLong() >>> 1)
+                    .append(" - 0.").append(random.nextInt(1000000)).append(";\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Produces a single expression of roughly the given size shaped as a balanced
+     * tree, so that its depth grows only logarithmically with the size.
+     */
+    public static String balancedExpression(int bytes) {
+        Random random = new Random(bytes);
+        StringBuilder builder = new StringBuilder(bytes + 256);
+        int depth = 0;
+        while ((16L << depth) < bytes) depth++;
+        appendBalanced(builder, random, depth, OPERATORS, OPERANDS, false);
+        return builder.toString();
+    }
+
+    /**
+     * Like {@link #balancedExpression(int)}, but broken into lines of a few dozen
+     * characters the way a person would write it.
+     */
+    public static String multilineExpression(int bytes) {
+        Random random = new Random(bytes);
+        StringBuilder builder = new StringBuilder(bytes + 256);
+        int depth = 0;
+        while ((16L << depth) < bytes) depth++;
+        appendBalanced(builder, random, depth, OPERATORS, OPERANDS, true);
+        return builder.toString();
+    }
+
+    /**
+     * Like {@link #balancedExpression(int)}, but only with numbers and arithmetic, so
+     * that the expression can also be evaluated without a type error.
+     */
+    public static String arithmeticExpression(int bytes) {
+        Random random = new Random(bytes);
+        StringBuilder builder = new StringBuilder(bytes + 256);
+        int depth = 0;
+        while ((12L << depth) < bytes) depth++;
+        appendBalanced(builder, random, depth, ARITHMETIC_OPERATORS, NUMBERS, false);
+        return builder.toString();
+    }
+
+    private static void appendBalanced(StringBuilder builder, Random random, int depth,
+                                       String[] operators, String[] operands, boolean multiline) {
+        if (depth == 0) {
+            builder.append(operands[random.nextInt(operands.length)]);
+            return;
+        }
+
+        builder.append('(');
+        appendBalanced(builder, random, depth - 1, operators, operands, multiline);
+        builder.append(multiline && depth > 2 ? '\n' : ' ').append(operators[random.nextInt(operators.length)]).append(' ');
+        appendBalanced(builder, random, depth - 1, operators, operands, multiline);
+        builder.append(')');
+    }
+
+    public static String nestedExpression(int depth) {
+        return "(".repeat(depth) + "- 1" + ")".repeat(depth);
+    }
+
+    public static String wideExpression(int width) {
+        StringBuilder builder = new StringBuilder(width * 6);
+        builder.append(OPERANDS[0]);
+        for (int i = 1; i < width; i++)
+            builder.append(' ').append(OPERATORS[i % 4]).append(' ').append(OPERANDS[i % 3]);
+        return builder.toString();
+    }
+
+    /**
+     * Builds a corpus from a benchmark parameter of the form {@code shape:size}, e.g.
+     * {@code balanced:1048576}. The size is in bytes for {@code program},
+     * {@code comments}, {@code strings}, {@code balanced}, {@code multiline} and
+     * {@code arithmetic}, a nesting depth for {@code nested} and an operand count for
+     * {@code wide}.
+     */
+    public static String of(String spec) {
+        String[] parts = spec.split(":");
+        String shape = parts[0];
+        int size = Integer.parseInt(parts[1]);
+        return switch (shape) {
+            case "program" -> program(size);
+            case "comments" -> comments(size);
+            case "strings" -> strings(size);
+            case "numbers" -> numbers(size);
+            case "balanced" -> balancedExpression(size);
+            case "multiline" -> multilineExpression(size);
+            case "arithmetic" -> arithmeticExpression(size);
+            case "nested" -> nestedExpression(size);
+            case "wide" -> wideExpression(size);
+            default -> throw new IllegalArgumentException("Unknown corpus shape: " + shape);
+        };
+    }
+}
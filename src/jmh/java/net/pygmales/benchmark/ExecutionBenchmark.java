@@ -0,0 +1,103 @@
+package net.pygmales.benchmark;
+
+import net.pygmales.interpreter.ArenaEvaluator;
+import net.pygmales.interpreter.ConstantFolder;
+import net.pygmales.interpreter.Evaluator;
+import net.pygmales.interpreter.compiler.CompiledProgram;
+import net.pygmales.interpreter.compiler.ExpressionCompiler;
+import net.pygmales.interpreter.vm.BytecodeCompiler;
+import net.pygmales.interpreter.vm.Chunk;
+import net.pygmales.interpreter.vm.VirtualMachine;
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionArena;
+import net.pygmales.util.ErrorLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution of an already parsed tree, the baseline every execution engine is
+ * measured against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class ExecutionBenchmark {
+    @Param({"arithmetic:1024", "arithmetic:1048576", "wide:1000"})
+    public String corpus;
+
+    private Expression tree;
+    private CompiledProgram program;
+    private Chunk chunk;
+    private ExpressionArena arena;
+    private final ArenaEvaluator arenaEvaluator = new ArenaEvaluator();
+    private final VirtualMachine machine = new VirtualMachine();
+    private int sourceLength;
+    private int nodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String source = Corpus.of(corpus);
+        ErrorLogger logger = new ErrorLogger("benchmark");
+        tree = new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+        sourceLength = source.length();
+        nodes = NodeCounter.count(tree);
+        program = ExpressionCompiler.compile(tree);
+        chunk = BytecodeCompiler.compile(tree);
+        arena = ExpressionArena.of(tree);
+    }
+
+    @Benchmark
+    public Object treeWalker(Throughput throughput) {
+        Object value = new Evaluator().evaluate(tree);
+        throughput.count(sourceLength, 0, nodes);
+        return value;
+    }
+
+    @Benchmark
+    public Object arena(Throughput throughput) {
+        Object value = arenaEvaluator.evaluate(arena);
+        throughput.count(sourceLength, 0, nodes);
+        return value;
+    }
+
+    @Benchmark
+    public Object compiled(Throughput throughput) {
+        Object value = program.evaluate();
+        throughput.count(sourceLength, 0, nodes);
+        return value;
+    }
+
+    @Benchmark
+    public Object compileAndRun(Throughput throughput) {
+        Object value = ExpressionCompiler.compile(tree).evaluate();
+        throughput.count(sourceLength, 0, nodes);
+        return value;
+    }
+
+    @Benchmark
+    public Object vm(Throughput throughput) {
+        Object value = machine.run(chunk);
+        throughput.count(sourceLength, 0, nodes);
+        return value;
+    }
+
+    @Benchmark
+    public Object vmCompileAndRun(Throughput throughput) {
+        Object value = machine.run(BytecodeCompiler.compile(tree));
+        throughput.count(sourceLength, 0, nodes);
+        return value;
+    }
+
+    @Benchmark
+    public Object constantFolding(Throughput throughput) {
+        Object folded = new ConstantFolder().fold(tree);
+        throughput.count(sourceLength, 0, nodes);
+        return folded;
+    }
+}
@@ -0,0 +1,63 @@
+package net.pygmales.benchmark;
+
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.TextEdit;
+import net.pygmales.parser.IncrementalParser;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one edit in the middle of a source, parsed incrementally and parsed again as
+ * a whole. Every invocation alternates between making the edit and taking it back, so
+ * that the source keeps its size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class IncrementalBenchmark {
+    @Param({"multiline:65536", "multiline:1048576", "multiline:16777216"})
+    public String corpus;
+
+    private final ErrorLogger logger = new ErrorLogger("benchmark");
+    private final IncrementalParser parser = new IncrementalParser(this.logger);
+    private String[] sources;
+    // An operand turned into a sum and back, and a line break added and removed again
+    private TextEdit[] operandEdits;
+    private TextEdit[] lineEdits;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String source = Corpus.of(this.corpus);
+        int operand = source.length() / 2;
+        while (!Character.isDigit(source.charAt(operand)) || source.charAt(operand - 1) != ' ') operand++;
+
+        this.operandEdits = new TextEdit[]{new TextEdit(operand, 0, "1 + "), new TextEdit(operand, 4, "")};
+        this.lineEdits = new TextEdit[]{new TextEdit(operand, 0, "\n"), new TextEdit(operand, 1, "")};
+        this.sources = new String[]{source, this.operandEdits[0].apply(source)};
+        this.parser.parse(source);
+    }
+
+    @Benchmark
+    public Expression editOperand() {
+        return this.parser.edit(this.operandEdits[this.next++ & 1]);
+    }
+
+    @Benchmark
+    public Expression editLine() {
+        return this.parser.edit(this.lineEdits[this.next++ & 1]);
+    }
+
+    @Benchmark
+    public Expression parseWhole() {
+        String source = this.sources[this.next++ & 1];
+        return new Parser(this.logger, new Lexer(this.logger, source).scanBuffer()).parse();
+    }
+}
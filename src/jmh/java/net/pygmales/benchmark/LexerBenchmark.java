@@ -0,0 +1,80 @@
+package net.pygmales.benchmark;
+
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.ParallelLexer;
+import net.pygmales.lexer.Token;
+import net.pygmales.lexer.TokenBuffer;
+import net.pygmales.lexer.TokenType;
+import net.pygmales.lexer.Utf8Lexer;
+import net.pygmales.util.ErrorLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+public class LexerBenchmark {
+    @Param({"program:1024", "program:1048576", "program:104857600", "balanced:1048576",
+            "comments:1048576", "strings:1048576", "numbers:1048576"})
+    public String corpus;
+
+    private String source;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = Corpus.of(corpus);
+        bytes = source.getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public TokenBuffer scanBuffer(Throughput throughput) {
+        TokenBuffer tokens = new Lexer(source).scanBuffer();
+        throughput.count(source.length(), tokens.size(), 0);
+        return tokens;
+    }
+
+    @Benchmark
+    public TokenBuffer scanBufferParallel(Throughput throughput) {
+        TokenBuffer tokens = new ParallelLexer(source).scanBuffer();
+        throughput.count(source.length(), tokens.size(), 0);
+        return tokens;
+    }
+
+    @Benchmark
+    public List<Token> scanTokens(Throughput throughput) {
+        List<Token> tokens = new Lexer(source).scanTokens();
+        throughput.count(source.length(), tokens.size(), 0);
+        return tokens;
+    }
+
+    @Benchmark
+    public int scanUtf8(Throughput throughput) {
+        Utf8Lexer lexer = new Utf8Lexer(new ErrorLogger("benchmark"), bytes);
+        int count = 1;
+        while (lexer.nextToken().type() != TokenType.EOF) count++;
+        throughput.count(bytes.length, count, 0);
+        return count;
+    }
+
+    /**
+     * Decodes the bytes while lexing them, the way a source file used to be read.
+     */
+    @Benchmark
+    public int scanDecoded(Throughput throughput) {
+        Lexer lexer = new Lexer(new ErrorLogger("benchmark"), new InputStreamReader(new ByteArrayInputStream(bytes), UTF_8));
+        int count = 1;
+        while (lexer.nextToken().type() != TokenType.EOF) count++;
+        throughput.count(bytes.length, count, 0);
+        return count;
+    }
+}
@@ -0,0 +1,35 @@
+package net.pygmales.benchmark;
+
+import net.pygmales.parser.expression.Expression;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Counts the nodes of a tree without recursion, so that the very wide corpora
+ * (left-deep trees) can be measured without running out of stack.
+ */
+public class NodeCounter {
+    public static int count(Expression root) {
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(root);
+
+        int count = 0;
+        while (!pending.isEmpty()) {
+            Expression expression = pending.pop();
+            count++;
+            if (expression instanceof BinaryExpression binary) {
+                pending.push(binary.left);
+                pending.push(binary.right);
+            } else if (expression instanceof UnaryExpression unary) {
+                pending.push(unary.expression);
+            } else if (expression instanceof GroupingExpression grouping) {
+                pending.push(grouping.expression);
+            }
+        }
+
+        return count;
+    }
+}
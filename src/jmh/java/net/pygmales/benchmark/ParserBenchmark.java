@@ -0,0 +1,50 @@
+package net.pygmales.benchmark;
+
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.TokenBuffer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class ParserBenchmark {
+    @Param({"balanced:1024", "balanced:1048576", "balanced:104857600", "nested:1000", "wide:100000"})
+    public String corpus;
+
+    @Param({"false", "true"})
+    public boolean iterative;
+
+    private final ErrorLogger logger = new ErrorLogger("benchmark");
+    private String source;
+    private TokenBuffer tokens;
+    private int nodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = Corpus.of(corpus);
+        logger.setSource(source);
+        tokens = new Lexer(logger, source).scanBuffer();
+        nodes = NodeCounter.count(parser().parse());
+    }
+
+    @Benchmark
+    public Expression parse(Throughput throughput) {
+        Expression expression = parser().parse();
+        throughput.count(source.length(), tokens.size(), nodes);
+        return expression;
+    }
+
+    private Parser parser() {
+        Parser parser = new Parser(logger, tokens);
+        parser.setIterative(iterative);
+        return parser;
+    }
+}
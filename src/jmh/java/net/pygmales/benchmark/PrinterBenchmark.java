@@ -0,0 +1,49 @@
+package net.pygmales.benchmark;
+
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.RpnPrinter;
+import net.pygmales.parser.SyntaxTreePrinter;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class PrinterBenchmark {
+    @Param({"balanced:1024", "balanced:1048576", "nested:1000", "wide:1000"})
+    public String corpus;
+
+    private Expression tree;
+    private int sourceLength;
+    private int nodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String source = Corpus.of(corpus);
+        ErrorLogger logger = new ErrorLogger("benchmark");
+        tree = new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+        sourceLength = source.length();
+        nodes = NodeCounter.count(tree);
+    }
+
+    @Benchmark
+    public String syntaxTreePrinter(Throughput throughput) {
+        String printed = new SyntaxTreePrinter().print(tree);
+        throughput.count(sourceLength, 0, nodes);
+        return printed;
+    }
+
+    @Benchmark
+    public String rpnPrinter(Throughput throughput) {
+        String printed = new RpnPrinter().print(tree);
+        throughput.count(sourceLength, 0, nodes);
+        return printed;
+    }
+}
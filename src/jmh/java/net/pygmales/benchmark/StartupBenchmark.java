@@ -0,0 +1,56 @@
+package net.pygmales.benchmark;
+
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.binary.AstFormatException;
+import net.pygmales.parser.binary.AstReader;
+import net.pygmales.parser.binary.AstWriter;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting from a file to a tree: lexing and parsing the source against loading a
+ * precompiled tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class StartupBenchmark {
+    @Param({"balanced:1024", "balanced:1048576"})
+    public String corpus;
+
+    private final ErrorLogger logger = new ErrorLogger("benchmark");
+    private String source;
+    private ByteBuffer precompiled;
+    private int nodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = Corpus.of(corpus);
+        Expression tree = new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+        ByteBuffer written = AstWriter.write(tree, null, source.length());
+        precompiled = ByteBuffer.allocateDirect(written.limit()).put(written).flip();
+        nodes = NodeCounter.count(tree);
+    }
+
+    @Benchmark
+    public Expression parseSource(Throughput throughput) {
+        Expression expression = new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+        throughput.count(source.length(), 0, nodes);
+        return expression;
+    }
+
+    @Benchmark
+    public Expression loadPrecompiled(Throughput throughput) throws AstFormatException {
+        Expression expression = new AstReader(precompiled).read();
+        throughput.count(source.length(), 0, nodes);
+        return expression;
+    }
+}
@@ -0,0 +1,34 @@
+package net.pygmales.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH counters. Every field is reported as a rate per second next to
+ * the primary score, which turns them into MB/s, tokens/s and nodes/s.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    public double megabytes;
+    public long tokens;
+    public long nodes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+        tokens = 0;
+        nodes = 0;
+    }
+
+    public void count(int sourceLength, int tokenCount, int nodeCount) {
+        megabytes += sourceLength / MEGABYTE;
+        tokens += tokenCount;
+        nodes += nodeCount;
+    }
+}
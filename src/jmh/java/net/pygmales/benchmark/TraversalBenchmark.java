@@ -0,0 +1,85 @@
+package net.pygmales.benchmark;
+
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.ExpressionWalker;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionVisitor;
+import net.pygmales.util.ErrorLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Compares a recursive visitor with the {@link ExpressionWalker} on the same trivial
+ * work, counting nodes, so that only the cost of the traversal itself is measured.
+ * {@code nested} and {@code wide} are the degenerate shapes: one long chain of
+ * groupings and unary operations, and one left-deep chain of binary operations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class TraversalBenchmark {
+    @Param({"balanced:1048576", "nested:1000", "wide:1000"})
+    public String corpus;
+
+    private Expression tree;
+    private int sourceLength;
+    private int nodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String source = Corpus.of(corpus);
+        ErrorLogger logger = new ErrorLogger("benchmark");
+        tree = new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+        sourceLength = source.length();
+        nodes = NodeCounter.count(tree);
+    }
+
+    @Benchmark
+    public int recursive(Throughput throughput) {
+        int count = tree.accept(new RecursiveCounter());
+        throughput.count(sourceLength, 0, nodes);
+        return count;
+    }
+
+    @Benchmark
+    public int walker(Throughput throughput) {
+        int[] count = new int[1];
+        ExpressionWalker.walk(tree, expression -> count[0]++);
+        throughput.count(sourceLength, 0, nodes);
+        return count[0];
+    }
+
+    private static class RecursiveCounter implements ExpressionVisitor<Integer> {
+        @Override
+        public Integer visitLiteral(LiteralExpression literal) {
+            return 1;
+        }
+
+        @Override
+        public Integer visitBinary(BinaryExpression binary) {
+            return 1 + binary.left.accept(this) + binary.right.accept(this);
+        }
+
+        @Override
+        public Integer visitUnary(UnaryExpression unary) {
+            return 1 + unary.expression.accept(this);
+        }
+
+        @Override
+        public Integer visitGrouping(GroupingExpression grouping) {
+            return 1 + grouping.expression.accept(this);
+        }
+
+        @Override
+        public Integer visitError(ErrorExpression error) {
+            return 1;
+        }
+    }
+}
@@ -1,19 +1,87 @@
 package net.pygmales;
 
 import net.pygmales.interpreter.BasicInterpreter;
+import net.pygmales.interpreter.BatchDriver;
+import net.pygmales.interpreter.CompilingInterpreter;
+import net.pygmales.interpreter.VmInterpreter;
+import net.pygmales.parser.binary.AstFormatException;
+import net.pygmales.parser.cache.ParseCache;
+import net.pygmales.util.DiagnosticFormat;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Pathl {
     public static void main(String[] args) throws IOException {
-        if (args.length > 1) {
-            System.out.println("Usage: pathl [script]");
+        BasicInterpreter interpreter = null;
+        boolean constantFolding = true;
+        ParseCache parseCache = null;
+        boolean check = false;
+        boolean precompile = false;
+        boolean parallelLexing = false;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        DiagnosticFormat diagnostics = DiagnosticFormat.ANSI;
+        List<String> scripts = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--compile") && interpreter == null) interpreter = new CompilingInterpreter();
+            else if (arg.equals("--vm") && interpreter == null) interpreter = new VmInterpreter();
+            else if (arg.equals("--no-fold")) constantFolding = false;
+            else if (arg.equals("--cache")) parseCache = new ParseCache();
+            else if (arg.startsWith("--cache=")) parseCache = new ParseCache(Path.of(arg.substring("--cache=".length())));
+            else if (arg.equals("--check")) check = true;
+            else if (arg.equals("--precompile")) precompile = true;
+            else if (arg.equals("--parallel-lexing")) parallelLexing = true;
+            else if (arg.matches("--jobs=[1-9][0-9]*")) jobs = Integer.parseInt(arg.substring("--jobs=".length()));
+            else if (arg.matches("--diagnostics=(ansi|plain|json)"))
+                diagnostics = DiagnosticFormat.of(arg.substring("--diagnostics=".length()));
+            else if (arg.startsWith("--")) usage();
+            else scripts.add(arg);
+        }
+
+        if (check || precompile) {
+            if (scripts.isEmpty()) usage();
+            runBatch(new BatchDriver(jobs, precompile, diagnostics), scripts, diagnostics);
+            return;
+        }
+        if (scripts.size() > 1) usage();
+        if (interpreter == null) interpreter = new BasicInterpreter();
+        interpreter.setConstantFolding(constantFolding);
+        interpreter.setParseCache(parseCache);
+        if (parallelLexing) interpreter.setLexerParallelism(jobs);
+        interpreter.setDiagnosticSink(diagnostics.sink(System.out));
+
+        try {
+            if (scripts.size() == 1) interpreter.runFile(scripts.getFirst());
+            else interpreter.runInteractive();
+        } catch (AstFormatException exception) {
+            System.out.println(scripts.getFirst() + ": " + exception.getMessage());
             System.exit(1);
         }
+    }
 
-        var interpreter = new BasicInterpreter();
+    private static void runBatch(BatchDriver driver, List<String> paths, DiagnosticFormat diagnostics) {
+        List<Path> files;
+        try {
+            files = BatchDriver.collect(paths);
+        } catch (IOException exception) {
+            System.err.println(exception.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        BatchDriver.Summary summary = driver.run(files, System.out);
+        // JSON diagnostics are consumed line by line, so the summary must not end up between them
+        (diagnostics == DiagnosticFormat.JSON ? System.err : System.out).println(summary);
+        if (summary.errorCount() > 0) System.exit(1);
+    }
 
-        if (args.length == 1) interpreter.runFile(args[0]);
-        else interpreter.runInteractive();
+    private static void usage() {
+        System.out.println("Usage: pathl [--compile | --vm] [--no-fold] [--cache[=directory]] [--parallel-lexing [--jobs=n]]");
+        System.out.println("             [--diagnostics=format] [script.phl | script.phlc]");
+        System.out.println("       pathl (--check | --precompile) [--jobs=n] [--diagnostics=format] (file | directory | glob)...");
+        System.out.println("Diagnostic formats: ansi (default), plain, json");
+        System.exit(1);
     }
-}
\ No newline at end of file
+}
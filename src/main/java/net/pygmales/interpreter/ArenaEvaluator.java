@@ -0,0 +1,113 @@
+package net.pygmales.interpreter;
+
+import net.pygmales.lexer.Token;
+import net.pygmales.parser.expression.ExpressionArena;
+
+import java.util.Arrays;
+
+import static net.pygmales.parser.expression.ExpressionArena.*;
+
+/**
+ * Evaluator of an {@link ExpressionArena} holding a single tree. Children come before
+ * their parents in the arena, so the evaluation is one pass over the nodes in index
+ * order, without recursion or a stack, and every node keeps its value in a register
+ * of its own. As in {@link Evaluator}, a number lives in the primitive registers and
+ * its object register holds the {@link #NUMERIC} marker, so only the result is boxed.
+ * Operands are evaluated in the same order as in {@link Evaluator}, so both report the
+ * same error first.
+ */
+public class ArenaEvaluator {
+    private static final Object NUMERIC = new Object();
+
+    private Object[] values = new Object[0];
+    private double[] numbers = new double[0];
+
+    public Object evaluate(ExpressionArena arena) {
+        int root = arena.root();
+        if (this.values.length <= root) {
+            this.values = new Object[root + 1];
+            this.numbers = new double[root + 1];
+        }
+        Object[] values = this.values;
+        double[] numbers = this.numbers;
+
+        for (int node = 0; node <= root; node++) {
+            switch (arena.kind(node)) {
+                case LITERAL -> {
+                    Object literal = arena.literal(node);
+                    if (literal instanceof Number value) {
+                        numbers[node] = value.doubleValue();
+                        values[node] = NUMERIC;
+                    } else values[node] = literal;
+                }
+                case BINARY -> {
+                    int left = arena.binaryLeft(node);
+                    int right = arena.binaryRight(node);
+                    values[node] = binary(arena.binaryOperator(node), values[left], numbers[left],
+                            values[right], numbers[right], numbers, node);
+                }
+                case UNARY -> {
+                    int operand = arena.unaryExpression(node);
+                    Token operator = arena.unaryOperator(node);
+                    values[node] = switch (operator.type()) {
+                        case MINUS -> {
+                            if (values[operand] != NUMERIC) throw RuntimeError.numberOperand(operator);
+                            numbers[node] = -numbers[operand];
+                            yield NUMERIC;
+                        }
+                        case NOT -> values[operand] != NUMERIC && !Values.isTruthy(values[operand]);
+                        default -> throw new IllegalStateException("Unexpected unary operator: " + operator);
+                    };
+                }
+                case GROUPING -> {
+                    int inner = arena.groupingExpression(node);
+                    values[node] = values[inner];
+                    numbers[node] = numbers[inner];
+                }
+                case ERROR -> throw new IllegalStateException("An expression with syntax errors cannot be evaluated");
+                default -> throw new IllegalStateException("Unknown node kind: " + arena.kind(node));
+            }
+        }
+
+        Object value = values[root] == NUMERIC ? (Object) numbers[root] : values[root];
+        // Let the strings of this run go, the registers themselves are kept for the next one
+        Arrays.fill(values, 0, root + 1, null);
+        return value;
+    }
+
+    private static Object binary(Token operator, Object left, double leftNumber, Object right, double rightNumber,
+                                 double[] numbers, int node) {
+        return switch (operator.type()) {
+            case PLUS -> {
+                if (left == NUMERIC && right == NUMERIC) yield numeric(numbers, node, leftNumber + rightNumber);
+                if (left instanceof String a && right instanceof String b) yield a + b;
+                throw RuntimeError.additionOperands(operator);
+            }
+            case MINUS -> numeric(numbers, node, checkNumbers(operator, left, right, leftNumber - rightNumber));
+            case STAR -> numeric(numbers, node, checkNumbers(operator, left, right, leftNumber * rightNumber));
+            case SLASH -> numeric(numbers, node, checkNumbers(operator, left, right, leftNumber / rightNumber));
+            case GREATER -> checkNumbers(operator, left, right, leftNumber) > rightNumber;
+            case GREATER_EQUAL -> checkNumbers(operator, left, right, leftNumber) >= rightNumber;
+            case LESS -> checkNumbers(operator, left, right, leftNumber) < rightNumber;
+            case LESS_EQUAL -> checkNumbers(operator, left, right, leftNumber) <= rightNumber;
+            case EQUAL_EQUAL -> isEqual(left, leftNumber, right, rightNumber);
+            case NOT_EQUAL -> !isEqual(left, leftNumber, right, rightNumber);
+            default -> throw new IllegalStateException("Unexpected binary operator: " + operator);
+        };
+    }
+
+    private static Object numeric(double[] numbers, int node, double value) {
+        numbers[node] = value;
+        return NUMERIC;
+    }
+
+    private static boolean isEqual(Object left, double leftNumber, Object right, double rightNumber) {
+        if (left == NUMERIC || right == NUMERIC) return left == right && leftNumber == rightNumber;
+        return Values.isEqual(left, right);
+    }
+
+    private static double checkNumbers(Token operator, Object left, Object right, double result) {
+        if (left != NUMERIC || right != NUMERIC) throw RuntimeError.numberOperands(operator);
+        return result;
+    }
+}
@@ -1,36 +1,120 @@
 package net.pygmales.interpreter;
 
 import net.pygmales.lexer.Lexer;
-import net.pygmales.lexer.Token;
+import net.pygmales.lexer.MappedFileReader;
+import net.pygmales.lexer.ParallelLexer;
+import net.pygmales.lexer.SymbolTable;
+import net.pygmales.lexer.TokenCursor;
+import net.pygmales.lexer.Utf8Lexer;
 import net.pygmales.parser.Parser;
-import net.pygmales.parser.SyntaxTreePrinter;
+import net.pygmales.parser.binary.AstFormat;
+import net.pygmales.parser.binary.AstFormatException;
+import net.pygmales.parser.binary.AstReader;
+import net.pygmales.parser.cache.ParseCache;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.DiagnosticFormat;
+import net.pygmales.util.DiagnosticSink;
 import net.pygmales.util.ErrorLogger;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 public class BasicInterpreter implements Interpreter {
+    private final Evaluator evaluator = new Evaluator();
+    private final ConstantFolder folder = new ConstantFolder();
+    // Shared by all runs, so a name has the same symbol in every line of a session
+    private final SymbolTable symbols = new SymbolTable();
+    private boolean constantFolding = true;
+    private ParseCache parseCache;
+    private int lexerParallelism = 1;
+    private DiagnosticSink diagnostics = DiagnosticFormat.ANSI.sink(System.out);
     private ErrorLogger logger;
     public BasicInterpreter() {}
 
+    public void setConstantFolding(boolean constantFolding) {
+        this.constantFolding = constantFolding;
+    }
+
+    public ConstantFolder getConstantFolder() {
+        return folder;
+    }
+
+    public void setDiagnosticSink(DiagnosticSink diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Makes runs look up the trees of their sources in the cache before lexing and
+     * parsing them, and store every tree that parsed without errors.
+     */
+    public void setParseCache(ParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    /**
+     * Makes runs lex source files larger than two chunks of
+     * {@link ParallelLexer#DEFAULT_CHUNK_SIZE} bytes with a {@link ParallelLexer} on the
+     * given number of threads. Such a file is decoded into a String first, while smaller
+     * files are still lexed as they are read.
+     */
+    public void setLexerParallelism(int lexerParallelism) {
+        this.lexerParallelism = lexerParallelism;
+    }
+
+    /**
+     * Runs a source file, or a file precompiled with {@link BatchDriver}.
+     *
+     * @throws AstFormatException if a precompiled file is stale or corrupt
+     */
     @Override
     public void runFile(String filePath) throws IOException {
         Path path = Paths.get(filePath);
-        logger = new ErrorLogger(path.toFile().getName());
-        byte[] bytes = Files.readAllBytes(path);
-        run(new String(bytes, Charset.defaultCharset()));
+        if (AstFormat.isPrecompiled(filePath)) {
+            runPrecompiled(path);
+            return;
+        }
+
+        logger = new ErrorLogger(path.toFile().getName(), diagnostics);
+        logger.setSource(path);
+        String key = parseCache != null ? ParseCache.key(path) : null;
+        Expression expression = key != null ? parseCache.get(key) : null;
+        if (expression == null) {
+            if (lexerParallelism > 1 && Files.size(path) > 2L * ParallelLexer.DEFAULT_CHUNK_SIZE) {
+                expression = parse(lexInParallel(path));
+            } else {
+                // UTF-8 sources are lexed as bytes, others are decoded first
+                try (Reader reader = Utf8Lexer.canMap(path) ? null : new MappedFileReader(path, Charset.defaultCharset())) {
+                    expression = parse(reader == null ? lexUtf8(path) : withSymbols(new Lexer(logger, reader)).cursor());
+                }
+            }
+            if (expression == null) return;
+            if (key != null) parseCache.put(key, expression, Files.size(path));
+        }
+        execute(expression);
+    }
+
+    private void runPrecompiled(Path path) throws IOException {
+        AstReader reader = AstReader.open(path);
+        String sourceName = reader.sourceName();
+        logger = new ErrorLogger(sourceName != null ? sourceName : path.toFile().getName(), diagnostics);
+
+        // Errors can only show the source line while the source is still around
+        Path source = sourceName != null ? path.resolveSibling(sourceName) : null;
+        if (source != null && Files.isRegularFile(source)) logger.setSource(source);
+        execute(reader.read());
     }
 
     @Override
     public void runInteractive() throws IOException {
-        logger = new ErrorLogger("interactive");
+        logger = new ErrorLogger("interactive", diagnostics);
         InputStreamReader input = new InputStreamReader(System.in);
         BufferedReader reader = new BufferedReader(input);
 
@@ -45,7 +129,65 @@ public class BasicInterpreter implements Interpreter {
 
     private void run(String source) {
         logger.setSource(source);
-        List<Token> tokens = new Lexer(logger, source).scanTokens();
-        System.out.println(new SyntaxTreePrinter().print(new Parser(logger, tokens).parse()));
+        String key = parseCache != null ? ParseCache.key(source) : null;
+        Expression expression = key != null ? parseCache.get(key) : null;
+        if (expression == null) {
+            expression = parse(withSymbols(new Lexer(logger, source)).scanBuffer().cursor());
+            if (expression == null) return;
+            if (key != null) parseCache.put(key, expression, source.length());
+        }
+        execute(expression);
+    }
+
+    private Lexer withSymbols(Lexer lexer) {
+        lexer.setSymbols(symbols);
+        return lexer;
+    }
+
+    private TokenCursor lexUtf8(Path path) throws IOException {
+        Utf8Lexer lexer = Utf8Lexer.map(logger, path);
+        lexer.setSymbols(symbols);
+        return lexer.cursor();
+    }
+
+    private TokenCursor lexInParallel(Path path) throws IOException {
+        String source = new String(Files.readAllBytes(path), Charset.defaultCharset());
+        try (ForkJoinPool pool = new ForkJoinPool(lexerParallelism)) {
+            ParallelLexer lexer = new ParallelLexer(logger, source, pool);
+            lexer.setSymbols(symbols);
+            return lexer.scanBuffer().cursor();
+        }
+    }
+
+    /**
+     * Returns the parsed tree, or {@code null} if lexing or parsing reported errors.
+     * Like the later stages, the parser runs without recursion, so the nesting depth
+     * of a program is only limited by the heap.
+     */
+    private Expression parse(TokenCursor tokens) {
+        Parser parser = new Parser(logger, tokens);
+        parser.setIterative(true);
+        Expression expression = parser.parse();
+        logger.close();
+        return logger.hasErrors() ? null : expression;
+    }
+
+    private void execute(Expression expression) {
+        if (constantFolding) expression = folder.fold(expression);
+
+        try {
+            System.out.println(Values.stringify(evaluate(expression)));
+        } catch (RuntimeError error) {
+            logger.error(error.token, error.getMessage(), error.description);
+            logger.close();
+        }
+    }
+
+    /**
+     * Executes a parsed expression and returns its value. This is the extension point
+     * for execution engines other than the tree-walking {@link Evaluator}.
+     */
+    protected Object evaluate(Expression expression) {
+        return evaluator.evaluate(expression);
     }
 }
@@ -0,0 +1,157 @@
+package net.pygmales.interpreter;
+
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.MappedFileReader;
+import net.pygmales.lexer.TokenCursor;
+import net.pygmales.lexer.Utf8Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.binary.AstFormat;
+import net.pygmales.parser.binary.AstWriter;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.DiagnosticFormat;
+import net.pygmales.util.ErrorLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Lexes and parses many files in parallel within one JVM, and optionally writes
+ * their precompiled form. Every file gets its own {@link ErrorLogger} writing into a
+ * buffer, and the buffers are printed in the order of the files, so diagnostics of
+ * different files never interleave.
+ */
+public class BatchDriver {
+    private final int parallelism;
+    private final boolean precompile;
+    private final DiagnosticFormat format;
+
+    public record FileResult(Path path, long bytes, int errors, long nanos, String diagnostics) {}
+
+    public record Summary(List<FileResult> files, int threads, long nanos) {
+        public int errorCount() {
+            return this.files.stream().mapToInt(FileResult::errors).sum();
+        }
+
+        public long failedFiles() {
+            return this.files.stream().filter(file -> file.errors > 0).count();
+        }
+
+        @Override
+        public String toString() {
+            long bytes = this.files.stream().mapToLong(FileResult::bytes).sum();
+            long work = this.files.stream().mapToLong(FileResult::nanos).sum();
+            StringBuilder summary = new StringBuilder(String.format(
+                    "Checked %d files (%.1f KB) in %d ms on %d threads, %d ms of work",
+                    this.files.size(), bytes / 1024.0, this.nanos / 1_000_000, this.threads, work / 1_000_000));
+            this.files.stream().max((a, b) -> Long.compare(a.nanos, b.nanos)).ifPresent(slowest ->
+                    summary.append(String.format("\nSlowest: %s in %d ms", slowest.path, slowest.nanos / 1_000_000)));
+            summary.append(this.errorCount() == 0 ? "\nNo errors" :
+                    String.format("\n%d errors in %d files", this.errorCount(), this.failedFiles()));
+            return summary.toString();
+        }
+    }
+
+    public BatchDriver(int parallelism, boolean precompile) {
+        this(parallelism, precompile, DiagnosticFormat.ANSI);
+    }
+
+    public BatchDriver(int parallelism, boolean precompile, DiagnosticFormat format) {
+        this.parallelism = parallelism;
+        this.precompile = precompile;
+        this.format = format;
+    }
+
+    /**
+     * Resolves files, directories and glob patterns into the sorted list of the
+     * {@code .phl} files they name. Directories are searched recursively.
+     */
+    public static List<Path> collect(List<String> arguments) throws IOException {
+        TreeSet<Path> files = new TreeSet<>();
+        for (String argument : arguments) {
+            int glob = indexOfGlob(argument);
+            Path path = Path.of(glob < 0 ? argument : argument.substring(0, argument.lastIndexOf('/', glob) + 1));
+            if (glob < 0 && Files.isRegularFile(path)) {
+                files.add(path);
+                continue;
+            }
+
+            PathMatcher matcher = glob < 0 ?
+                    file -> file.toString().endsWith(".phl") :
+                    FileSystems.getDefault().getPathMatcher("glob:" + argument);
+            if (!Files.isDirectory(path)) throw new IOException("No such file or directory: " + argument);
+            try (Stream<Path> walk = Files.walk(path)) {
+                walk.filter(Files::isRegularFile).filter(matcher::matches).forEach(files::add);
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Processes the files and prints the diagnostics of each file to the stream once
+     * it and all files before it are done.
+     */
+    public Summary run(List<Path> files, PrintStream out) {
+        long start = System.nanoTime();
+        List<FileResult> results = new ArrayList<>(files.size());
+        try (ForkJoinPool pool = new ForkJoinPool(this.parallelism)) {
+            List<CompletableFuture<FileResult>> tasks = files.stream()
+                    .map(file -> CompletableFuture.supplyAsync(() -> this.process(file), pool))
+                    .toList();
+            for (CompletableFuture<FileResult> task : tasks) {
+                FileResult result = task.join();
+                out.print(result.diagnostics);
+                results.add(result);
+            }
+        }
+        return new Summary(results, this.parallelism, System.nanoTime() - start);
+    }
+
+    private FileResult process(Path file) {
+        long start = System.nanoTime();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream diagnostics = new PrintStream(buffer, false, Charset.defaultCharset());
+        ErrorLogger logger = new ErrorLogger(file.toString(), this.format.sink(diagnostics));
+        logger.setSource(file);
+
+        long bytes = 0;
+        try (Reader reader = Utf8Lexer.canMap(file) ? null : new MappedFileReader(file, Charset.defaultCharset())) {
+            bytes = Files.size(file);
+            TokenCursor tokens = reader == null ? Utf8Lexer.map(logger, file).cursor() : new Lexer(logger, reader).cursor();
+            Parser parser = new Parser(logger, tokens);
+            // Files of any nesting depth are checked, as the interpreter runs them
+            parser.setIterative(true);
+            Expression expression = parser.parse();
+            if (this.precompile && !logger.hasErrors())
+                AstWriter.write(expression, file.getFileName().toString(), bytes, AstFormat.precompiledPath(file));
+        } catch (IOException | RuntimeException exception) {
+            // Fails only this file, e.g. one whose source cannot be read back for an error
+            // message, and is written in the chosen format after the errors found before
+            String message = exception.getMessage();
+            logger.fileError("could not process the file", message != null ? message : exception.toString());
+        }
+
+        logger.close();
+        diagnostics.flush();
+        int errors = logger.getErrorCount();
+        return new FileResult(file, bytes, errors, System.nanoTime() - start, buffer.toString(Charset.defaultCharset()));
+    }
+
+    private static int indexOfGlob(String argument) {
+        for (int i = 0; i < argument.length(); i++)
+            if ("*?[{".indexOf(argument.charAt(i)) >= 0) return i;
+        return -1;
+    }
+}
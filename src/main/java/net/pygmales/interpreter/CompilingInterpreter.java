@@ -0,0 +1,26 @@
+package net.pygmales.interpreter;
+
+import net.pygmales.interpreter.compiler.CompilationLimitException;
+import net.pygmales.interpreter.compiler.CompiledProgram;
+import net.pygmales.interpreter.compiler.ExpressionCompiler;
+import net.pygmales.parser.expression.Expression;
+
+/**
+ * Interpreter that compiles every expression to JVM bytecode before running it.
+ * Expressions that do not fit into a class file, or are nested too deeply to be
+ * compiled, are evaluated by the tree walker.
+ */
+public class CompilingInterpreter extends BasicInterpreter {
+    @Override
+    protected Object evaluate(Expression expression) {
+        CompiledProgram program;
+        try {
+            program = ExpressionCompiler.compile(expression);
+        } catch (CompilationLimitException | StackOverflowError exception) {
+            // The compiler recurses into the tree, so how deep it gets depends on the
+            // thread's stack size; the tree walker runs any depth
+            return super.evaluate(expression);
+        }
+        return program.evaluate();
+    }
+}
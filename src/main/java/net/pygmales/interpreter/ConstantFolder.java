@@ -0,0 +1,111 @@
+package net.pygmales.interpreter;
+
+import net.pygmales.lexer.TokenType;
+import net.pygmales.parser.ExpressionWalker;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionVisitor;
+
+import java.util.Arrays;
+
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Optimization pass that folds every operation over literal operands into a literal
+ * and drops grouping wrappers. Operations are folded with the {@link Evaluator}, so a
+ * folded value is exactly what execution would produce; an operation that raises a
+ * {@link RuntimeError} is kept, so that the error is still reported at runtime.
+ * <p>
+ * Every leaf is a literal, so a subtree that is not a literal after folding is one
+ * that raises an error. This makes {@code --x} and {@code !!x} reducible to {@code x}
+ * for such a subtree, since the error is raised before either operator is applied.
+ * <p>
+ * The tree is walked in postorder without recursion, and the folded subtrees wait on
+ * a stack until their parent is folded.
+ */
+public class ConstantFolder implements ExpressionVisitor<Void> {
+    private final Evaluator evaluator = new Evaluator();
+    private Expression[] folded = new Expression[16];
+    private int size;
+    private int foldedOperations;
+    private int removedNodes;
+
+    public Expression fold(Expression expression) {
+        this.size = 0;
+        ExpressionWalker.postorder(expression, this);
+        return this.pop();
+    }
+
+    public int getFoldedOperations() {
+        return this.foldedOperations;
+    }
+
+    public int getRemovedNodes() {
+        return this.removedNodes;
+    }
+
+    @Override
+    public Void visitLiteral(LiteralExpression literal) {
+        return this.push(literal);
+    }
+
+    @Override
+    public Void visitBinary(BinaryExpression binary) {
+        Expression right = this.pop();
+        Expression left = this.pop();
+        if (left != binary.left || right != binary.right) binary = binary(left, binary.operator, right);
+
+        boolean literals = left instanceof LiteralExpression && right instanceof LiteralExpression;
+        return this.push(literals ? this.evaluate(binary, 2) : binary);
+    }
+
+    @Override
+    public Void visitUnary(UnaryExpression unary) {
+        Expression operand = this.pop();
+        TokenType type = unary.operator.type();
+
+        if (operand instanceof UnaryExpression inner && inner.operator.type() == type
+                && !(inner.expression instanceof LiteralExpression)) {
+            this.removedNodes += 2;
+            return this.push(inner.expression);
+        }
+
+        if (operand != unary.expression) unary = unary(unary.operator, operand);
+        return this.push(operand instanceof LiteralExpression ? this.evaluate(unary, 1) : unary);
+    }
+
+    @Override
+    public Void visitGrouping(GroupingExpression grouping) {
+        // The folded inner expression stays on the stack in place of the grouping
+        this.removedNodes++;
+        return null;
+    }
+
+    @Override
+    public Void visitError(ErrorExpression error) {
+        return this.push(error);
+    }
+
+    private Void push(Expression expression) {
+        if (this.size == this.folded.length) this.folded = Arrays.copyOf(this.folded, this.size * 2);
+        this.folded[this.size++] = expression;
+        return null;
+    }
+
+    private Expression pop() {
+        // Cleared, so the stack does not keep trees alive between folds
+        Expression expression = this.folded[--this.size];
+        this.folded[this.size] = null;
+        return expression;
+    }
+
+    private Expression evaluate(Expression operation, int operands) {
+        try {
+            Expression literal = literal(this.evaluator.evaluate(operation));
+            this.foldedOperations++;
+            this.removedNodes += operands;
+            return literal;
+        } catch (RuntimeError error) {
+            return operation;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package net.pygmales.interpreter;
+
+import net.pygmales.lexer.Token;
+import net.pygmales.parser.ExpressionWalker;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionVisitor;
+
+import java.util.Arrays;
+
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Tree-walking evaluator of the {@link Values} model. The tree is walked in postorder
+ * on an explicit stack, so any depth that could be parsed can be evaluated, and the
+ * values of the operands wait on a value stack of their own. Numbers never travel
+ * through it as boxed objects: a number is kept in a parallel primitive stack and its
+ * object slot holds the {@link #NUMERIC} marker, so arithmetic over number literals
+ * only boxes the final result.
+ */
+public class Evaluator implements ExpressionVisitor<Void> {
+    private static final Object NUMERIC = new Object();
+
+    private Object[] values = new Object[16];
+    private double[] numbers = new double[16];
+    private int size;
+    // The number a visit produced, until it is pushed
+    private double number;
+
+    public Object evaluate(Expression expression) {
+        // A run that raised an error leaves its operands behind
+        this.size = 0;
+        ExpressionWalker.postorder(expression, this);
+        Object value = this.values[0];
+        this.values[0] = null;
+        return value == NUMERIC ? (Object) this.numbers[0] : value;
+    }
+
+    @Override
+    public Void visitLiteral(LiteralExpression literal) {
+        if (literal.literal instanceof Number value) return this.push(this.numeric(value.doubleValue()));
+        return this.push(literal.literal);
+    }
+
+    @Override
+    public Void visitBinary(BinaryExpression binary) {
+        Object right = this.values[--this.size];
+        double rightNumber = this.numbers[this.size];
+        Object left = this.values[--this.size];
+        double leftNumber = this.numbers[this.size];
+        Token operator = binary.operator;
+
+        return this.push(switch (operator.type()) {
+            case PLUS -> {
+                if (left == NUMERIC && right == NUMERIC) yield this.numeric(leftNumber + rightNumber);
+                if (left instanceof String a && right instanceof String b) yield a + b;
+                throw RuntimeError.additionOperands(operator);
+            }
+            case MINUS -> this.numeric(checkNumbers(operator, left, right, leftNumber - rightNumber));
+            case STAR -> this.numeric(checkNumbers(operator, left, right, leftNumber * rightNumber));
+            case SLASH -> this.numeric(checkNumbers(operator, left, right, leftNumber / rightNumber));
+            case GREATER -> checkNumbers(operator, left, right, leftNumber) > rightNumber;
+            case GREATER_EQUAL -> checkNumbers(operator, left, right, leftNumber) >= rightNumber;
+            case LESS -> checkNumbers(operator, left, right, leftNumber) < rightNumber;
+            case LESS_EQUAL -> checkNumbers(operator, left, right, leftNumber) <= rightNumber;
+            case EQUAL_EQUAL -> this.isEqual(left, leftNumber, right, rightNumber);
+            case NOT_EQUAL -> !this.isEqual(left, leftNumber, right, rightNumber);
+            default -> throw new IllegalStateException("Unexpected binary operator: " + operator);
+        });
+    }
+
+    @Override
+    public Void visitUnary(UnaryExpression unary) {
+        Object operand = this.values[--this.size];
+        double operandNumber = this.numbers[this.size];
+
+        return this.push(switch (unary.operator.type()) {
+            case MINUS -> {
+                if (operand != NUMERIC) throw RuntimeError.numberOperand(unary.operator);
+                yield this.numeric(-operandNumber);
+            }
+            case NOT -> operand != NUMERIC && !Values.isTruthy(operand);
+            default -> throw new IllegalStateException("Unexpected unary operator: " + unary.operator);
+        });
+    }
+
+    @Override
+    public Void visitGrouping(GroupingExpression grouping) {
+        // The value of the inner expression is already on the stack
+        return null;
+    }
+
+    @Override
+    public Void visitError(ErrorExpression error) {
+        throw new IllegalStateException("An expression with syntax errors cannot be evaluated");
+    }
+
+    private Void push(Object value) {
+        if (this.size == this.values.length) {
+            this.values = Arrays.copyOf(this.values, this.size * 2);
+            this.numbers = Arrays.copyOf(this.numbers, this.size * 2);
+        }
+        this.values[this.size] = value;
+        this.numbers[this.size++] = this.number;
+        return null;
+    }
+
+    private Object numeric(double value) {
+        this.number = value;
+        return NUMERIC;
+    }
+
+    private boolean isEqual(Object left, double leftNumber, Object right, double rightNumber) {
+        if (left == NUMERIC || right == NUMERIC) return left == right && leftNumber == rightNumber;
+        return Values.isEqual(left, right);
+    }
+
+    private static double checkNumbers(Token operator, Object left, Object right, double result) {
+        if (left != NUMERIC || right != NUMERIC) throw RuntimeError.numberOperands(operator);
+        return result;
+    }
+}
@@ -0,0 +1,32 @@
+package net.pygmales.interpreter;
+
+import net.pygmales.lexer.Token;
+
+public class RuntimeError extends RuntimeException {
+    public final Token token;
+    public final String description;
+
+    public RuntimeError(Token token, String errorName, String description) {
+        super(errorName);
+        this.token = token;
+        this.description = description;
+    }
+
+    public static RuntimeError numberOperand(Token operator) {
+        return new RuntimeError(operator,
+                String.format("invalid operand for `%s`", operator.literal()),
+                "operand must be a number");
+    }
+
+    public static RuntimeError numberOperands(Token operator) {
+        return new RuntimeError(operator,
+                String.format("invalid operands for `%s`", operator.literal()),
+                "operands must be numbers");
+    }
+
+    public static RuntimeError additionOperands(Token operator) {
+        return new RuntimeError(operator,
+                String.format("invalid operands for `%s`", operator.literal()),
+                "operands must be two numbers or two strings");
+    }
+}
@@ -0,0 +1,34 @@
+package net.pygmales.interpreter;
+
+import java.util.Objects;
+
+/**
+ * The pathl value model. A value is a {@link Double}, a {@link String}, a
+ * {@link Boolean} or {@code null}; {@code false} and {@code null} are falsy and
+ * every other value is truthy. Numbers compare by numeric value, everything else
+ * with {@link Object#equals(Object)}.
+ */
+public final class Values {
+    private Values() {}
+
+    public static boolean isTruthy(Object value) {
+        if (value == null) return false;
+        if (value instanceof Boolean bool) return bool;
+        return true;
+    }
+
+    public static boolean isEqual(Object left, Object right) {
+        if (left instanceof Double a && right instanceof Double b) return a.doubleValue() == b.doubleValue();
+        return Objects.equals(left, right);
+    }
+
+    public static String stringify(Object value) {
+        if (value instanceof Double number) return stringify(number.doubleValue());
+        return String.valueOf(value);
+    }
+
+    public static String stringify(double number) {
+        if (number == Math.rint(number) && Math.abs(number) < 1e15) return Long.toString((long) number);
+        return Double.toString(number);
+    }
+}
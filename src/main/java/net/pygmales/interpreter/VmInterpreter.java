@@ -0,0 +1,18 @@
+package net.pygmales.interpreter;
+
+import net.pygmales.interpreter.vm.BytecodeCompiler;
+import net.pygmales.interpreter.vm.VirtualMachine;
+import net.pygmales.parser.expression.Expression;
+
+/**
+ * Interpreter that compiles every expression to pathl bytecode and runs it on a
+ * {@link VirtualMachine}.
+ */
+public class VmInterpreter extends BasicInterpreter {
+    private final VirtualMachine machine = new VirtualMachine();
+
+    @Override
+    protected Object evaluate(Expression expression) {
+        return machine.run(BytecodeCompiler.compile(expression));
+    }
+}
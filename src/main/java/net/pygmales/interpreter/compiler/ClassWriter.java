@@ -0,0 +1,174 @@
+package net.pygmales.interpreter.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer of class files with a deduplicated constant pool. It only supports
+ * what {@link ExpressionCompiler} emits: a class without fields whose methods contain
+ * straight-line code, which is why no stack map frames are ever needed.
+ */
+final class ClassWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    static final int MAX_CONSTANTS = 0xFFFF;
+    private static final int VERSION = 52;
+
+    private static final int UTF8 = 1;
+    private static final int DOUBLE = 6;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int METHOD_REF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constants = new DataOutputStream(this.constantBytes);
+    private final Map<String, Integer> constantIndices = new HashMap<>();
+    private final List<byte[]> methods = new ArrayList<>();
+    private int constantCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    ClassWriter(String name, String superName, String... interfaceNames) {
+        this.thisClass = this.classConstant(name);
+        this.superClass = this.classConstant(superName);
+        this.interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) this.interfaces[i] = this.classConstant(interfaceNames[i]);
+    }
+
+    int constantCount() {
+        return this.constantCount;
+    }
+
+    int utf8Constant(String value) {
+        return this.constant("U" + value, 1, out -> {
+            out.writeByte(UTF8);
+            out.writeUTF(value);
+        });
+    }
+
+    int classConstant(String internalName) {
+        int name = this.utf8Constant(internalName);
+        return this.constant("C" + internalName, 1, out -> {
+            out.writeByte(CLASS);
+            out.writeShort(name);
+        });
+    }
+
+    int stringConstant(String value) {
+        int utf8 = this.utf8Constant(value);
+        return this.constant("S" + value, 1, out -> {
+            out.writeByte(STRING);
+            out.writeShort(utf8);
+        });
+    }
+
+    int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        return this.constant("D" + bits, 2, out -> {
+            out.writeByte(DOUBLE);
+            out.writeLong(bits);
+        });
+    }
+
+    int methodConstant(String owner, String name, String descriptor) {
+        int ownerIndex = this.classConstant(owner);
+        int nameIndex = this.utf8Constant(name);
+        int descriptorIndex = this.utf8Constant(descriptor);
+        int nameAndType = this.constant("N" + name + ":" + descriptor, 1, out -> {
+            out.writeByte(NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return this.constant("M" + owner + "." + name + ":" + descriptor, 1, out -> {
+            out.writeByte(METHOD_REF);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    void addMethod(int access, String name, String descriptor, Code code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(code.size() + 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        int nameIndex = this.utf8Constant(name);
+        int descriptorIndex = this.utf8Constant(descriptor);
+        int codeAttribute = this.utf8Constant("Code");
+        try {
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + code.size());
+            out.writeShort(code.maxStack());
+            out.writeShort(code.maxLocals());
+            out.writeInt(code.size());
+            code.writeTo(out);
+            out.writeShort(0);
+            out.writeShort(0);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        this.methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(this.constantCount);
+            this.constantBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(this.thisClass);
+            out.writeShort(this.superClass);
+            out.writeShort(this.interfaces.length);
+            for (int anInterface : this.interfaces) out.writeShort(anInterface);
+            out.writeShort(0);
+            out.writeShort(this.methods.size());
+            for (byte[] method : this.methods) out.write(method);
+            out.writeShort(0);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    private int constant(String key, int slots, ConstantWriter writer) {
+        Integer index = this.constantIndices.get(key);
+        if (index != null) return index;
+
+        if (this.constantCount + slots > MAX_CONSTANTS) throw new CompilationLimitException("constant pool is full");
+        try {
+            writer.write(this.constants);
+        } catch (UTFDataFormatException exception) {
+            throw new CompilationLimitException("constant is too long");
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        index = this.constantCount;
+        this.constantCount += slots;
+        this.constantIndices.put(key, index);
+        return index;
+    }
+
+    @FunctionalInterface
+    private interface ConstantWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,95 @@
+package net.pygmales.interpreter.compiler;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Straight-line bytecode of a single method. Every emitting call names its effect on
+ * the operand stack, so the maximum stack depth is known once the code is complete.
+ */
+final class Code {
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int LDC2_W = 0x14;
+    static final int ALOAD_0 = 0x2a;
+    static final int ALOAD_1 = 0x2b;
+    static final int AALOAD = 0x32;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int DADD = 0x63;
+    static final int DSUB = 0x67;
+    static final int DMUL = 0x6b;
+    static final int DDIV = 0x6f;
+    static final int DNEG = 0x77;
+    static final int IXOR = 0x82;
+    static final int IRETURN = 0xac;
+    static final int DRETURN = 0xaf;
+    static final int ARETURN = 0xb0;
+    static final int RETURN = 0xb1;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int ATHROW = 0xbf;
+    static final int CHECKCAST = 0xc0;
+
+    /** Methods are split well before this, the JVM limit is 65535 bytes. */
+    static final int MAX_SIZE = 0xFFFF;
+
+    private final int maxLocals;
+    private byte[] bytes = new byte[64];
+    private int size;
+    private int stack;
+    private int maxStack;
+
+    Code(int maxLocals) {
+        this.maxLocals = maxLocals;
+    }
+
+    void op(int opcode, int stackEffect) {
+        this.ensure(1);
+        this.bytes[this.size++] = (byte) opcode;
+        this.adjust(stackEffect);
+    }
+
+    void op(int opcode, int operand, int stackEffect) {
+        this.ensure(3);
+        this.bytes[this.size++] = (byte) opcode;
+        this.bytes[this.size++] = (byte) (operand >> 8);
+        this.bytes[this.size++] = (byte) operand;
+        this.adjust(stackEffect);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int stack() {
+        return this.stack;
+    }
+
+    int maxStack() {
+        return this.maxStack;
+    }
+
+    int maxLocals() {
+        return this.maxLocals;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.write(this.bytes, 0, this.size);
+    }
+
+    private void adjust(int stackEffect) {
+        this.stack += stackEffect;
+        this.maxStack = Math.max(this.maxStack, this.stack);
+    }
+
+    private void ensure(int length) {
+        if (this.size + length > MAX_SIZE) throw new CompilationLimitException("method is too large");
+        if (this.size + length > this.bytes.length) this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+    }
+}
@@ -0,0 +1,10 @@
+package net.pygmales.interpreter.compiler;
+
+/**
+ * Thrown when an expression does not fit into the limits of a single class file.
+ */
+public class CompilationLimitException extends RuntimeException {
+    public CompilationLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package net.pygmales.interpreter.compiler;
+
+/**
+ * An expression compiled to a hidden class. The tokens are the operators the
+ * compiled code reports runtime errors on.
+ */
+public interface CompiledExpression {
+    Object evaluate(Object[] tokens);
+}
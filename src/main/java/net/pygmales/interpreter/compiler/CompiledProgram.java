@@ -0,0 +1,7 @@
+package net.pygmales.interpreter.compiler;
+
+public record CompiledProgram(CompiledExpression code, Object[] tokens) {
+    public Object evaluate() {
+        return this.code.evaluate(this.tokens);
+    }
+}
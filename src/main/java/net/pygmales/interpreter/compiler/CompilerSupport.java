@@ -0,0 +1,33 @@
+package net.pygmales.interpreter.compiler;
+
+/**
+ * Operations the compiled code calls instead of branching itself, which keeps the
+ * generated methods free of control flow. The JIT inlines all of them.
+ */
+public final class CompilerSupport {
+    private CompilerSupport() {}
+
+    public static boolean greater(double left, double right) {
+        return left > right;
+    }
+
+    public static boolean greaterEqual(double left, double right) {
+        return left >= right;
+    }
+
+    public static boolean less(double left, double right) {
+        return left < right;
+    }
+
+    public static boolean lessEqual(double left, double right) {
+        return left <= right;
+    }
+
+    public static boolean isEqual(double left, double right) {
+        return left == right;
+    }
+
+    public static boolean isEqual(boolean left, boolean right) {
+        return left == right;
+    }
+}
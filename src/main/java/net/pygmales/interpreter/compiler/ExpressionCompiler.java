@@ -0,0 +1,305 @@
+package net.pygmales.interpreter.compiler;
+
+import net.pygmales.lexer.Token;
+import net.pygmales.parser.ExpressionWalker;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionVisitor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.pygmales.interpreter.compiler.ClassWriter.*;
+import static net.pygmales.interpreter.compiler.Code.*;
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Compiles an expression into a hidden class with the same semantics as the
+ * {@link net.pygmales.interpreter.Evaluator}. Every leaf is a literal, so the type of
+ * every subtree is known statically: numbers stay unboxed doubles on the operand
+ * stack, and an operation on the wrong types compiles into throwing the same
+ * {@link net.pygmales.interpreter.RuntimeError} the tree walker would raise.
+ * Subtrees larger than {@link #SPLIT_SIZE} nodes get a method of their own, which
+ * keeps every method far below the JVM's code size limit. The compiler recurses into
+ * the tree, so a tree nested deeper than {@link #MAX_DEPTH} is not compiled at all,
+ * and on a thread with a small stack even a shallower one can overflow it.
+ */
+public class ExpressionCompiler implements ExpressionVisitor<ExpressionCompiler.Type> {
+    private static final String CLASS_NAME = "net/pygmales/interpreter/compiler/Compiled";
+    private static final String COMPILED_EXPRESSION = "net/pygmales/interpreter/compiler/CompiledExpression";
+    private static final String SUPPORT = "net/pygmales/interpreter/compiler/CompilerSupport";
+    private static final String RUNTIME_ERROR = "net/pygmales/interpreter/RuntimeError";
+    private static final String VALUES = "net/pygmales/interpreter/Values";
+    private static final String TOKEN = "net/pygmales/lexer/Token";
+    private static final String ERROR_FACTORY = "(L" + TOKEN + ";)L" + RUNTIME_ERROR + ";";
+    private static final String METHOD_PARAMETERS = "([Ljava/lang/Object;)";
+    private static final int SPLIT_SIZE = 1024;
+    private static final int MAX_DEPTH = 1536;
+
+    enum Type {
+        NUMBER("D", 2), STRING("Ljava/lang/String;", 1), BOOLEAN("Z", 1), NULL("Ljava/lang/Object;", 1), NEVER("V", 0);
+
+        private final String descriptor;
+        private final int slots;
+
+        Type(String descriptor, int slots) {
+            this.descriptor = descriptor;
+            this.slots = slots;
+        }
+    }
+
+    private final ClassWriter writer = new ClassWriter(CLASS_NAME, "java/lang/Object", COMPILED_EXPRESSION);
+    private final Map<Expression, Integer> sizes = new IdentityHashMap<>();
+    private final List<Token> tokens = new ArrayList<>();
+    private Code code;
+    private int methodCount;
+    private int depth;
+    private int maxDepth;
+
+    private ExpressionCompiler() {}
+
+    /**
+     * @throws CompilationLimitException if the expression does not fit into a class file
+     */
+    public static CompiledProgram compile(Expression expression) {
+        return new ExpressionCompiler().compileProgram(expression);
+    }
+
+    private CompiledProgram compileProgram(Expression root) {
+        this.measure(root);
+
+        Code constructor = new Code(1);
+        constructor.op(ALOAD_0, 1);
+        constructor.op(INVOKESPECIAL, this.writer.methodConstant("java/lang/Object", "<init>", "()V"), -1);
+        constructor.op(RETURN, 0);
+        this.writer.addMethod(ACC_PUBLIC, "<init>", "()V", constructor);
+
+        Code evaluate = new Code(2);
+        evaluate.op(ALOAD_1, 1);
+        switch (this.invokeMethod(evaluate, root)) {
+            case NUMBER -> evaluate.op(INVOKESTATIC,
+                    this.writer.methodConstant("java/lang/Double", "valueOf", "(D)Ljava/lang/Double;"), -1);
+            case BOOLEAN -> evaluate.op(INVOKESTATIC,
+                    this.writer.methodConstant("java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;"), 0);
+        }
+        // Code after a throw would need a stack map frame, so a failing expression ends there
+        if (evaluate.stack() > 0) evaluate.op(ARETURN, -1);
+        this.writer.addMethod(ACC_PUBLIC, "evaluate", METHOD_PARAMETERS + "Ljava/lang/Object;", evaluate);
+
+        return new CompiledProgram(this.define(this.writer.toByteArray()), this.tokens.toArray());
+    }
+
+    private CompiledExpression define(byte[] bytes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (CompiledExpression) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not define the compiled expression", throwable);
+        }
+    }
+
+    /**
+     * Compiles the expression into a static method of its own and emits its call into
+     * the given code, which has to hold the token array on top of its stack.
+     */
+    private Type invokeMethod(Code caller, Expression expression) {
+        Code saved = this.code;
+        this.code = new Code(1);
+        Type type = expression.accept(this);
+        switch (type) {
+            case NUMBER -> this.code.op(DRETURN, -2);
+            case BOOLEAN -> this.code.op(IRETURN, -1);
+            case STRING, NULL -> this.code.op(ARETURN, -1);
+        }
+
+        String name = "expression" + this.methodCount++;
+        String descriptor = METHOD_PARAMETERS + type.descriptor;
+        this.writer.addMethod(ACC_PRIVATE | ACC_STATIC, name, descriptor, this.code);
+        this.code = saved;
+
+        caller.op(INVOKESTATIC, this.writer.methodConstant(CLASS_NAME, name, descriptor), type.slots - 1);
+        if (type == Type.NEVER) {
+            caller.op(ACONST_NULL, 1);
+            caller.op(ATHROW, -1);
+        }
+        return type;
+    }
+
+    private Type compileOperand(Expression expression) {
+        if (this.sizes.get(expression) <= SPLIT_SIZE) return expression.accept(this);
+
+        this.code.op(ALOAD_0, 1);
+        return this.invokeMethod(this.code, expression);
+    }
+
+    @Override
+    public Type visitLiteral(LiteralExpression literal) {
+        if (literal.literal instanceof Number number) {
+            this.code.op(LDC2_W, this.writer.doubleConstant(number.doubleValue()), 2);
+            return Type.NUMBER;
+        }
+        if (literal.literal instanceof String string) {
+            this.code.op(LDC_W, this.writer.stringConstant(string), 1);
+            return Type.STRING;
+        }
+        if (literal.literal instanceof Boolean bool) {
+            this.code.op(bool ? ICONST_1 : ICONST_0, 1);
+            return Type.BOOLEAN;
+        }
+
+        this.code.op(ACONST_NULL, 1);
+        return Type.NULL;
+    }
+
+    @Override
+    public Type visitBinary(BinaryExpression binary) {
+        Type left = this.compileOperand(binary.left);
+        if (left == Type.NEVER) return Type.NEVER;
+        Type right = this.compileOperand(binary.right);
+        if (right == Type.NEVER) return Type.NEVER;
+
+        boolean numbers = left == Type.NUMBER && right == Type.NUMBER;
+        return switch (binary.operator.type()) {
+            case PLUS -> {
+                if (numbers) yield this.arithmetic(DADD);
+                if (left == Type.STRING && right == Type.STRING) {
+                    this.code.op(INVOKEVIRTUAL, this.writer.methodConstant(
+                            "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;"), -1);
+                    yield Type.STRING;
+                }
+                yield this.error("additionOperands", binary.operator);
+            }
+            case MINUS -> numbers ? this.arithmetic(DSUB) : this.error("numberOperands", binary.operator);
+            case STAR -> numbers ? this.arithmetic(DMUL) : this.error("numberOperands", binary.operator);
+            case SLASH -> numbers ? this.arithmetic(DDIV) : this.error("numberOperands", binary.operator);
+            case GREATER -> numbers ? this.comparison("greater") : this.error("numberOperands", binary.operator);
+            case GREATER_EQUAL -> numbers ? this.comparison("greaterEqual") : this.error("numberOperands", binary.operator);
+            case LESS -> numbers ? this.comparison("less") : this.error("numberOperands", binary.operator);
+            case LESS_EQUAL -> numbers ? this.comparison("lessEqual") : this.error("numberOperands", binary.operator);
+            case EQUAL_EQUAL -> this.equality(left, right);
+            case NOT_EQUAL -> {
+                this.equality(left, right);
+                this.code.op(ICONST_1, 1);
+                this.code.op(IXOR, -1);
+                yield Type.BOOLEAN;
+            }
+            default -> throw new IllegalStateException("Unexpected binary operator: " + binary.operator);
+        };
+    }
+
+    @Override
+    public Type visitUnary(UnaryExpression unary) {
+        Type operand = this.compileOperand(unary.expression);
+        if (operand == Type.NEVER) return Type.NEVER;
+
+        return switch (unary.operator.type()) {
+            case MINUS -> {
+                if (operand != Type.NUMBER) yield this.error("numberOperand", unary.operator);
+                this.code.op(DNEG, 0);
+                yield Type.NUMBER;
+            }
+            case NOT -> {
+                if (operand == Type.BOOLEAN) {
+                    this.code.op(ICONST_1, 1);
+                    this.code.op(IXOR, -1);
+                } else {
+                    this.pop(operand);
+                    this.code.op(operand == Type.NULL ? ICONST_1 : ICONST_0, 1);
+                }
+                yield Type.BOOLEAN;
+            }
+            default -> throw new IllegalStateException("Unexpected unary operator: " + unary.operator);
+        };
+    }
+
+    @Override
+    public Type visitGrouping(GroupingExpression grouping) {
+        return this.compileOperand(grouping.expression);
+    }
+
+    @Override
+    public Type visitError(ErrorExpression error) {
+        throw new IllegalStateException("An expression with syntax errors cannot be compiled");
+    }
+
+    private Type arithmetic(int opcode) {
+        this.code.op(opcode, -2);
+        return Type.NUMBER;
+    }
+
+    private Type comparison(String method) {
+        this.code.op(INVOKESTATIC, this.writer.methodConstant(SUPPORT, method, "(DD)Z"), -3);
+        return Type.BOOLEAN;
+    }
+
+    private Type equality(Type left, Type right) {
+        if (left != right) {
+            this.pop(right);
+            this.pop(left);
+            this.code.op(ICONST_0, 1);
+            return Type.BOOLEAN;
+        }
+
+        switch (left) {
+            case NUMBER -> this.code.op(INVOKESTATIC, this.writer.methodConstant(SUPPORT, "isEqual", "(DD)Z"), -3);
+            case BOOLEAN -> this.code.op(INVOKESTATIC, this.writer.methodConstant(SUPPORT, "isEqual", "(ZZ)Z"), -1);
+            case STRING -> this.code.op(INVOKESTATIC, this.writer.methodConstant(
+                    VALUES, "isEqual", "(Ljava/lang/Object;Ljava/lang/Object;)Z"), -1);
+            default -> {
+                this.pop(right);
+                this.pop(left);
+                this.code.op(ICONST_1, 1);
+            }
+        }
+        return Type.BOOLEAN;
+    }
+
+    /**
+     * Emits throwing the error the named {@link net.pygmales.interpreter.RuntimeError}
+     * factory creates for the operator.
+     */
+    private Type error(String factory, Token operator) {
+        int index = this.tokens.size();
+        if (index > Short.MAX_VALUE) throw new CompilationLimitException("too many operators");
+        this.tokens.add(operator);
+
+        this.code.op(ALOAD_0, 1);
+        this.code.op(SIPUSH, index, 1);
+        this.code.op(AALOAD, -1);
+        this.code.op(CHECKCAST, this.writer.classConstant(TOKEN), 0);
+        this.code.op(INVOKESTATIC, this.writer.methodConstant(RUNTIME_ERROR, factory, ERROR_FACTORY), 0);
+        this.code.op(ATHROW, -1);
+        return Type.NEVER;
+    }
+
+    private void pop(Type type) {
+        this.code.op(type.slots == 2 ? POP2 : POP, -type.slots);
+    }
+
+    /**
+     * Records the size of every subtree, walking the tree without recursion so that
+     * a tree too deep to be compiled is rejected before the compiler recurses into it.
+     */
+    private void measure(Expression root) {
+        ExpressionWalker.walk(root, new ExpressionWalker.Listener() {
+            @Override
+            public void enter(Expression expression) {
+                maxDepth = Math.max(maxDepth, ++depth);
+            }
+
+            @Override
+            public void leave(Expression expression) {
+                depth--;
+                int size = 1;
+                if (expression instanceof BinaryExpression binary) size += sizes.get(binary.left) + sizes.get(binary.right);
+                else if (expression instanceof UnaryExpression unary) size += sizes.get(unary.expression);
+                else if (expression instanceof GroupingExpression grouping) size += sizes.get(grouping.expression);
+                sizes.put(expression, size);
+            }
+        });
+        if (this.maxDepth > MAX_DEPTH) throw new CompilationLimitException("expression nested too deeply");
+    }
+}
@@ -0,0 +1,124 @@
+package net.pygmales.interpreter.vm;
+
+import net.pygmales.parser.ExpressionWalker;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionVisitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.pygmales.interpreter.vm.OpCode.*;
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Compiles an expression into a {@link Chunk} in postfix order. Number literals and
+ * strings are pooled once per chunk. The tree is walked without recursion, so any
+ * depth that could be parsed can be compiled.
+ */
+public class BytecodeCompiler implements ExpressionVisitor<Void> {
+    private int[] code = new int[64];
+    private int size;
+    private final List<Double> numbers = new ArrayList<>();
+    private final Map<Double, Integer> numberIndices = new HashMap<>();
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+    private int stack;
+    private int maxStack;
+
+    public static Chunk compile(Expression expression) {
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        ExpressionWalker.postorder(expression, compiler);
+        compiler.emit(RETURN, -1);
+        return compiler.toChunk();
+    }
+
+    @Override
+    public Void visitLiteral(LiteralExpression literal) {
+        if (literal.literal instanceof Number value) {
+            this.emit(NUMBER, this.numberIndices.computeIfAbsent(value.doubleValue(), number -> {
+                this.numbers.add(number);
+                return this.numbers.size() - 1;
+            }), 1);
+        } else if (literal.literal instanceof String value) {
+            this.emit(CONSTANT, this.stringIndices.computeIfAbsent(value, this::addConstant), 1);
+        } else if (literal.literal instanceof Boolean value) {
+            this.emit(value ? TRUE : FALSE, 1);
+        } else this.emit(NULL, 1);
+        return null;
+    }
+
+    @Override
+    public Void visitBinary(BinaryExpression binary) {
+        int opcode = switch (binary.operator.type()) {
+            case PLUS -> ADD;
+            case MINUS -> SUBTRACT;
+            case STAR -> MULTIPLY;
+            case SLASH -> DIVIDE;
+            case GREATER -> GREATER;
+            case GREATER_EQUAL -> GREATER_EQUAL;
+            case LESS -> LESS;
+            case LESS_EQUAL -> LESS_EQUAL;
+            case EQUAL_EQUAL -> EQUAL;
+            case NOT_EQUAL -> NOT_EQUAL;
+            default -> throw new IllegalStateException("Unexpected binary operator: " + binary.operator);
+        };
+        if (operandCount(opcode) == 0) this.emit(opcode, -1);
+        else this.emit(opcode, this.addConstant(binary.operator), -1);
+        return null;
+    }
+
+    @Override
+    public Void visitUnary(UnaryExpression unary) {
+        switch (unary.operator.type()) {
+            case MINUS -> this.emit(NEGATE, this.addConstant(unary.operator), 0);
+            case NOT -> this.emit(NOT, 0);
+            default -> throw new IllegalStateException("Unexpected unary operator: " + unary.operator);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitGrouping(GroupingExpression grouping) {
+        return null;
+    }
+
+    @Override
+    public Void visitError(ErrorExpression error) {
+        throw new IllegalStateException("An expression with syntax errors cannot be compiled");
+    }
+
+    private int addConstant(Object constant) {
+        this.constants.add(constant);
+        return this.constants.size() - 1;
+    }
+
+    private void emit(int opcode, int stackEffect) {
+        this.write(opcode);
+        this.adjust(stackEffect);
+    }
+
+    private void emit(int opcode, int operand, int stackEffect) {
+        this.write(opcode);
+        this.write(operand);
+        this.adjust(stackEffect);
+    }
+
+    private void write(int word) {
+        if (this.size == this.code.length) this.code = Arrays.copyOf(this.code, this.size + (this.size >> 1));
+        this.code[this.size++] = word;
+    }
+
+    private void adjust(int stackEffect) {
+        this.stack += stackEffect;
+        this.maxStack = Math.max(this.maxStack, this.stack);
+    }
+
+    private Chunk toChunk() {
+        double[] numbers = new double[this.numbers.size()];
+        for (int i = 0; i < numbers.length; i++) numbers[i] = this.numbers.get(i);
+        return new Chunk(Arrays.copyOf(this.code, this.size), numbers, this.constants.toArray(), this.maxStack);
+    }
+}
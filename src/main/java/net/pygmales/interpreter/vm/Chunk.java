@@ -0,0 +1,20 @@
+package net.pygmales.interpreter.vm;
+
+/**
+ * A compiled expression: the code array, the pool of number literals kept as raw
+ * doubles, and the pool of every other constant. The stack never grows beyond
+ * {@link #maxStack} slots.
+ */
+public final class Chunk {
+    public final int[] code;
+    public final double[] numbers;
+    public final Object[] constants;
+    public final int maxStack;
+
+    public Chunk(int[] code, double[] numbers, Object[] constants, int maxStack) {
+        this.code = code;
+        this.numbers = numbers;
+        this.constants = constants;
+        this.maxStack = maxStack;
+    }
+}
@@ -0,0 +1,35 @@
+package net.pygmales.interpreter.vm;
+
+import net.pygmales.interpreter.Values;
+import net.pygmales.lexer.Token;
+
+import java.util.StringJoiner;
+
+/**
+ * Prints a {@link Chunk} one instruction per line: the offset into the code array,
+ * the instruction and its resolved operand.
+ */
+public class Disassembler {
+    public String print(Chunk chunk) {
+        StringJoiner lines = new StringJoiner("\n");
+        for (int offset = 0; offset < chunk.code.length; offset += 1 + OpCode.operandCount(chunk.code[offset]))
+            lines.add(this.instruction(chunk, offset));
+        return lines.toString();
+    }
+
+    private String instruction(Chunk chunk, int offset) {
+        int opcode = chunk.code[offset];
+        String line = String.format("%04d %s", offset, OpCode.name(opcode));
+        if (OpCode.operandCount(opcode) == 0) return line;
+
+        int operand = chunk.code[offset + 1];
+        return String.format("%-20s %d (%s)", line, operand, this.operand(chunk, opcode, operand));
+    }
+
+    private String operand(Chunk chunk, int opcode, int operand) {
+        if (opcode == OpCode.NUMBER) return Values.stringify(chunk.numbers[operand]);
+        if (chunk.constants[operand] instanceof Token token)
+            return String.format("%s at %d:%d", token.literal(), token.line(), token.column());
+        return "\"" + chunk.constants[operand] + "\"";
+    }
+}
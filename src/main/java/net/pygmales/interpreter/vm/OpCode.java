@@ -0,0 +1,46 @@
+package net.pygmales.interpreter.vm;
+
+/**
+ * Instructions of the pathl bytecode. Every instruction is one word of the code array
+ * followed by its operand words: an index into the number pool for {@link #NUMBER},
+ * and an index into the constant pool for {@link #CONSTANT} and for every operation
+ * that can fail, where the constant is the operator token the error is reported on.
+ */
+public final class OpCode {
+    public static final int NUMBER = 0;
+    public static final int CONSTANT = 1;
+    public static final int TRUE = 2;
+    public static final int FALSE = 3;
+    public static final int NULL = 4;
+    public static final int NEGATE = 5;
+    public static final int NOT = 6;
+    public static final int ADD = 7;
+    public static final int SUBTRACT = 8;
+    public static final int MULTIPLY = 9;
+    public static final int DIVIDE = 10;
+    public static final int GREATER = 11;
+    public static final int GREATER_EQUAL = 12;
+    public static final int LESS = 13;
+    public static final int LESS_EQUAL = 14;
+    public static final int EQUAL = 15;
+    public static final int NOT_EQUAL = 16;
+    public static final int RETURN = 17;
+
+    private static final String[] NAMES = {
+            "NUMBER", "CONSTANT", "TRUE", "FALSE", "NULL", "NEGATE", "NOT", "ADD", "SUBTRACT", "MULTIPLY",
+            "DIVIDE", "GREATER", "GREATER_EQUAL", "LESS", "LESS_EQUAL", "EQUAL", "NOT_EQUAL", "RETURN"
+    };
+
+    private OpCode() {}
+
+    public static String name(int opcode) {
+        return NAMES[opcode];
+    }
+
+    public static int operandCount(int opcode) {
+        return switch (opcode) {
+            case TRUE, FALSE, NULL, NOT, EQUAL, NOT_EQUAL, RETURN -> 0;
+            default -> 1;
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package net.pygmales.interpreter.vm;
+
+import net.pygmales.interpreter.RuntimeError;
+import net.pygmales.interpreter.Values;
+import net.pygmales.lexer.Token;
+
+import java.util.Arrays;
+
+import static net.pygmales.interpreter.vm.OpCode.*;
+
+/**
+ * Stack machine running {@link Chunk}s. Like the
+ * {@link net.pygmales.interpreter.Evaluator}, it keeps numbers unboxed: the stack is
+ * a pair of parallel arrays, and a slot holding a number has the {@link #NUMERIC}
+ * marker in its object half and the value in its primitive half. The stack is kept
+ * between runs, so running arithmetic only allocates the boxed result.
+ */
+public class VirtualMachine {
+    private static final Object NUMERIC = new Object();
+
+    private double[] numbers = new double[16];
+    private Object[] values = new Object[16];
+
+    public Object run(Chunk chunk) {
+        if (this.values.length < chunk.maxStack) {
+            this.numbers = new double[chunk.maxStack];
+            this.values = new Object[chunk.maxStack];
+        }
+
+        int[] code = chunk.code;
+        double[] numbers = this.numbers;
+        Object[] values = this.values;
+        int pc = 0;
+        int sp = 0;
+
+        while (true) {
+            switch (code[pc++]) {
+                case NUMBER -> {
+                    numbers[sp] = chunk.numbers[code[pc++]];
+                    values[sp++] = NUMERIC;
+                }
+                case CONSTANT -> values[sp++] = chunk.constants[code[pc++]];
+                case TRUE -> values[sp++] = Boolean.TRUE;
+                case FALSE -> values[sp++] = Boolean.FALSE;
+                case NULL -> values[sp++] = null;
+                case NEGATE -> {
+                    if (values[sp - 1] != NUMERIC) throw RuntimeError.numberOperand(operator(chunk, code[pc]));
+                    numbers[sp - 1] = -numbers[sp - 1];
+                    pc++;
+                }
+                case NOT -> values[sp - 1] = values[sp - 1] != NUMERIC && !Values.isTruthy(values[sp - 1]);
+                case ADD -> {
+                    sp--;
+                    if (values[sp - 1] == NUMERIC && values[sp] == NUMERIC) numbers[sp - 1] += numbers[sp];
+                    else if (values[sp - 1] instanceof String a && values[sp] instanceof String b) values[sp - 1] = a + b;
+                    else throw RuntimeError.additionOperands(operator(chunk, code[pc]));
+                    pc++;
+                }
+                case SUBTRACT -> {
+                    checkNumbers(chunk, code[pc++], values, --sp);
+                    numbers[sp - 1] -= numbers[sp];
+                }
+                case MULTIPLY -> {
+                    checkNumbers(chunk, code[pc++], values, --sp);
+                    numbers[sp - 1] *= numbers[sp];
+                }
+                case DIVIDE -> {
+                    checkNumbers(chunk, code[pc++], values, --sp);
+                    numbers[sp - 1] /= numbers[sp];
+                }
+                case GREATER -> {
+                    checkNumbers(chunk, code[pc++], values, --sp);
+                    values[sp - 1] = numbers[sp - 1] > numbers[sp];
+                }
+                case GREATER_EQUAL -> {
+                    checkNumbers(chunk, code[pc++], values, --sp);
+                    values[sp - 1] = numbers[sp - 1] >= numbers[sp];
+                }
+                case LESS -> {
+                    checkNumbers(chunk, code[pc++], values, --sp);
+                    values[sp - 1] = numbers[sp - 1] < numbers[sp];
+                }
+                case LESS_EQUAL -> {
+                    checkNumbers(chunk, code[pc++], values, --sp);
+                    values[sp - 1] = numbers[sp - 1] <= numbers[sp];
+                }
+                case EQUAL -> {
+                    sp--;
+                    values[sp - 1] = isEqual(numbers, values, sp - 1, sp);
+                }
+                case NOT_EQUAL -> {
+                    sp--;
+                    values[sp - 1] = !isEqual(numbers, values, sp - 1, sp);
+                }
+                case RETURN -> {
+                    Object value = values[--sp];
+                    Arrays.fill(values, 0, chunk.maxStack, null);
+                    return value == NUMERIC ? (Object) numbers[sp] : value;
+                }
+                default -> throw new IllegalStateException("Unknown opcode: " + code[pc - 1]);
+            }
+        }
+    }
+
+    private static Token operator(Chunk chunk, int constant) {
+        return (Token) chunk.constants[constant];
+    }
+
+    private static void checkNumbers(Chunk chunk, int constant, Object[] values, int right) {
+        if (values[right - 1] != NUMERIC || values[right] != NUMERIC)
+            throw RuntimeError.numberOperands(operator(chunk, constant));
+    }
+
+    private static boolean isEqual(double[] numbers, Object[] values, int left, int right) {
+        if (values[left] == NUMERIC || values[right] == NUMERIC)
+            return values[left] == values[right] && numbers[left] == numbers[right];
+        return Values.isEqual(values[left], values[right]);
+    }
+}
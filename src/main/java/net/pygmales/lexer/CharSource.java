@@ -0,0 +1,83 @@
+package net.pygmales.lexer;
+
+/**
+ * Character input of the {@link Lexer}, addressed by absolute position. Reading at
+ * or past the end yields {@code '\0'}, the lexer's end-of-input sentinel.
+ */
+abstract class CharSource {
+    abstract char charAt(int index);
+
+    abstract boolean isEnd(int index);
+
+    abstract String slice(int start, int end);
+
+    /**
+     * Compares {@code length} chars starting at {@code start} with the region of
+     * {@code word} starting at {@code offset}, without copying either of them.
+     */
+    abstract boolean regionMatches(int start, String word, int offset, int length);
+
+    /**
+     * Scans over whitespace, given that the char at the index is whitespace. Returns a
+     * position after the index with only whitespace in between; the lexer checks the
+     * char there and scans again if needed. Sources that can look ahead cheaply return
+     * the end of the run, the others step over one char. The other scans work alike.
+     */
+    int whitespaceEnd(int index) {
+        return index + 1;
+    }
+
+    /**
+     * Scans over a line comment, which ends at a line break or a '\0'.
+     */
+    int lineCommentEnd(int index) {
+        return index + 1;
+    }
+
+    /**
+     * Scans over a block comment up to the next '*' or '\0'.
+     */
+    int blockCommentEnd(int index) {
+        return index + 1;
+    }
+
+    /**
+     * Scans over a string, which ends at a quote, a line break or a '\0'.
+     */
+    int stringEnd(int index) {
+        return index + 1;
+    }
+
+    int countNewlines(int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++)
+            if (this.charAt(i) == '\n') count++;
+        return count;
+    }
+
+    /**
+     * Returns the position of the last line break before the end, or -1 if there is
+     * none from the start on.
+     */
+    int lastNewline(int start, int end) {
+        for (int i = end - 1; i >= start; i--)
+            if (this.charAt(i) == '\n') return i;
+        return -1;
+    }
+
+    /**
+     * Returns the {@link String#hashCode()} of the slice from {@code start} to
+     * {@code end}, without slicing it.
+     */
+    int hash(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) hash = 31 * hash + this.charAt(i);
+        return hash;
+    }
+
+    /**
+     * Tells the source that no position before {@code index} will be read or sliced
+     * again, so a windowed source may drop those characters.
+     */
+    void release(int index) {}
+}
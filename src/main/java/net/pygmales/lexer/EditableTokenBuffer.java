@@ -0,0 +1,500 @@
+package net.pygmales.lexer;
+
+import net.pygmales.util.ErrorLogger;
+
+import java.util.Objects;
+
+import static net.pygmales.lexer.TokenCategory.ERROR;
+import static net.pygmales.lexer.TokenType.*;
+
+/**
+ * Token stream of a source that is edited in place. An edit is lexed again from the
+ * last token before it until the new tokens line up with the old ones; the tokens after
+ * that are kept.
+ * <p>
+ * The characters and the tokens are both kept in arrays with a gap at the last edit.
+ * The tokens after the gap store their offset relative to the end of the source and
+ * their line relative to the last line, so an edit does not touch them; only the tokens
+ * on the line where the new tokens line up have their columns shifted. An edit costs
+ * the tokens lexed again plus the distance the gaps move since the previous edit, not
+ * the size of the source, which is only made into a string when it is asked for.
+ */
+public final class EditableTokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final boolean hasErrorTokens;
+    private char[] text;
+    private int textGapStart;
+    private int textGapEnd;
+    // Length of the source the token offsets are relative to, and the source once made
+    private int length;
+    private String source;
+    // Line of the EOF token, which the lines after the gap are relative to
+    private int lastLine;
+
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] columns;
+    // All numbers are doubles here, also the ones the buffer was made from as longs
+    private double[] numbers;
+    private int gapStart;
+    private int gapEnd;
+
+    /**
+     * Where an edit changed the tokens. The tokens from {@code first} to {@code oldEnd}
+     * were replaced by the ones from {@code first} to {@code newEnd}, and the tokens after
+     * them are the same as before, of which the ones up to {@code movedEnd} changed their
+     * line or column. {@code line} and {@code column} are the old position of the first
+     * token after the replaced ones.
+     */
+    public record Damage(int first, int oldEnd, int newEnd, int movedEnd, int lineDelta, int columnDelta,
+                         int line, int column) {
+        /**
+         * Returns a token from before the edit at its position after the edit. The token
+         * must not be one of the replaced ones.
+         */
+        public Token moved(Token token) {
+            if (token.line() < this.line || token.line() == this.line && token.column() < this.column) return token;
+            if (this.lineDelta == 0 && (this.columnDelta == 0 || token.line() != this.line)) return token;
+
+            int column = token.line() == this.line ? token.column() + this.columnDelta : token.column();
+            return new Token(token.type(), token.literal(), token.line() + this.lineDelta, column, token.symbol());
+        }
+    }
+
+    public EditableTokenBuffer(TokenBuffer tokens) {
+        int size = tokens.size();
+        this.allocate(size + (size >> 3) + 16);
+
+        boolean hasErrorTokens = false;
+        for (int i = 0; i < size; i++) {
+            this.types[i] = (byte) tokens.type(i).ordinal();
+            this.starts[i] = tokens.start(i);
+            this.lengths[i] = tokens.length(i);
+            this.lines[i] = tokens.line(i);
+            this.columns[i] = tokens.column(i);
+            this.numbers[i] = tokens.number(i);
+            hasErrorTokens |= tokens.type(i).is(ERROR);
+        }
+        this.hasErrorTokens = hasErrorTokens;
+        this.lastLine = tokens.line(size - 1);
+        this.gapStart = size;
+        this.gapEnd = this.types.length;
+
+        this.source = tokens.source();
+        this.length = this.source.length();
+        this.text = new char[this.length + (this.length >> 3) + 16];
+        this.source.getChars(0, this.length, this.text, 0);
+        this.textGapStart = this.length;
+        this.textGapEnd = this.text.length;
+    }
+
+    public int size() {
+        return this.types.length - this.gapEnd + this.gapStart;
+    }
+
+    public String source() {
+        if (this.source == null) this.source = this.slice(0, this.length);
+        return this.source;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[this.types[this.physical(index)]];
+    }
+
+    public int start(int index) {
+        int start = this.starts[this.physical(index)];
+        return index < this.gapStart ? start : start + this.length;
+    }
+
+    public int length(int index) {
+        return this.lengths[this.physical(index)];
+    }
+
+    public int line(int index) {
+        int line = this.lines[this.physical(index)];
+        return index < this.gapStart ? line : line + this.lastLine;
+    }
+
+    public int column(int index) {
+        return this.columns[this.physical(index)];
+    }
+
+    public double number(int index) {
+        return this.numbers[this.physical(index)];
+    }
+
+    public Object literal(int index) {
+        TokenType type = this.type(index);
+        int start = this.start(index);
+        String lexeme = Token.hasLexemeLiteral(type) ? this.slice(start, start + this.length(index)) : null;
+        return Token.literal(type, this.number(index), lexeme);
+    }
+
+    public Token token(int index) {
+        return new Token(this.type(index), this.literal(index), this.line(index), this.column(index));
+    }
+
+    /**
+     * Returns the index of the token at the position, or -1 if no token starts there.
+     */
+    public int indexOf(int line, int column) {
+        int low = 0;
+        int high = this.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleLine = this.line(middle);
+            int compare = middleLine != line ? Integer.compare(middleLine, line)
+                    : Integer.compare(this.column(middle), column);
+            if (compare < 0) low = middle + 1;
+            else if (compare > 0) high = middle - 1;
+            else return middle;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a cursor over the tokens from {@code from} to {@code to}, on which the token
+     * at {@code to} reads as the end of the stream.
+     */
+    public TokenCursor cursor(int from, int to) {
+        Objects.checkFromToIndex(from, to, this.size() - 1);
+        return new RangeCursor(from, to);
+    }
+
+    public TokenBuffer toTokenBuffer() {
+        int size = this.size();
+        TokenBuffer tokens = new TokenBuffer(this.source(), size);
+        for (int i = 0; i < size; i++) {
+            if (this.type(i) == NUMBER)
+                tokens.addNumber(this.number(i), this.start(i), this.length(i), this.line(i), this.column(i));
+            else tokens.add(this.type(i), this.start(i), this.length(i), this.line(i), this.column(i));
+        }
+        return tokens;
+    }
+
+    /**
+     * Applies the edit to the source and lexes the damaged tokens again. Returns
+     * {@code null} and leaves the buffer as it was if the tokens before or after the
+     * edit contain a faulty token; the whole source has to be lexed again then, so
+     * that its errors are reported.
+     */
+    public Damage edit(TextEdit edit) {
+        Objects.checkFromIndexSize(edit.offset(), edit.removed(), this.length);
+        if (this.hasErrorTokens) return null;
+
+        String source = this.source;
+        String removed = this.slice(edit.offset(), edit.offset() + edit.removed());
+        this.replaceText(edit.offset(), edit.removed(), edit.inserted());
+        Damage damage = this.relex(edit);
+        if (damage == null) {
+            this.replaceText(edit.offset(), edit.inserted().length(), removed);
+            this.source = source;
+        }
+        return damage;
+    }
+
+    private Damage relex(TextEdit edit) {
+        // Scanning a token looks at most two characters past its end, so the tokens before
+        // one that starts two characters ahead of the edit cannot change
+        int first = this.lastTokenAt(edit.offset() - 2);
+        ErrorLogger logger = new ErrorLogger("edit", diagnostics -> {});
+        Lexer lexer = first < 0 ? new Lexer(logger, new TextSource(), 0, 1, 1)
+                : new Lexer(logger, new TextSource(), this.offset(first), this.line(first), this.column(first));
+        // Only positions are read back, so the lexemes are not interned
+        lexer.setSymbols(null);
+        first = Math.max(first, 0);
+
+        // Scan until a new token starts in the unchanged text where an old token started.
+        // The window only holds positions, its lexemes are read from the text
+        int size = this.size();
+        int tail = edit.offset() + edit.inserted().length();
+        TokenBuffer window = new TokenBuffer(null, 16);
+        int old = first;
+        while (true) {
+            if (!lexer.scanInto(window)) lexer.addEof(window);
+            int last = window.size() - 1;
+            TokenType type = window.type(last);
+            if (type.is(ERROR)) return null;
+
+            int offset = offset(type, window.start(last));
+            if (offset >= tail) {
+                int oldOffset = offset - edit.delta();
+                while (old < size && this.offset(old) < oldOffset) old++;
+                if (old < size && this.offset(old) == oldOffset) return this.replace(first, old, window, edit);
+            }
+            if (type == EOF) throw new IllegalStateException("The tokens after the edit never lined up");
+        }
+    }
+
+    private Damage replace(int first, int oldEnd, TokenBuffer window, TextEdit edit) {
+        int sync = window.size() - 1;
+        int lineDelta = window.line(sync) - this.line(oldEnd);
+        int columnDelta = window.column(sync) - this.column(oldEnd);
+        int line = this.line(oldEnd);
+        int column = this.column(oldEnd);
+
+        // Tokens from the start of the window that came out the same are not replaced
+        int from = 0;
+        while (from < sync && first < oldEnd && end(window.type(from), window.start(from), window.length(from)) <= edit.offset()
+                && this.isSame(first, window, from)) {
+            from++;
+            first++;
+        }
+
+        int moved = 0;
+        if (lineDelta != 0) moved = this.size() - oldEnd;
+        else if (columnDelta != 0) while (oldEnd + moved < this.size() && this.line(oldEnd + moved) == line) moved++;
+
+        this.moveGap(oldEnd);
+        this.gapStart = first;
+        int count = sync - from;
+        if (this.gapEnd - this.gapStart < count) this.grow(count);
+        for (int i = from; i < sync; i++) {
+            this.types[this.gapStart] = (byte) window.type(i).ordinal();
+            this.starts[this.gapStart] = window.start(i);
+            this.lengths[this.gapStart] = window.length(i);
+            this.lines[this.gapStart] = window.line(i);
+            this.columns[this.gapStart] = window.column(i);
+            this.numbers[this.gapStart] = window.number(i);
+            this.gapStart++;
+        }
+
+        // The tokens after the gap follow the end of the source and the last line by themselves
+        this.length += edit.delta();
+        this.lastLine += lineDelta;
+        if (columnDelta != 0)
+            for (int i = this.gapEnd; i < this.types.length && this.lines[i] + this.lastLine == line + lineDelta; i++)
+                this.columns[i] += columnDelta;
+
+        int newEnd = first + count;
+        return new Damage(first, oldEnd, newEnd, newEnd + moved, lineDelta, columnDelta, line, column);
+    }
+
+    private boolean isSame(int index, TokenBuffer window, int windowIndex) {
+        return this.type(index) == window.type(windowIndex) && this.start(index) == window.start(windowIndex)
+                && this.length(index) == window.length(windowIndex) && this.line(index) == window.line(windowIndex)
+                && this.column(index) == window.column(windowIndex);
+    }
+
+    /**
+     * Returns the last token before the EOF token that starts at or before the offset,
+     * or -1 if there is none.
+     */
+    private int lastTokenAt(int offset) {
+        int low = 0;
+        int high = this.size() - 2;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (this.offset(middle) <= offset) low = middle + 1;
+            else high = middle - 1;
+        }
+        return high;
+    }
+
+    private int offset(int index) {
+        return offset(this.type(index), this.start(index));
+    }
+
+    // A string starts at its opening quote, its token at the first character after it
+    private static int offset(TokenType type, int start) {
+        return type == STRING ? start - 1 : start;
+    }
+
+    private static int end(TokenType type, int start, int length) {
+        return type == STRING ? start + length + 1 : start + length;
+    }
+
+    private int physical(int index) {
+        Objects.checkIndex(index, this.size());
+        return index < this.gapStart ? index : index + this.gapEnd - this.gapStart;
+    }
+
+    /**
+     * Moves the gap in front of the token at the index, making the tokens it passes
+     * relative to the end or absolute again.
+     */
+    private void moveGap(int index) {
+        int length = this.length;
+        if (index < this.gapStart) {
+            int count = this.gapStart - index;
+            for (int i = index; i < this.gapStart; i++) {
+                this.starts[i] -= length;
+                this.lines[i] -= this.lastLine;
+            }
+            this.move(index, this.gapEnd - count, count);
+            this.gapStart = index;
+            this.gapEnd -= count;
+        } else if (index > this.gapStart) {
+            int count = index - this.gapStart;
+            for (int i = this.gapEnd; i < this.gapEnd + count; i++) {
+                this.starts[i] += length;
+                this.lines[i] += this.lastLine;
+            }
+            this.move(this.gapEnd, this.gapStart, count);
+            this.gapStart = index;
+            this.gapEnd += count;
+        }
+    }
+
+    private void move(int from, int to, int count) {
+        System.arraycopy(this.types, from, this.types, to, count);
+        System.arraycopy(this.starts, from, this.starts, to, count);
+        System.arraycopy(this.lengths, from, this.lengths, to, count);
+        System.arraycopy(this.lines, from, this.lines, to, count);
+        System.arraycopy(this.columns, from, this.columns, to, count);
+        System.arraycopy(this.numbers, from, this.numbers, to, count);
+    }
+
+    /**
+     * Grows the arrays so that the gap holds at least the given number of tokens.
+     */
+    private void grow(int needed) {
+        byte[] types = this.types;
+        int[] starts = this.starts;
+        int[] lengths = this.lengths;
+        int[] lines = this.lines;
+        int[] columns = this.columns;
+        double[] numbers = this.numbers;
+        int tail = types.length - this.gapEnd;
+        this.allocate(Math.max(types.length + (types.length >> 1), this.size() + needed + 16));
+
+        int gapEnd = this.types.length - tail;
+        copy(types, starts, lengths, lines, columns, numbers, 0, 0, this.gapStart);
+        copy(types, starts, lengths, lines, columns, numbers, this.gapEnd, gapEnd, tail);
+        this.gapEnd = gapEnd;
+    }
+
+    private void copy(byte[] types, int[] starts, int[] lengths, int[] lines, int[] columns, double[] numbers,
+                      int from, int to, int count) {
+        System.arraycopy(types, from, this.types, to, count);
+        System.arraycopy(starts, from, this.starts, to, count);
+        System.arraycopy(lengths, from, this.lengths, to, count);
+        System.arraycopy(lines, from, this.lines, to, count);
+        System.arraycopy(columns, from, this.columns, to, count);
+        System.arraycopy(numbers, from, this.numbers, to, count);
+    }
+
+    private String slice(int start, int end) {
+        if (end <= this.textGapStart) return new String(this.text, start, end - start);
+
+        int gap = this.textGapEnd - this.textGapStart;
+        if (start >= this.textGapStart) return new String(this.text, start + gap, end - start);
+        return new StringBuilder(end - start).append(this.text, start, this.textGapStart - start)
+                .append(this.text, this.textGapEnd, end - this.textGapStart).toString();
+    }
+
+    private void replaceText(int offset, int removed, String inserted) {
+        if (offset < this.textGapStart) {
+            int count = this.textGapStart - offset;
+            System.arraycopy(this.text, offset, this.text, this.textGapEnd - count, count);
+            this.textGapEnd -= count;
+        } else if (offset > this.textGapStart) {
+            int count = offset - this.textGapStart;
+            System.arraycopy(this.text, this.textGapEnd, this.text, this.textGapStart, count);
+            this.textGapEnd += count;
+        }
+        this.textGapStart = offset;
+        this.textGapEnd += removed;
+
+        if (this.textGapEnd - this.textGapStart < inserted.length()) {
+            char[] text = this.text;
+            int tail = text.length - this.textGapEnd;
+            int length = this.textGapStart + tail;
+            this.text = new char[Math.max(text.length + (text.length >> 1), length + inserted.length() + 16)];
+            System.arraycopy(text, 0, this.text, 0, this.textGapStart);
+            System.arraycopy(text, this.textGapEnd, this.text, this.text.length - tail, tail);
+            this.textGapEnd = this.text.length - tail;
+        }
+        inserted.getChars(0, inserted.length(), this.text, this.textGapStart);
+        this.textGapStart += inserted.length();
+        this.source = null;
+    }
+
+    private void allocate(int capacity) {
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.numbers = new double[capacity];
+    }
+
+    /**
+     * The edited text as the input of the lexer.
+     */
+    private class TextSource extends CharSource {
+        @Override
+        char charAt(int index) {
+            EditableTokenBuffer buffer = EditableTokenBuffer.this;
+            if (index < buffer.textGapStart) return buffer.text[index];
+            index += buffer.textGapEnd - buffer.textGapStart;
+            return index < buffer.text.length ? buffer.text[index] : '\0';
+        }
+
+        @Override
+        boolean isEnd(int index) {
+            EditableTokenBuffer buffer = EditableTokenBuffer.this;
+            return index >= buffer.text.length - buffer.textGapEnd + buffer.textGapStart;
+        }
+
+        @Override
+        String slice(int start, int end) {
+            return EditableTokenBuffer.this.slice(start, end);
+        }
+
+        @Override
+        boolean regionMatches(int start, String word, int offset, int length) {
+            for (int i = 0; i < length; i++) if (this.charAt(start + i) != word.charAt(offset + i)) return false;
+            return true;
+        }
+    }
+
+    private class RangeCursor implements TokenCursor {
+        private final int end;
+        private int position;
+
+        private RangeCursor(int from, int end) {
+            this.position = from;
+            this.end = end;
+        }
+
+        @Override
+        public TokenType type() {
+            return this.position == this.end ? EOF : EditableTokenBuffer.this.type(this.position);
+        }
+
+        @Override
+        public Object literal() {
+            return this.position == this.end ? null : EditableTokenBuffer.this.literal(this.position);
+        }
+
+        @Override
+        public double number() {
+            return this.position == this.end ? 0 : EditableTokenBuffer.this.number(this.position);
+        }
+
+        @Override
+        public boolean isLong() {
+            return false;
+        }
+
+        @Override
+        public long longValue() {
+            return (long) this.number();
+        }
+
+        @Override
+        public Token token() {
+            if (this.position < this.end) return EditableTokenBuffer.this.token(this.position);
+            return new Token(EOF, null, EditableTokenBuffer.this.line(this.end), EditableTokenBuffer.this.column(this.end));
+        }
+
+        @Override
+        public void advance() {
+            if (this.position < this.end) this.position++;
+        }
+    }
+}
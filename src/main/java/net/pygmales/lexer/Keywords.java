@@ -0,0 +1,39 @@
+package net.pygmales.lexer;
+
+import static net.pygmales.lexer.TokenType.*;
+
+/**
+ * Keyword recognition straight on the source text. The first character selects the
+ * only candidate keyword (or the two candidates for `f` and `t`), which is then
+ * compared in place, so identifiers are never copied just to be looked up.
+ */
+final class Keywords {
+    private Keywords() {}
+
+    static TokenType lookup(CharSource source, int start, int length) {
+        return switch (source.charAt(start)) {
+            case 'a' -> match(source, start, length, AND);
+            case 'c' -> match(source, start, length, CLASS);
+            case 'd' -> match(source, start, length, DEF);
+            case 'e' -> match(source, start, length, ELSE);
+            case 'f' -> length == 3 ? match(source, start, length, FOR) : match(source, start, length, FALSE);
+            case 'i' -> match(source, start, length, IF);
+            case 'l' -> match(source, start, length, LET);
+            case 'n' -> match(source, start, length, NULL);
+            case 'o' -> match(source, start, length, OR);
+            case 'p' -> match(source, start, length, PRINT);
+            case 'r' -> match(source, start, length, RETURN);
+            case 's' -> match(source, start, length, SUPER);
+            case 't' -> length == 4 && source.charAt(start + 1) == 'h' ?
+                    match(source, start, length, THIS) : match(source, start, length, TRUE);
+            case 'w' -> match(source, start, length, WHILE);
+            default -> IDENTIFIER;
+        };
+    }
+
+    private static TokenType match(CharSource source, int start, int length, TokenType keyword) {
+        String word = keyword.toString();
+        if (length == word.length() && source.regionMatches(start + 1, word, 1, length - 1)) return keyword;
+        return IDENTIFIER;
+    }
+}
@@ -2,163 +2,366 @@ package net.pygmales.lexer;
 
 import net.pygmales.util.ErrorLogger;
 
-import java.util.ArrayList;
+import java.io.Reader;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Supplier;
 
 import static net.pygmales.lexer.TokenType.*;
 import static net.pygmales.util.Character.*;
 
 public class Lexer {
-    private final List<Token> tokens = new ArrayList<>();
-    private final Map<String, TokenType> tokenMap = TokenType.getTokenTypeMap();
+    static final TokenType[] SINGLE_SYMBOLS = new TokenType[128];
+    static final TokenType[] EQUAL_SYMBOLS = new TokenType[128];
+
+    static {
+        for (TokenType type : TokenType.values()) {
+            if (!type.is(TokenCategory.SYMBOL)) continue;
+            String symbol = type.toString();
+            if (symbol.length() == 1) SINGLE_SYMBOLS[symbol.charAt(0)] = type;
+            else if (symbol.length() == 2 && symbol.charAt(1) == '=') EQUAL_SYMBOLS[symbol.charAt(0)] = type;
+        }
+    }
+
     private final ErrorLogger logger;
-    private final String source;
+    private final CharSource source;
+    private final String text;
+    private SymbolTable symbols = new SymbolTable();
+    private NumberRepresentation numberRepresentation = NumberRepresentation.DOUBLE;
+    private final NumberAccumulator numberValue = new NumberAccumulator();
 
     private char currentChar;
     private int tokenStart;
     private int pos;
     private int column = 1;
     private int line = 1;
+    private boolean closed;
+
+    // The last scanned token, read back by scanBuffer() and nextToken()
+    private TokenType scannedType;
+    private int scannedOffset;
+    private int scannedLength;
+    private int scannedLine;
+    private double scannedNumber;
+    // Set instead of the number for integers if they are represented as longs
+    private boolean scannedIsLong;
+    private long scannedLong;
+    private int scannedSymbol;
 
     public Lexer(String source) {
         this(new ErrorLogger("interactive"), source);
     }
 
     public Lexer(ErrorLogger logger, String source) {
+        this(logger, new StringSource(source), source);
+        logger.setSource(source);
+    }
+
+    /**
+     * Creates a lexer that pulls its input from the reader in fixed-size windows.
+     * Such a lexer can only be consumed with {@link #nextToken()} or {@link #cursor()};
+     * the reader stays owned by the caller.
+     */
+    public Lexer(ErrorLogger logger, Reader reader) {
+        this(logger, new ReaderSource(reader, ReaderSource.DEFAULT_WINDOW), null);
+    }
+
+    /**
+     * Creates a lexer that starts in the middle of the text, at the start of a token
+     * whose position is known. The logger is not given the text.
+     */
+    Lexer(ErrorLogger logger, CharSource source, int offset, int line, int column) {
+        this(logger, source, null);
+        this.pos = offset;
+        this.line = line;
+        this.column = column;
+        this.currentChar = this.source.charAt(offset);
+    }
+
+    private Lexer(ErrorLogger logger, CharSource source, String text) {
         this.source = source;
+        this.text = text;
         this.logger = logger;
-        logger.setSource(source);
-        if (!source.isEmpty()) this.currentChar = source.charAt(0);
+        this.currentChar = source.charAt(0);
+    }
+
+    /**
+     * Sets the table the names of identifiers and the contents of strings are interned
+     * in, e.g. one that is shared with earlier compilations. A lexer without a table
+     * slices every lexeme.
+     */
+    public void setSymbols(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    public SymbolTable getSymbols() {
+        return this.symbols;
+    }
+
+    public void setNumberRepresentation(NumberRepresentation numberRepresentation) {
+        this.numberRepresentation = numberRepresentation;
     }
 
     public List<Token> scanTokens() {
-        while (this.pos < this.source.length()) {
-            this.scanNextToken();
-            this.isFaultyToken();
-        }
-        this.addToken(EOF, "eof");
+        return this.scanBuffer().toList();
+    }
+
+    public TokenBuffer scanBuffer() {
+        if (this.text == null) throw new IllegalStateException("A streaming lexer can only be read token by token");
+
+        TokenBuffer tokens = new TokenBuffer(this.text, this.text.length() / 8, this.symbols);
+        while (this.scanInto(tokens));
+        this.addEof(tokens);
+        this.close();
+        return tokens;
+    }
+
+    /**
+     * Scans the next token into the buffer. Returns false, without adding anything, once
+     * the input is exhausted.
+     */
+    boolean scanInto(TokenBuffer tokens) {
+        if (!this.scanToken()) return false;
+
+        if (this.scannedIsLong)
+            tokens.addLong(this.scannedLong, this.scannedOffset, this.scannedLength, this.scannedLine, this.tokenStart);
+        else if (this.scannedType == NUMBER)
+            tokens.addNumber(this.scannedNumber, this.scannedOffset, this.scannedLength, this.scannedLine, this.tokenStart);
+        else if (this.scannedSymbol != SymbolTable.NONE)
+            tokens.addSymbol(this.scannedType, this.scannedSymbol, this.scannedOffset, this.scannedLength,
+                    this.scannedLine, this.tokenStart);
+        else tokens.add(this.scannedType, this.scannedOffset, this.scannedLength, this.scannedLine, this.tokenStart);
+        return true;
+    }
+
+    void addEof(TokenBuffer tokens) {
+        tokens.add(EOF, this.pos, 0, this.line, this.column);
+    }
+
+    /**
+     * Scans and returns the next token, or an EOF token once the input is exhausted.
+     */
+    public Token nextToken() {
+        if (this.scanToken()) return this.scannedToken();
+
+        this.close();
+        return new Token(EOF, null, this.line, this.column);
+    }
+
+    public TokenCursor cursor() {
+        return new Cursor();
+    }
+
+    private boolean scanToken() {
+        this.scannedType = null;
+        while (this.scannedType == null && !this.source.isEnd(this.pos)) this.scanNextToken();
+        if (this.scannedType == null) return false;
+
+        this.reportFaultyToken(this.scannedType);
+        return true;
+    }
+
+    private Token scannedToken() {
+        String lexeme = null;
+        if (this.scannedSymbol != SymbolTable.NONE) lexeme = this.symbols.name(this.scannedSymbol);
+        else if (Token.hasLexemeLiteral(this.scannedType))
+            lexeme = this.source.slice(this.scannedOffset, this.scannedOffset + this.scannedLength);
+        Object literal = this.scannedIsLong ? (Object) this.scannedLong
+                : Token.literal(this.scannedType, this.scannedNumber, lexeme);
+        return new Token(this.scannedType, literal, this.scannedLine, this.tokenStart, this.scannedSymbol);
+    }
+
+    private void close() {
+        if (this.closed) return;
+        this.closed = true;
         this.logger.close();
-        return this.tokens;
     }
 
-    private void isFaultyToken() {
-        if (this.tokens.isEmpty()) return;
+    private void reportFaultyToken(TokenType type) {
+        if (type.is(TokenCategory.ERROR)) reportFaultyToken(this.logger, this.scannedToken());
+    }
 
-        Token token = this.tokens.getLast();
+    static void reportFaultyToken(ErrorLogger logger, Token token) {
         switch (token.type()) {
-            case UNKNOWN -> this.logger.unexpectedToken(token);
-            case UMC_ERROR -> this.logger.unclosedComment(token);
-            case US_ERROR -> this.logger.unclosedString(token);
+            case UNKNOWN -> logger.unexpectedToken(token);
+            case UMC_ERROR -> logger.unclosedComment(token);
+            case US_ERROR -> logger.unclosedString(token);
         }
     }
-    
+
     private void scanNextToken() {
         this.skipWhitespaces();
+        if (this.source.isEnd(this.pos)) return;
 
-        if      (isLetter(this.getChar())) this.addKeywordToken();
-        else if (isDigit(this.getChar()))  this.addNumericalToken();
-        else if (isQuotes(this.getChar())) this.addStringToken();
-        else if (isSlash(this.getChar()))  this.addSlashTokenOrSkipComment();
-        else                               this.addSymbolicToken();
+        char c = this.getChar();
+        switch (c) {
+            case '"' -> this.addStringToken();
+            case '/' -> this.addSlashTokenOrSkipComment();
+            default -> {
+                if      (isLetter(c))     this.addKeywordToken();
+                else if (isAsciiDigit(c)) this.addNumericalToken();
+                else                      this.addSymbolicToken(c);
+            }
+        }
     }
 
     private void addSlashTokenOrSkipComment() {
         this.startToken();
         this.proceed();
-        if (isSlash(this.getChar())) this.getLexeme(() -> !isEof(this.getChar()) && !isNewLine(this.getChar()));
-        else if (isStar(this.getChar())) {
+        if (isSlash(this.getChar())) {
+            while (!isEof(this.getChar()) && !isNewLine(this.getChar())) {
+                this.proceedInLine(this.source.lineCommentEnd(this.pos));
+                this.source.release(this.pos);
+            }
+        } else if (isStar(this.getChar())) {
             this.proceed();
             int commentStartLine = this.line;
-            for (; !isMultilineCommentEnd(this.getChar(), this.peek()); this.proceed()) {
+            while (!isMultilineCommentEnd(this.getChar(), this.peek())) {
                 if (isEof(this.getChar())) {
-                    this.addToken(new Token(UMC_ERROR, null, commentStartLine, this.tokenStart));
+                    this.addToken(UMC_ERROR, this.pos, 0, commentStartLine);
                     return;
                 }
+                if (isStar(this.getChar())) this.skip();
+                else this.skipTo(this.source.blockCommentEnd(this.pos));
             }
-            this.getLexeme(() -> !isEof(this.getChar()) && !isNewLine(this.getChar()));
-        } else this.addToken(SLASH, "/");
+            this.proceed();
+            this.proceed();
+        } else this.addToken(SLASH, this.pos - 1);
     }
 
     private void addStringToken() {
         this.startToken();
         this.proceed();
         int stringStartLine = this.line;
-        for (; !isQuotes(this.getChar()); proceed()) {
+        int start = this.pos;
+        while (!isQuotes(this.getChar())) {
             if (isEof(this.getChar()) || isNewLine(this.getChar())) {
-                this.addToken(new Token(US_ERROR,null, stringStartLine, this.tokenStart));
+                this.addToken(US_ERROR, start, 0, stringStartLine);
                 return;
             }
+            this.proceedInLine(this.source.stringEnd(this.pos));
         }
 
-        this.addToken(STRING, this.source.substring(this.tokenStart, this.pos));
+        this.addToken(STRING, start);
+        this.internSymbol(this.source.hash(start, this.pos));
         this.proceed();
     }
 
-    private void addSymbolicToken() {
-        if (isEof(this.getChar())) return;
-
+    private void addSymbolicToken(char symbol) {
         this.startToken();
-        char letter = this.getChar();
+        int start = this.pos;
         this.proceed();
-        char nextChar = (isEof(this.getChar())) ? '\0' : this.getChar();
-        boolean isDoubleToken = nextChar == '=';
-        String lexeme = isDoubleToken ? String.format("%c%c", letter, nextChar) : String.valueOf(letter);
+
+        boolean isDoubleToken = this.getChar() == '=';
+        TokenType[] table = isDoubleToken ? EQUAL_SYMBOLS : SINGLE_SYMBOLS;
+        TokenType type = symbol < table.length ? table[symbol] : null;
         if (isDoubleToken) this.proceed();
-        this.addToken(this.tokenMap.getOrDefault(lexeme, UNKNOWN), lexeme);
+
+        this.addToken(type != null ? type : UNKNOWN, start);
     }
 
     private void addKeywordToken() {
         this.startToken();
-        String lexeme = this.getLexeme(() -> isLetter(this.getChar()) || isDigit(this.getChar()) || isUnderscore(this.getChar()));
-        this.addToken(this.tokenMap.getOrDefault(lexeme, IDENTIFIER), lexeme);
+        int start = this.pos;
+        // Hashed along the way, so an identifier is not read again to be interned
+        int hash = 0;
+        for (char c; isIdentifierPart(c = this.getChar()); this.proceed()) hash = 31 * hash + c;
+
+        TokenType type = Keywords.lookup(this.source, start, this.pos - start);
+        this.addToken(type, start);
+        if (type == IDENTIFIER) this.internSymbol(hash);
     }
 
     private void addNumericalToken() {
-        String lexeme = this.getLexeme(() -> isDigit(this.getChar()));
-        if (isDot(this.getChar())) {
-            if (isDigit(this.peek())) {
-                proceed();
-                lexeme += "." + this.getLexeme(() -> isDigit(this.getChar()));
-            }
+        this.startToken();
+        int start = this.pos;
+        NumberAccumulator value = this.numberValue;
+        value.reset();
+        for (char c; isAsciiDigit(c = this.getChar()); this.proceed()) value.digit(c);
+        if (isDot(this.getChar()) && isAsciiDigit(this.peek())) {
+            this.proceed();
+            value.point();
+            for (char c; isAsciiDigit(c = this.getChar()); this.proceed()) value.digit(c);
         }
-        this.addToken(NUMBER, Float.parseFloat(lexeme));
+
+        this.addToken(NUMBER, start);
+        this.scannedIsLong = this.numberRepresentation == NumberRepresentation.INT64 && value.isLong();
+        this.scannedLong = value.longValue();
+        this.scannedNumber = value.doubleValue(this.source, start, this.pos);
     }
 
     private void skipWhitespaces() {
-        while (isWhitespace(this.getChar())) this.proceed();
+        if (!isWhitespace(this.getChar())) return;
+
+        // Most runs are a single char, which is not worth a scan
+        this.skip();
+        while (isWhitespace(this.getChar())) this.skipTo(this.source.whitespaceEnd(this.pos));
     }
 
-    private void addToken(Token token) {
-        this.tokens.add(token);
+    private void addToken(TokenType type, int start) {
+        this.addToken(type, start, this.pos - start, this.line);
     }
 
-    private void addToken(TokenType type, Object lexeme) {
-        this.tokens.add(new Token(type, lexeme, this.line, this.tokenStart));
+    private void addToken(TokenType type, int start, int length, int line) {
+        this.scannedType = type;
+        this.scannedOffset = start;
+        this.scannedLength = length;
+        this.scannedLine = line;
+        this.scannedSymbol = SymbolTable.NONE;
+        this.scannedIsLong = false;
     }
 
-    private String getLexeme(Supplier<Boolean> predicate) {
-        int start = this.pos;
-        while (predicate.get()) this.proceed();
+    /**
+     * Interns the lexeme of the scanned token, which is still in the source's window.
+     */
+    private void internSymbol(int hash) {
+        if (this.symbols == null) return;
+        this.scannedSymbol = this.symbols.intern(this.source, this.scannedOffset, this.scannedLength, hash);
+    }
+
+    /**
+     * Proceeds over a character that will never be part of a token.
+     */
+    private void skip() {
+        this.proceed();
+        this.source.release(this.pos);
+    }
+
+    /**
+     * Skips up to the position, over characters that will never be part of a token.
+     * The line breaks among them are counted in bulk.
+     */
+    private void skipTo(int end) {
+        int newlines = this.source.countNewlines(this.pos, end);
+        if (newlines > 0) {
+            this.line += newlines;
+            this.column = end - this.source.lastNewline(this.pos, end);
+        } else this.column += end - this.pos;
 
-        return this.source.substring(start, this.pos);
+        this.pos = end;
+        this.currentChar = this.source.charAt(end);
+        this.source.release(end);
+    }
+
+    /**
+     * Proceeds up to the position, over characters that are no line breaks.
+     */
+    private void proceedInLine(int end) {
+        this.column += end - this.pos;
+        this.pos = end;
+        this.currentChar = this.source.charAt(end);
     }
 
     private void proceed() {
-        if (isNewLine(this.getChar())) {
+        if (isNewLine(this.currentChar)) {
             this.line++;
             this.column = 0;
         }
 
         this.column++;
-        if (++this.pos >= this.source.length()) this.currentChar = '\0';
-        else this.currentChar = this.source.charAt(this.pos);
+        this.currentChar = this.source.charAt(++this.pos);
     }
 
     private char peek() {
-        if (this.pos+1 < this.source.length()) return this.source.charAt(this.pos+1);
-        return '\0';
+        return this.source.charAt(this.pos+1);
     }
 
     private char getChar() {
@@ -168,4 +371,46 @@ public class Lexer {
     private void startToken() {
         this.tokenStart = this.column;
     }
-}
\ No newline at end of file
+
+    private class Cursor implements TokenCursor {
+        private Token current = Lexer.this.nextToken();
+        private double number = Lexer.this.scannedNumber;
+
+        @Override
+        public TokenType type() {
+            return this.current.type();
+        }
+
+        @Override
+        public Object literal() {
+            return this.current.literal();
+        }
+
+        @Override
+        public double number() {
+            return this.number;
+        }
+
+        @Override
+        public boolean isLong() {
+            return this.current.literal() instanceof Long;
+        }
+
+        @Override
+        public long longValue() {
+            return this.current.literal() instanceof Long value ? value : (long) this.number;
+        }
+
+        @Override
+        public Token token() {
+            return this.current;
+        }
+
+        @Override
+        public void advance() {
+            if (this.current.type() == EOF) return;
+            this.current = Lexer.this.nextToken();
+            this.number = Lexer.this.scannedNumber;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package net.pygmales.lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes a file through a sliding read-only memory mapping. Only one mapping of at
+ * most {@link #MAPPING_SIZE} bytes is alive at a time; a multibyte character split
+ * between two mappings is left to the decoder and re-read from the next one.
+ */
+public final class MappedFileReader extends Reader {
+    static final long MAPPING_SIZE = 1 << 24;
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private final long fileSize;
+    private ByteBuffer bytes;
+    private long mappedOffset;
+    private boolean finished;
+
+    public MappedFileReader(Path path, Charset charset) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = this.channel.size();
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate(0);
+        this.map(0);
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (this.finished) return -1;
+
+        CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+        while (out.hasRemaining()) {
+            boolean endOfInput = this.mappedOffset + this.bytes.limit() >= this.fileSize;
+            CoderResult result = this.decoder.decode(this.bytes, out, endOfInput);
+            if (result.isError()) result.throwException();
+            if (result.isOverflow()) break;
+
+            if (endOfInput) {
+                this.decoder.flush(out);
+                this.finished = true;
+                break;
+            }
+            this.map(this.mappedOffset + this.bytes.position());
+        }
+
+        int read = out.position() - offset;
+        return read == 0 && this.finished ? -1 : read;
+    }
+
+    private void map(long offset) throws IOException {
+        long size = Math.min(MAPPING_SIZE, this.fileSize - offset);
+        if (size > 0) this.bytes = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        this.mappedOffset = offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
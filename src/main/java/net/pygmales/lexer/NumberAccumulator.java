@@ -0,0 +1,174 @@
+package net.pygmales.lexer;
+
+import java.math.BigInteger;
+
+/**
+ * Value of a number literal, accumulated digit by digit while the lexer scans it, so
+ * the lexeme is never sliced to be parsed. Up to 19 significant digits are kept in a
+ * long: an integer that fits is exact, and other values are converted to the closest
+ * double with Clinger's fast path or, if that does not apply, the Eisel-Lemire
+ * algorithm. Only literals with more significant digits are parsed from their lexeme.
+ */
+final class NumberAccumulator {
+    // The most significant digits that fit into an unsigned long
+    private static final int MAX_DIGITS = 19;
+    // Longs up to this are exact doubles
+    private static final long MAX_EXACT = 1L << 53;
+    // The powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    // The significant digits, as an unsigned long, and the power of ten they are scaled by
+    private long digits;
+    private int significant;
+    private int exponent;
+    // Whether a non-zero digit did not fit into the digits
+    private boolean truncated;
+    private boolean fraction;
+
+    void reset() {
+        this.digits = 0;
+        this.significant = 0;
+        this.exponent = 0;
+        this.truncated = false;
+        this.fraction = false;
+    }
+
+    void digit(char c) {
+        if (this.significant < MAX_DIGITS) {
+            // Leading zeros are not significant, but the ones of a fraction still scale it
+            if (this.significant > 0 || c != '0') {
+                this.digits = this.digits * 10 + (c - '0');
+                this.significant++;
+            }
+            if (this.fraction) this.exponent--;
+        } else {
+            if (c != '0') this.truncated = true;
+            if (!this.fraction) this.exponent++;
+        }
+    }
+
+    /**
+     * Marks the decimal point; the following digits are the fraction.
+     */
+    void point() {
+        this.fraction = true;
+    }
+
+    /**
+     * Tells whether the literal is an integer that fits into a long.
+     */
+    boolean isLong() {
+        return !this.fraction && this.exponent == 0 && this.digits >= 0;
+    }
+
+    long longValue() {
+        return this.digits;
+    }
+
+    /**
+     * Returns the closest double to the literal, which spans the source from
+     * {@code start} to {@code end}.
+     */
+    double doubleValue(CharSource source, int start, int end) {
+        if (this.isLong()) return this.digits;
+        if (!this.truncated && this.exponent <= 0) return toDouble(this.digits, this.exponent);
+        return Double.parseDouble(source.slice(start, end));
+    }
+
+    /**
+     * Returns the closest double to {@code w * 10^q}, for an unsigned {@code w} and a
+     * {@code q} of at most 0.
+     */
+    static double toDouble(long w, int q) {
+        if (w == 0) return 0;
+        // Both operands are exact, so the quotient is rounded once
+        if (q >= -POWERS_OF_TEN.length + 1 && Long.compareUnsigned(w, MAX_EXACT) <= 0)
+            return (double) w / POWERS_OF_TEN[-q];
+        // Even the largest w is less than half of the smallest double then
+        if (q < PowersOfFive.MIN_POWER) return 0;
+        return eiselLemire(w, q);
+    }
+
+    /**
+     * Multiplies the normalized {@code w} with a 128-bit approximation of {@code 5^q} and
+     * rounds the upper bits of the product, see Lemire, "Number Parsing at a Gigabyte per
+     * Second", and Mushtak and Lemire, "Fast Number Parsing Without Fallback", which
+     * shows that the product is always precise enough for up to 19 digits.
+     */
+    private static double eiselLemire(long w, int q) {
+        int leadingZeros = Long.numberOfLeadingZeros(w);
+        w <<= leadingZeros;
+
+        int index = 2 * (q - PowersOfFive.MIN_POWER);
+        long high = Math.unsignedMultiplyHigh(w, PowersOfFive.TABLE[index]);
+        long low = w * PowersOfFive.TABLE[index];
+        // The lower half of the power only matters if the bits below the mantissa are all set
+        if ((high & 0x1FF) == 0x1FF) {
+            long secondHigh = Math.unsignedMultiplyHigh(w, PowersOfFive.TABLE[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0) high++;
+        }
+
+        // 54 bits of mantissa, one more than a double has, to round with
+        int upperBit = (int) (high >>> 63);
+        int shift = upperBit + 9;
+        long mantissa = high >>> shift;
+        // floor(q * log2(10)) + 63, plus the exponent bias
+        int power2 = ((217706 * q) >> 16) + 63 + upperBit - leadingZeros + 1023;
+
+        if (power2 <= 0) {
+            // Subnormal, or too small to be anything but zero
+            if (-power2 + 1 >= 64) return 0;
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << 52) ? 0 : 1;
+            return Double.longBitsToDouble(mantissa | (long) power2 << 52);
+        }
+
+        // Exactly halfway between two doubles, which only the small powers can produce:
+        // round to even instead of up
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && (mantissa & 3) == 1 && (mantissa << shift) == high)
+            mantissa &= ~1L;
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << 52)) {
+            mantissa = 1L << 52;
+            power2++;
+        }
+        mantissa &= ~(1L << 52);
+        return Double.longBitsToDouble(mantissa | (long) power2 << 52);
+    }
+
+    /**
+     * The upper and the lower 64 bits of {@code 5^q} for every q from {@link #MIN_POWER}
+     * to 0, shifted so that the top bit is set and rounded up. Built the first time a
+     * literal needs it, which most programs never do.
+     */
+    private static final class PowersOfFive {
+        private static final int MIN_POWER = -342;
+        private static final long[] TABLE = new long[2 * (1 - MIN_POWER)];
+
+        static {
+            BigInteger five = BigInteger.valueOf(5);
+            for (int q = MIN_POWER; q <= 0; q++) {
+                BigInteger power = five.pow(-q);
+                // 5^-q is not a power of two, so it lies between 2^(bits - 1) and 2^bits
+                int bits = power.bitLength();
+                BigInteger value;
+                if (q == 0) value = BigInteger.ONE.shiftLeft(127);
+                else if (q >= -27) value = BigInteger.ONE.shiftLeft(bits + 127).divide(power).add(BigInteger.ONE);
+                else {
+                    value = BigInteger.ONE.shiftLeft(2 * bits + 128).divide(power).add(BigInteger.ONE);
+                    value = value.shiftRight(value.bitLength() - 128);
+                }
+
+                int index = 2 * (q - MIN_POWER);
+                TABLE[index] = value.shiftRight(64).longValue();
+                TABLE[index + 1] = value.longValue();
+            }
+        }
+    }
+}
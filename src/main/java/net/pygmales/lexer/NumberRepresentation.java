@@ -0,0 +1,16 @@
+package net.pygmales.lexer;
+
+/**
+ * How the lexer represents the values of number literals.
+ */
+public enum NumberRepresentation {
+    /**
+     * Every literal is a double.
+     */
+    DOUBLE,
+    /**
+     * Integer literals that fit into 64 bits are longs, exact at any size; the others
+     * are doubles.
+     */
+    INT64
+}
@@ -0,0 +1,270 @@
+package net.pygmales.lexer;
+
+import net.pygmales.util.ErrorLogger;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static net.pygmales.lexer.TokenCategory.ERROR;
+
+/**
+ * Lexer for very large sources that lexes chunks of the source in parallel on a
+ * {@link ForkJoinPool}. A pre-scan splits the source after line breaks outside of
+ * strings and block comments, where the {@link Lexer} is always between two tokens, so
+ * every chunk is lexed on its own from the first column of its line. The tokens of the
+ * chunks are copied into one buffer in order, and their errors are reported in order,
+ * so the tokens and the diagnostics are the same as from {@link Lexer#scanBuffer()}.
+ * Every chunk interns its symbols in a table of its own, and the tables are merged
+ * into the lexer's one before the tokens are copied, with their ids mapped over.
+ * <p>
+ * Strings end at a line break, and an unclosed block comment runs to the end of the
+ * source, so an unclosed string or comment always lies in a single chunk and is
+ * reported where the sequential lexer reports it.
+ */
+public class ParallelLexer {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    // States of the pre-scan
+    private static final int CODE = 0;
+    private static final int STRING = 1;
+    private static final int LINE_COMMENT = 2;
+    private static final int BLOCK_COMMENT = 3;
+
+    private final ErrorLogger logger;
+    private final String source;
+    private final ForkJoinPool pool;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private SymbolTable symbols = new SymbolTable();
+    private NumberRepresentation numberRepresentation = NumberRepresentation.DOUBLE;
+
+    public ParallelLexer(String source) {
+        this(new ErrorLogger("interactive"), source);
+    }
+
+    public ParallelLexer(ErrorLogger logger, String source) {
+        this(logger, source, ForkJoinPool.commonPool());
+    }
+
+    public ParallelLexer(ErrorLogger logger, String source, ForkJoinPool pool) {
+        this.logger = logger;
+        this.source = source;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the number of characters every chunk but the last one has at least. A source
+     * that fits into one chunk is lexed sequentially.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * See {@link Lexer#setSymbols(SymbolTable)}.
+     */
+    public void setSymbols(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    public SymbolTable getSymbols() {
+        return this.symbols;
+    }
+
+    public void setNumberRepresentation(NumberRepresentation numberRepresentation) {
+        this.numberRepresentation = numberRepresentation;
+    }
+
+    public TokenBuffer scanBuffer() {
+        Chunks chunks = this.split();
+        if (chunks.count == 1) {
+            Lexer lexer = new Lexer(this.logger, this.source);
+            lexer.setSymbols(this.symbols);
+            lexer.setNumberRepresentation(this.numberRepresentation);
+            return lexer.scanBuffer();
+        }
+
+        this.logger.setSource(this.source);
+        this.pool.invoke(new ScanTask(chunks, 0, chunks.count));
+
+        int[] offsets = new int[chunks.count + 1];
+        for (int i = 0; i < chunks.count; i++) offsets[i + 1] = offsets[i] + chunks.tokens[i].size();
+        // In the order of the chunks, so the ids are the same as from the sequential lexer
+        for (int i = 0; i < chunks.count && this.symbols != null; i++) {
+            SymbolTable chunkSymbols = chunks.tokens[i].symbolTable();
+            int[] ids = chunks.symbolIds[i] = new int[chunkSymbols.size()];
+            for (int id = 0; id < ids.length; id++) ids[id] = this.symbols.intern(chunkSymbols.name(id));
+        }
+        TokenBuffer tokens = new TokenBuffer(this.source, offsets[chunks.count] + 1, this.symbols);
+        this.pool.invoke(new CopyTask(chunks, tokens, offsets, 0, chunks.count));
+        tokens.setSize(offsets[chunks.count]);
+        chunks.last.addEof(tokens);
+
+        for (int i = 0; i < chunks.count; i++) {
+            if (!chunks.faulty[i]) continue;
+            for (int token = offsets[i]; token < offsets[i + 1]; token++)
+                if (tokens.type(token).is(ERROR)) Lexer.reportFaultyToken(this.logger, tokens.token(token));
+        }
+        this.logger.close();
+        return tokens;
+    }
+
+    /**
+     * Finds the chunk boundaries: the first line start outside of strings and comments
+     * at least a chunk size after the previous boundary. The states follow the
+     * {@link Lexer}, which also ends a string or a comment at a '\0'.
+     */
+    private Chunks split() {
+        String source = this.source;
+        int length = source.length();
+        Chunks chunks = new Chunks();
+        chunks.add(0, 1);
+
+        int state = CODE;
+        int line = 1;
+        int next = this.chunkSize;
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+            switch (state) {
+                case CODE -> {
+                    if (c == '\n') {
+                        line++;
+                        if (i + 1 >= next && i + 1 < length) {
+                            chunks.add(i + 1, line);
+                            next = i + 1 + this.chunkSize;
+                        }
+                    } else if (c == '"') state = STRING;
+                    else if (c == '/' && i + 1 < length) {
+                        char following = source.charAt(i + 1);
+                        if (following == '/' || following == '*') {
+                            state = following == '/' ? LINE_COMMENT : BLOCK_COMMENT;
+                            i++;
+                        }
+                    }
+                }
+                case STRING -> {
+                    if (c == '"') state = CODE;
+                    else if (c == '\n' || c == '\0') {
+                        state = CODE;
+                        i--;
+                    }
+                }
+                case LINE_COMMENT -> {
+                    if (c == '\n' || c == '\0') {
+                        state = CODE;
+                        i--;
+                    }
+                }
+                case BLOCK_COMMENT -> {
+                    if (c == '*' && i + 1 < length && source.charAt(i + 1) == '/') {
+                        state = CODE;
+                        i++;
+                    } else if (c == '\0') {
+                        state = CODE;
+                        i--;
+                    } else if (c == '\n') line++;
+                }
+            }
+        }
+        chunks.end(length);
+        return chunks;
+    }
+
+    private static class Chunks {
+        // Offset and line of the first character of every chunk, and the end of the last
+        private int[] starts = new int[16];
+        private int[] lines = new int[16];
+        private int count;
+
+        private TokenBuffer[] tokens;
+        // Ids in the lexer's table of the symbols of every chunk's table
+        private int[][] symbolIds;
+        private boolean[] faulty;
+        // Lexer of the last chunk, which adds the EOF token
+        private Lexer last;
+
+        private void add(int start, int line) {
+            if (this.count + 1 == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.count * 2);
+                this.lines = Arrays.copyOf(this.lines, this.count * 2);
+            }
+            this.starts[this.count] = start;
+            this.lines[this.count++] = line;
+        }
+
+        private void end(int length) {
+            this.starts[this.count] = length;
+            this.tokens = new TokenBuffer[this.count];
+            this.symbolIds = new int[this.count][];
+            this.faulty = new boolean[this.count];
+        }
+    }
+
+    private class ScanTask extends RecursiveAction {
+        private final Chunks chunks;
+        private final int from;
+        private final int to;
+
+        private ScanTask(Chunks chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ScanTask(this.chunks, this.from, middle), new ScanTask(this.chunks, middle, this.to));
+                return;
+            }
+
+            int start = this.chunks.starts[this.from];
+            int end = this.chunks.starts[this.from + 1];
+            // Errors are reported once all chunks are done, in order
+            ErrorLogger errors = new ErrorLogger("chunk", diagnostics -> {});
+            Lexer lexer = new Lexer(errors, new StringSource(ParallelLexer.this.source, end), start,
+                    this.chunks.lines[this.from], 1);
+            SymbolTable symbols = ParallelLexer.this.symbols != null ? new SymbolTable() : null;
+            lexer.setSymbols(symbols);
+            lexer.setNumberRepresentation(ParallelLexer.this.numberRepresentation);
+            TokenBuffer tokens = new TokenBuffer(ParallelLexer.this.source, (end - start) / 8, symbols);
+            while (lexer.scanInto(tokens));
+
+            this.chunks.tokens[this.from] = tokens;
+            this.chunks.faulty[this.from] = errors.hasErrors();
+            if (this.from == this.chunks.count - 1) this.chunks.last = lexer;
+        }
+    }
+
+    private static class CopyTask extends RecursiveAction {
+        private final Chunks chunks;
+        private final TokenBuffer target;
+        private final int[] offsets;
+        private final int from;
+        private final int to;
+
+        private CopyTask(Chunks chunks, TokenBuffer target, int[] offsets, int from, int to) {
+            this.chunks = chunks;
+            this.target = target;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new CopyTask(this.chunks, this.target, this.offsets, this.from, middle),
+                        new CopyTask(this.chunks, this.target, this.offsets, middle, this.to));
+                return;
+            }
+
+            this.target.copyFrom(this.chunks.tokens[this.from], this.offsets[this.from], this.chunks.symbolIds[this.from]);
+            // The chunk's buffer is not needed any more
+            this.chunks.tokens[this.from] = null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package net.pygmales.lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Reads a {@link Reader} through a fixed-size window. Characters before the released
+ * position are discarded when the window is refilled, and the window only grows when
+ * a single token does not fit into it, so memory stays bounded by the longest token
+ * instead of the size of the input.
+ */
+final class ReaderSource extends CharSource {
+    static final int DEFAULT_WINDOW = 1 << 16;
+
+    private final Reader reader;
+    private char[] window;
+    private int windowStart;
+    private int windowEnd;
+    private int released;
+    private boolean exhausted;
+
+    ReaderSource(Reader reader, int windowSize) {
+        this.reader = reader;
+        this.window = new char[Math.max(16, windowSize)];
+    }
+
+    @Override
+    char charAt(int index) {
+        if (index < this.windowEnd || this.fill(index)) return this.window[index - this.windowStart];
+        return '\0';
+    }
+
+    @Override
+    boolean isEnd(int index) {
+        return index >= this.windowEnd && !this.fill(index);
+    }
+
+    @Override
+    String slice(int start, int end) {
+        return new String(this.window, start - this.windowStart, end - start);
+    }
+
+    @Override
+    boolean regionMatches(int start, String word, int offset, int length) {
+        for (int i = 0; i < length; i++)
+            if (this.charAt(start + i) != word.charAt(offset + i)) return false;
+        return true;
+    }
+
+    @Override
+    void release(int index) {
+        this.released = index;
+    }
+
+    private boolean fill(int index) {
+        try {
+            while (index >= this.windowEnd) {
+                if (this.exhausted) return false;
+                if (this.windowEnd - this.windowStart == this.window.length) this.compact();
+
+                int loaded = this.windowEnd - this.windowStart;
+                int read = this.reader.read(this.window, loaded, this.window.length - loaded);
+                if (read < 0) {
+                    this.exhausted = true;
+                    return false;
+                }
+                this.windowEnd += read;
+            }
+            return true;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void compact() {
+        int kept = this.windowEnd - this.released;
+        if (kept > this.window.length / 2) {
+            this.window = Arrays.copyOf(this.window, this.window.length * 2);
+            return;
+        }
+
+        System.arraycopy(this.window, this.released - this.windowStart, this.window, 0, kept);
+        this.windowStart = this.released;
+    }
+}
@@ -0,0 +1,135 @@
+package net.pygmales.lexer;
+
+import static net.pygmales.util.Character.isWhitespace;
+
+final class StringSource extends CharSource {
+    // The Vector API is an incubating module, so it is only used when the JVM was
+    // started with --add-modules jdk.incubator.vector
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    // Runs up to this long are scanned char by char, since a vector does not pay off for them
+    private static final int SHORT_RUN = 16;
+
+    private final String source;
+    private final int length;
+    // Made on the first run that is too long for the char by char scan, so short
+    // sources never allocate its window
+    private VectorScanner scanner;
+
+    StringSource(String source) {
+        this(source, source.length());
+    }
+
+    /**
+     * Reads the source only up to the end, as if it ended there.
+     */
+    StringSource(String source, int end) {
+        this.source = source;
+        this.length = end;
+    }
+
+    @Override
+    char charAt(int index) {
+        return index < this.length ? this.source.charAt(index) : '\0';
+    }
+
+    @Override
+    boolean isEnd(int index) {
+        return index >= this.length;
+    }
+
+    @Override
+    String slice(int start, int end) {
+        return this.source.substring(start, end);
+    }
+
+    @Override
+    boolean regionMatches(int start, String word, int offset, int length) {
+        return this.source.regionMatches(start, word, offset, length);
+    }
+
+    @Override
+    int hash(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) hash = 31 * hash + this.source.charAt(i);
+        return hash;
+    }
+
+    @Override
+    int whitespaceEnd(int index) {
+        int end = this.shortRunEnd(index);
+        index = this.scanWhitespace(index, end);
+        if (index == end && end < this.length) index = this.scanWhitespace(this.scanner().whitespaceEnd(index), this.length);
+        return index;
+    }
+
+    @Override
+    int lineCommentEnd(int index) {
+        int end = this.shortRunEnd(index);
+        index = this.scanLineComment(index, end);
+        if (index == end && end < this.length) index = this.scanLineComment(this.scanner().lineCommentEnd(index), this.length);
+        return index;
+    }
+
+    @Override
+    int blockCommentEnd(int index) {
+        int end = this.shortRunEnd(index);
+        index = this.scanBlockComment(index, end);
+        if (index == end && end < this.length) index = this.scanBlockComment(this.scanner().blockCommentEnd(index), this.length);
+        return index;
+    }
+
+    @Override
+    int stringEnd(int index) {
+        int end = this.shortRunEnd(index);
+        index = this.scanString(index, end);
+        if (index == end && end < this.length) index = this.scanString(this.scanner().stringEnd(index), this.length);
+        return index;
+    }
+
+    @Override
+    int countNewlines(int start, int end) {
+        int count = 0;
+        if (VECTORIZED && end - start > SHORT_RUN) {
+            int whole = (end - start) / VectorScanner.WIDTH * VectorScanner.WIDTH;
+            count = this.scanner().countNewlines(start, start + whole);
+            start += whole;
+        }
+        for (; start < end; start++)
+            if (this.source.charAt(start) == '\n') count++;
+        return count;
+    }
+
+    private VectorScanner scanner() {
+        if (this.scanner == null) this.scanner = new VectorScanner(this.source, this.length);
+        return this.scanner;
+    }
+
+    /**
+     * Returns where the char by char scan of a run hands over to the vectors, or the
+     * end of the source without them.
+     */
+    private int shortRunEnd(int index) {
+        return VECTORIZED ? Math.min(index + SHORT_RUN, this.length) : this.length;
+    }
+
+    private int scanWhitespace(int index, int end) {
+        while (index < end && isWhitespace(this.source.charAt(index))) index++;
+        return index;
+    }
+
+    private int scanLineComment(int index, int end) {
+        for (char c; index < end && (c = this.source.charAt(index)) != '\n' && c != '\0'; index++);
+        return index;
+    }
+
+    private int scanBlockComment(int index, int end) {
+        for (char c; index < end && (c = this.source.charAt(index)) != '*' && c != '\0'; index++);
+        return index;
+    }
+
+    private int scanString(int index, int end) {
+        for (char c; index < end && (c = this.source.charAt(index)) != '"' && c != '\n' && c != '\0'; index++);
+        return index;
+    }
+}
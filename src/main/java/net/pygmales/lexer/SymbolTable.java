@@ -0,0 +1,105 @@
+package net.pygmales.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Interns the names of identifiers and the contents of strings as dense int ids, so a
+ * name that occurs many times is made into a String once and later stages can compare
+ * names by id. A slice of the source is looked up by its hash and compared in place,
+ * without being copied; only a name that is not in the table yet is sliced.
+ * <p>
+ * Every {@link Lexer} has a table of its own by default. A table can be shared by
+ * compilations that should agree on the ids, e.g. the lines of an interactive session,
+ * as long as they do not run at the same time: a table is not thread-safe.
+ */
+public final class SymbolTable {
+    /**
+     * The id of tokens that have no symbol.
+     */
+    public static final int NONE = -1;
+    private static final int MIN_CAPACITY = 64;
+
+    // Ids plus one, by hash; 0 marks an empty slot. At most half of the slots are used
+    private int[] slots = new int[MIN_CAPACITY];
+    private String[] names = new String[MIN_CAPACITY / 2];
+    private int[] hashes = new int[MIN_CAPACITY / 2];
+    private int size;
+
+    /**
+     * Returns the id of the name, adding it if it is not in the table yet.
+     */
+    public int intern(String name) {
+        int hash = name.hashCode();
+        int mask = this.slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = this.slots[slot] - 1;
+            if (id < 0) return this.add(slot, hash, name);
+            if (this.hashes[id] == hash && this.names[id].equals(name)) return id;
+        }
+    }
+
+    /**
+     * Returns the id of the chars from {@code start} to {@code end}, which have to be in
+     * the source's window still, adding them if they are not in the table yet.
+     */
+    int intern(CharSource source, int start, int end) {
+        return this.intern(source, start, end - start, source.hash(start, end));
+    }
+
+    /**
+     * Like {@link #intern(CharSource, int, int)}, for a caller that already hashed the
+     * chars the way {@link CharSource#hash(int, int)} does.
+     */
+    int intern(CharSource source, int start, int length, int hash) {
+        int mask = this.slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = this.slots[slot] - 1;
+            if (id < 0) return this.add(slot, hash, source.slice(start, start + length));
+
+            String name = this.names[id];
+            if (this.hashes[id] == hash && name.length() == length && source.regionMatches(start, name, 0, length))
+                return id;
+        }
+    }
+
+    public String name(int id) {
+        if (id < 0 || id >= this.size) throw new IndexOutOfBoundsException("No symbol with id " + id);
+        return this.names[id];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private int add(int slot, int hash, String name) {
+        if (this.size == this.names.length) {
+            this.names = Arrays.copyOf(this.names, this.size * 2);
+            this.hashes = Arrays.copyOf(this.hashes, this.size * 2);
+        }
+
+        int id = this.size++;
+        this.names[id] = name;
+        this.hashes[id] = hash;
+        this.slots[slot] = id + 1;
+        if (this.size * 2 > this.slots.length) this.rehash();
+        return id;
+    }
+
+    private void rehash() {
+        int[] slots = new int[this.slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < this.size; id++) {
+            int slot = spread(this.hashes[id]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+        this.slots = slots;
+    }
+
+    /**
+     * Mixes the high bits of a String hash into the low ones the slot is taken from.
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
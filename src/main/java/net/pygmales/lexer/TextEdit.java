@@ -0,0 +1,26 @@
+package net.pygmales.lexer;
+
+import java.util.Objects;
+
+/**
+ * A change of a source: the {@code removed} characters from {@code offset} on are
+ * replaced by {@code inserted}.
+ */
+public record TextEdit(int offset, int removed, String inserted) {
+    public TextEdit {
+        if (offset < 0 || removed < 0) throw new IllegalArgumentException("Negative offset or length of an edit");
+        Objects.requireNonNull(inserted);
+    }
+
+    public String apply(String source) {
+        Objects.checkFromIndexSize(this.offset, this.removed, source.length());
+        return source.substring(0, this.offset) + this.inserted + source.substring(this.offset + this.removed);
+    }
+
+    /**
+     * Returns by how many characters the edit changes the length of the source.
+     */
+    public int delta() {
+        return this.inserted.length() - this.removed;
+    }
+}
@@ -1,13 +1,45 @@
 package net.pygmales.lexer;
 
+import java.util.Objects;
+
+/**
+ * A scanned token. Identifiers and strings also carry the id of their lexeme in the
+ * {@link SymbolTable} of the lexer, which is {@link SymbolTable#NONE} for other tokens
+ * and for tokens that were not scanned by a lexer. Two tokens are equal by their type
+ * and literal only.
+ */
 public record Token(
         TokenType type,
         Object literal,
         int line,
-        int column
+        int column,
+        int symbol
 ) {
     public static final Token EOF = new Token(TokenType.EOF, null, -1, -1);
 
+    public Token(TokenType type, Object literal, int line, int column) {
+        this(type, literal, line, column, SymbolTable.NONE);
+    }
+
+    /**
+     * The literal a token of the given type carries: numbers as doubles, the lexeme for
+     * identifiers, strings and unknown symbols, the type's own spelling for keywords
+     * and operators, and {@code null} for EOF and the error tokens. The lexeme is only
+     * read for the types {@link #hasLexemeLiteral(TokenType)} accepts.
+     */
+    static Object literal(TokenType type, double number, String lexeme) {
+        return switch (type) {
+            case NUMBER -> number;
+            case IDENTIFIER, STRING, UNKNOWN -> lexeme;
+            case EOF, UMC_ERROR, US_ERROR -> null;
+            default -> type.toString();
+        };
+    }
+
+    static boolean hasLexemeLiteral(TokenType type) {
+        return type == TokenType.IDENTIFIER || type == TokenType.STRING || type == TokenType.UNKNOWN;
+    }
+
     @Override
     public String toString() {
         return String.format("%s(%s)", type.toString().toUpperCase(), literal);
@@ -16,7 +48,12 @@ public record Token(
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Token other)
-            return this.type.equals(other.type) && this.literal.equals(other.literal);
+            return this.type.equals(other.type) && Objects.equals(this.literal, other.literal);
         return false;
     }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.type, this.literal);
+    }
 }
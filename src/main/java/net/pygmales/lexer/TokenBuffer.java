@@ -0,0 +1,251 @@
+package net.pygmales.lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.pygmales.lexer.TokenType.*;
+
+/**
+ * Token stream stored as parallel primitive arrays. A token is only an index into
+ * this buffer: its lexeme is a slice of the source that is turned into a String on
+ * demand, and number values are kept as raw doubles or longs instead of boxed
+ * literals. The lexemes of identifiers and strings added with a symbol are read from
+ * the buffer's {@link SymbolTable} instead, so a name that occurs many times is the
+ * same String.
+ */
+public class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int MIN_CAPACITY = 16;
+    // Set in the type of a number whose value is a long instead of the bits of a double
+    private static final int LONG_FLAG = 0x80;
+    private static final int TYPE_BITS = LONG_FLAG - 1;
+
+    private final String source;
+    private final SymbolTable symbolTable;
+
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] columns;
+    private long[] numbers;
+    // Symbol ids plus one, 0 for tokens without a symbol
+    private int[] symbols;
+    private int size;
+
+    public TokenBuffer(String source) {
+        this(source, Math.max(MIN_CAPACITY, source.length() / 8));
+    }
+
+    public TokenBuffer(String source, int capacity) {
+        this(source, capacity, null);
+    }
+
+    /**
+     * Creates a buffer whose tokens may have symbols of the table.
+     */
+    public TokenBuffer(String source, int capacity, SymbolTable symbolTable) {
+        this.source = source;
+        this.symbolTable = symbolTable;
+        capacity = Math.max(MIN_CAPACITY, capacity);
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.numbers = new long[capacity];
+        this.symbols = new int[capacity];
+    }
+
+    public void add(TokenType type, int start, int length, int line, int column) {
+        if (this.size == this.types.length) this.grow();
+
+        this.types[this.size] = (byte) type.ordinal();
+        this.starts[this.size] = start;
+        this.lengths[this.size] = length;
+        this.lines[this.size] = line;
+        this.columns[this.size] = column;
+        this.size++;
+    }
+
+    public void addNumber(double value, int start, int length, int line, int column) {
+        this.add(NUMBER, start, length, line, column);
+        this.numbers[this.size - 1] = Double.doubleToRawLongBits(value);
+    }
+
+    public void addLong(long value, int start, int length, int line, int column) {
+        this.add(NUMBER, start, length, line, column);
+        this.types[this.size - 1] |= (byte) LONG_FLAG;
+        this.numbers[this.size - 1] = value;
+    }
+
+    /**
+     * Adds an identifier or a string whose lexeme has the id in the buffer's table.
+     */
+    public void addSymbol(TokenType type, int symbol, int start, int length, int line, int column) {
+        this.add(type, start, length, line, column);
+        this.symbols[this.size - 1] = symbol + 1;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public String source() {
+        return this.source;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[this.types[index] & TYPE_BITS];
+    }
+
+    public int start(int index) {
+        return this.starts[index];
+    }
+
+    public int length(int index) {
+        return this.lengths[index];
+    }
+
+    public int line(int index) {
+        return this.lines[index];
+    }
+
+    public int column(int index) {
+        return this.columns[index];
+    }
+
+    public double number(int index) {
+        return this.isLong(index) ? this.numbers[index] : Double.longBitsToDouble(this.numbers[index]);
+    }
+
+    /**
+     * Tells whether the token is a number whose value is a long, see
+     * {@link NumberRepresentation#INT64}.
+     */
+    public boolean isLong(int index) {
+        return (this.types[index] & LONG_FLAG) != 0;
+    }
+
+    public long longValue(int index) {
+        return this.isLong(index) ? this.numbers[index] : (long) Double.longBitsToDouble(this.numbers[index]);
+    }
+
+    /**
+     * Returns the id of the token's lexeme in the buffer's table, or
+     * {@link SymbolTable#NONE} if the token was added without one.
+     */
+    public int symbol(int index) {
+        return this.symbols[index] - 1;
+    }
+
+    public SymbolTable symbolTable() {
+        return this.symbolTable;
+    }
+
+    public String lexeme(int index) {
+        int symbol = this.symbols[index];
+        if (symbol != 0) return this.symbolTable.name(symbol - 1);
+        return this.source.substring(this.starts[index], this.starts[index] + this.lengths[index]);
+    }
+
+    public Object literal(int index) {
+        if (this.isLong(index)) return this.numbers[index];
+        TokenType type = this.type(index);
+        return Token.literal(type, this.number(index), Token.hasLexemeLiteral(type) ? this.lexeme(index) : null);
+    }
+
+    public TokenCursor cursor() {
+        return new Cursor();
+    }
+
+    public Token token(int index) {
+        return new Token(this.type(index), this.literal(index), this.lines[index], this.columns[index],
+                this.symbol(index));
+    }
+
+    public Token last() {
+        return this.token(this.size - 1);
+    }
+
+    public List<Token> toList() {
+        List<Token> tokens = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) tokens.add(this.token(i));
+        return tokens;
+    }
+
+    /**
+     * Copies all tokens of the other buffer to this one from the index on, which has to
+     * leave room for them within the capacity. The symbols of the other buffer's table
+     * are replaced with the ids at their index in {@code symbolIds}, the ids of the same
+     * names in this buffer's table. Several threads may fill disjoint ranges at once; the
+     * size is only set with {@link #setSize(int)} once all of them are done.
+     */
+    void copyFrom(TokenBuffer from, int index, int[] symbolIds) {
+        System.arraycopy(from.types, 0, this.types, index, from.size);
+        System.arraycopy(from.starts, 0, this.starts, index, from.size);
+        System.arraycopy(from.lengths, 0, this.lengths, index, from.size);
+        System.arraycopy(from.lines, 0, this.lines, index, from.size);
+        System.arraycopy(from.columns, 0, this.columns, index, from.size);
+        System.arraycopy(from.numbers, 0, this.numbers, index, from.size);
+        for (int i = 0; i < from.size; i++) {
+            int symbol = from.symbols[i];
+            if (symbol != 0) this.symbols[index + i] = symbolIds[symbol - 1] + 1;
+        }
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    private void grow() {
+        int capacity = this.types.length + (this.types.length >> 1);
+        this.types = Arrays.copyOf(this.types, capacity);
+        this.starts = Arrays.copyOf(this.starts, capacity);
+        this.lengths = Arrays.copyOf(this.lengths, capacity);
+        this.lines = Arrays.copyOf(this.lines, capacity);
+        this.columns = Arrays.copyOf(this.columns, capacity);
+        this.numbers = Arrays.copyOf(this.numbers, capacity);
+        this.symbols = Arrays.copyOf(this.symbols, capacity);
+    }
+
+    private class Cursor implements TokenCursor {
+        private int position;
+
+        @Override
+        public TokenType type() {
+            return TokenBuffer.this.type(this.position);
+        }
+
+        @Override
+        public Object literal() {
+            return TokenBuffer.this.literal(this.position);
+        }
+
+        @Override
+        public double number() {
+            return TokenBuffer.this.number(this.position);
+        }
+
+        @Override
+        public boolean isLong() {
+            return TokenBuffer.this.isLong(this.position);
+        }
+
+        @Override
+        public long longValue() {
+            return TokenBuffer.this.longValue(this.position);
+        }
+
+        @Override
+        public Token token() {
+            return TokenBuffer.this.token(this.position);
+        }
+
+        @Override
+        public void advance() {
+            if (this.position < TokenBuffer.this.size - 1) this.position++;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package net.pygmales.lexer;
+
+/**
+ * Categories of token types as bit flags. Every {@link TokenType} carries the union of
+ * its categories, so {@link TokenType#is(int)} tests one or several categories at once
+ * with a single mask, e.g. {@code type.is(CLOSING | STATEMENT)}.
+ */
+public final class TokenCategory {
+    // Tokens with a fixed spelling of symbols and with a fixed spelling of letters
+    public static final int SYMBOL = 1;
+    public static final int KEYWORD = 1 << 1;
+
+    // Operands and operators of expressions
+    public static final int LITERAL = 1 << 2;
+    public static final int UNARY_OPERATOR = 1 << 3;
+    public static final int BINARY_OPERATOR = 1 << 4;
+    public static final int EQUALITY_OPERATOR = 1 << 5;
+    public static final int COMPARISON_OPERATOR = 1 << 6;
+    public static final int TERM_OPERATOR = 1 << 7;
+    public static final int FACTOR_OPERATOR = 1 << 8;
+
+    // Keywords that start a statement or a declaration, and symbols that close one
+    public static final int STATEMENT = 1 << 9;
+    public static final int CLOSING = 1 << 10;
+
+    // Tokens the lexer produces for input it could not scan
+    public static final int ERROR = 1 << 11;
+
+    private TokenCategory() {}
+}
@@ -0,0 +1,31 @@
+package net.pygmales.lexer;
+
+/**
+ * Forward-only view of a token stream, positioned on its current token. The stream
+ * always ends with an {@link TokenType#EOF} token, on which the cursor stays.
+ */
+public interface TokenCursor {
+    TokenType type();
+
+    Object literal();
+
+    /**
+     * The value of the current token when it is a {@link TokenType#NUMBER}.
+     */
+    double number();
+
+    /**
+     * Tells whether the current token is a {@link TokenType#NUMBER} whose value is a
+     * long, see {@link NumberRepresentation#INT64}.
+     */
+    boolean isLong();
+
+    /**
+     * The value of the current token when {@link #isLong()}.
+     */
+    long longValue();
+
+    Token token();
+
+    void advance();
+}
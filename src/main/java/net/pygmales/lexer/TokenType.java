@@ -1,43 +1,62 @@
 package net.pygmales.lexer;
 
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
+import static net.pygmales.lexer.TokenCategory.*;
+
 public enum TokenType {
     // Single-character tokens
-    LPAR("("), RPAR(")"), LBRAC("{"), RBRAC("}"), COMMA(","), DOT("."),
-    MINUS("-"), PLUS("+"), SEMICOLON(";"), SLASH("/"), STAR("*"),
+    LPAR("(", SYMBOL), RPAR(")", SYMBOL | CLOSING), LBRAC("{", SYMBOL), RBRAC("}", SYMBOL | CLOSING),
+    COMMA(",", SYMBOL), DOT(".", SYMBOL),
+    MINUS("-", SYMBOL | UNARY_OPERATOR | BINARY_OPERATOR | TERM_OPERATOR),
+    PLUS("+", SYMBOL | BINARY_OPERATOR | TERM_OPERATOR), SEMICOLON(";", SYMBOL | CLOSING),
+    SLASH("/", SYMBOL | BINARY_OPERATOR | FACTOR_OPERATOR), STAR("*", SYMBOL | BINARY_OPERATOR | FACTOR_OPERATOR),
 
     // One or two character tokens
-    NOT("!"), NOT_EQUAL("!="), EQUAL("="), EQUAL_EQUAL("=="),
-    GREATER(">"), GREATER_EQUAL(">="), LESS("<"), LESS_EQUAL("<="),
+    NOT("!", SYMBOL | UNARY_OPERATOR), NOT_EQUAL("!=", SYMBOL | BINARY_OPERATOR | EQUALITY_OPERATOR),
+    EQUAL("=", SYMBOL), EQUAL_EQUAL("==", SYMBOL | BINARY_OPERATOR | EQUALITY_OPERATOR),
+    GREATER(">", SYMBOL | BINARY_OPERATOR | COMPARISON_OPERATOR),
+    GREATER_EQUAL(">=", SYMBOL | BINARY_OPERATOR | COMPARISON_OPERATOR),
+    LESS("<", SYMBOL | BINARY_OPERATOR | COMPARISON_OPERATOR),
+    LESS_EQUAL("<=", SYMBOL | BINARY_OPERATOR | COMPARISON_OPERATOR),
 
     // Literals
-    IDENTIFIER("identifier"), STRING("string"), NUMBER("number"),
+    IDENTIFIER("identifier", 0), STRING("string", LITERAL), NUMBER("number", LITERAL),
 
     // Keywords
-    AND("and"), CLASS("class"), ELSE("else"), FALSE("false"), DEF("def"),
-    FOR("for"), IF("if"), NULL("null"), OR("or"), PRINT("print"), RETURN("return"),
-    SUPER("super"), THIS("this"), TRUE("true"), LET("let"), WHILE("while"),
+    AND("and", KEYWORD), CLASS("class", KEYWORD | STATEMENT), ELSE("else", KEYWORD),
+    FALSE("false", KEYWORD | LITERAL), DEF("def", KEYWORD | STATEMENT), FOR("for", KEYWORD | STATEMENT),
+    IF("if", KEYWORD | STATEMENT), NULL("null", KEYWORD | LITERAL), OR("or", KEYWORD),
+    PRINT("print", KEYWORD | STATEMENT), RETURN("return", KEYWORD | STATEMENT), SUPER("super", KEYWORD),
+    THIS("this", KEYWORD), TRUE("true", KEYWORD | LITERAL), LET("let", KEYWORD | STATEMENT),
+    WHILE("while", KEYWORD | STATEMENT),
+
+    EOF("eof", 0), UNKNOWN("unknown", ERROR), UMC_ERROR("umc", ERROR), US_ERROR("us", ERROR);
 
-    EOF("eof"), UNKNOWN("unknown"), UMC_ERROR("umc"), US_ERROR("us");
+    // Symbols and keywords by their spelling, shared by everyone who needs the lookup
+    private static final Map<String, TokenType> LEXEMES;
+
+    static {
+        Map<String, TokenType> lexemes = new HashMap<>();
+        for (TokenType type : values()) if (type.is(SYMBOL | KEYWORD)) lexemes.put(type.str, type);
+        LEXEMES = Map.copyOf(lexemes);
+    }
 
     private final String str;
+    private final int categories;
 
-    public static final List<TokenType> BINARY_OPERATOR_TYPE = List.of(
-            EQUAL_EQUAL, NOT_EQUAL, LESS, LESS_EQUAL,
-            GREATER, GREATER_EQUAL, PLUS, MINUS, STAR, SLASH);
-    public static final List<TokenType> UNARY_OPERATOR_TYPE = List.of(MINUS, NOT);
-    public static final List<TokenType> EQUALITY_OPERATOR_TYPE = List.of(EQUAL_EQUAL, NOT_EQUAL);
-    public static final List<TokenType> COMPARISON_OPERATOR_TYPE = List.of(GREATER, GREATER_EQUAL, LESS, LESS_EQUAL);
-    public static final List<TokenType> TERM_OPERATOR_TYPE = List.of(PLUS, MINUS);
-    public static final List<TokenType> FACTOR_OPERATOR_TYPE = List.of(SLASH, STAR);
-    public static final List<TokenType> PRIMARY_OPERATOR_TYPE = List.of(FALSE, TRUE, NULL, NUMBER, STRING);
-
-    TokenType(String str) {
+    TokenType(String str, int categories) {
         this.str = str;
+        this.categories = categories;
+    }
+
+    /**
+     * Tells whether the type belongs to any of the {@link TokenCategory categories} in
+     * the mask.
+     */
+    public boolean is(int categories) {
+        return (this.categories & categories) != 0;
     }
 
     @Override
@@ -45,9 +64,17 @@ public enum TokenType {
         return this.str;
     }
 
-    public static Map<String, TokenType> getTokenTypeMap() {
-        Map<String, TokenType> tokenTypesMap = new HashMap<>();
-        Arrays.stream(TokenType.values()).toList().forEach(token -> tokenTypesMap.put(token.str, token));
-        return tokenTypesMap;
+    /**
+     * Returns the symbol or keyword spelled by the lexeme, or {@code null} if there is none.
+     */
+    public static TokenType ofLexeme(String lexeme) {
+        return LEXEMES.get(lexeme);
+    }
+
+    /**
+     * Returns the immutable table of every symbol and keyword by its spelling.
+     */
+    public static Map<String, TokenType> lexemes() {
+        return LEXEMES;
     }
 }
@@ -0,0 +1,441 @@
+package net.pygmales.lexer;
+
+import net.pygmales.util.ErrorLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.pygmales.lexer.TokenType.*;
+
+/**
+ * Lexer that reads UTF-8 bytes as they are, e.g. a mapped source file, instead of a
+ * decoded string. ASCII is classified through a table of the 256 byte values and runs
+ * of it are scanned byte by byte; only a non-ASCII char is decoded, the way the UTF-8
+ * charset of the JDK decodes it, malformed input included. The tokens, their lines and
+ * their columns, which count UTF-16 chars, are the same as from a {@link Lexer} on the
+ * decoded source.
+ */
+public class Utf8Lexer {
+    // Classes of the ASCII bytes; a byte can be in several of them
+    private static final int SPACE = 1;
+    private static final int NEWLINE = 1 << 1;
+    private static final int LETTER = 1 << 2;
+    private static final int DIGIT = 1 << 3;
+    private static final int UNDERSCORE = 1 << 4;
+    private static final int QUOTE = 1 << 5;
+    private static final int STAR = 1 << 6;
+    private static final int NUL = 1 << 7;
+    private static final int IDENTIFIER_PART = LETTER | DIGIT | UNDERSCORE;
+    // Indexed by the unsigned byte; the upper half, the bytes of non-ASCII chars, stays empty
+    private static final byte[] CLASSES = new byte[256];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            int classes = 0;
+            if (c == ' ' || (c >= '\t' && c <= '\r') || (c >= '\u001C' && c <= '\u001F')) classes |= SPACE;
+            if (c == '\n') classes |= NEWLINE;
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) classes |= LETTER;
+            if (c >= '0' && c <= '9') classes |= DIGIT;
+            if (c == '_') classes |= UNDERSCORE;
+            if (c == '"') classes |= QUOTE;
+            if (c == '*') classes |= STAR;
+            if (c == '\0') classes |= NUL;
+            CLASSES[c] = (byte) classes;
+        }
+    }
+
+    private final ErrorLogger logger;
+    private final Utf8Source source;
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer decoded = CharBuffer.allocate(2);
+    private SymbolTable symbols = new SymbolTable();
+    private NumberRepresentation numberRepresentation = NumberRepresentation.DOUBLE;
+    private final NumberAccumulator numberValue = new NumberAccumulator();
+
+    private char currentChar;
+    // Bytes of the current char, and the second half of a surrogate pair still to come
+    private int width;
+    private char lowSurrogate;
+    private int pos;
+    private int column = 1;
+    private int line = 1;
+    private double number;
+    private boolean closed;
+
+    public Utf8Lexer(ErrorLogger logger, byte[] bytes) {
+        this(logger, ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Creates a lexer over the remaining bytes of the buffer. The logger is not given
+     * the source, see {@link ErrorLogger#setSource(java.nio.file.Path)}.
+     */
+    public Utf8Lexer(ErrorLogger logger, ByteBuffer bytes) {
+        this.logger = logger;
+        this.source = new Utf8Source(bytes.slice());
+        this.read();
+    }
+
+    /**
+     * Tells whether source files are read as UTF-8 and the file is small enough to be
+     * mapped at once. Other files are read with a {@link MappedFileReader}.
+     */
+    public static boolean canMap(Path path) throws IOException {
+        return Charset.defaultCharset().equals(UTF_8) && Files.size(path) <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Creates a lexer over the mapped file, see {@link #canMap(Path)}.
+     */
+    public static Utf8Lexer map(ErrorLogger logger, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Utf8Lexer(logger, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * See {@link Lexer#setSymbols(SymbolTable)}.
+     */
+    public void setSymbols(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    public SymbolTable getSymbols() {
+        return this.symbols;
+    }
+
+    public void setNumberRepresentation(NumberRepresentation numberRepresentation) {
+        this.numberRepresentation = numberRepresentation;
+    }
+
+    public List<Token> scanTokens() {
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        do tokens.add(token = this.nextToken());
+        while (token.type() != EOF);
+        return tokens;
+    }
+
+    /**
+     * Scans and returns the next token, or an EOF token once the input is exhausted.
+     */
+    public Token nextToken() {
+        Token token = null;
+        while (token == null && !this.source.isEnd(this.pos)) token = this.scanNextToken();
+
+        if (token == null) {
+            this.close();
+            return new Token(EOF, null, this.line, this.column);
+        }
+        if (token.type().is(TokenCategory.ERROR)) Lexer.reportFaultyToken(this.logger, token);
+        return token;
+    }
+
+    public TokenCursor cursor() {
+        return new Cursor();
+    }
+
+    private void close() {
+        if (this.closed) return;
+        this.closed = true;
+        this.logger.close();
+    }
+
+    private Token scanNextToken() {
+        this.skipWhitespaces();
+        if (this.source.isEnd(this.pos)) return null;
+
+        char c = this.currentChar;
+        int column = this.column;
+        return switch (c) {
+            case '"' -> this.stringToken(column);
+            case '/' -> this.slashTokenOrComment(column);
+            default -> {
+                if      (isLetter(c))                  yield this.keywordToken(column);
+                else if (c < 128 && is(c, DIGIT))      yield this.numberToken(column);
+                else                                   yield this.symbolToken(c, column);
+            }
+        };
+    }
+
+    private Token slashTokenOrComment(int column) {
+        this.proceed();
+        if (this.currentChar == '/') {
+            while (this.currentChar != '\0' && this.currentChar != '\n') {
+                if (this.currentChar < 128) this.skipUntil(NEWLINE | NUL);
+                else this.proceed();
+            }
+        } else if (this.currentChar == '*') {
+            this.proceed();
+            int commentStartLine = this.line;
+            while (this.currentChar != '*' || this.peek() != '/') {
+                if (this.currentChar == '\0') return new Token(UMC_ERROR, null, commentStartLine, column);
+                if (this.currentChar < 128 && this.currentChar != '*') this.skipUntil(STAR | NUL);
+                else this.proceed();
+            }
+            this.proceed();
+            this.proceed();
+        } else return new Token(SLASH, SLASH.toString(), this.line, column);
+        return null;
+    }
+
+    private Token stringToken(int column) {
+        this.proceed();
+        int stringStartLine = this.line;
+        int start = this.pos;
+        boolean ascii = true;
+        while (this.currentChar != '"') {
+            if (this.currentChar == '\0' || this.currentChar == '\n')
+                return new Token(US_ERROR, null, stringStartLine, column);
+            if (this.currentChar < 128) this.skipUntil(QUOTE | NEWLINE | NUL);
+            else {
+                ascii = false;
+                this.proceed();
+            }
+        }
+
+        Token token = this.internedToken(STRING, start, ascii, column);
+        this.proceed();
+        return token;
+    }
+
+    private Token symbolToken(char symbol, int column) {
+        this.proceed();
+
+        boolean isDoubleToken = this.currentChar == '=';
+        TokenType[] table = isDoubleToken ? Lexer.EQUAL_SYMBOLS : Lexer.SINGLE_SYMBOLS;
+        TokenType type = symbol < table.length ? table[symbol] : null;
+        if (isDoubleToken) this.proceed();
+
+        // Built from the chars, since a symbol can be half of a surrogate pair
+        if (type == null) return new Token(UNKNOWN, isDoubleToken ? symbol + "=" : String.valueOf(symbol), this.line, column);
+        return new Token(type, type.toString(), this.line, column);
+    }
+
+    private Token keywordToken(int column) {
+        int start = this.pos;
+        boolean ascii = true;
+        while (isIdentifierPart(this.currentChar)) {
+            if (this.currentChar < 128) this.skipWhile(IDENTIFIER_PART);
+            else {
+                ascii = false;
+                this.proceed();
+            }
+        }
+
+        TokenType type = Keywords.lookup(this.source, start, this.pos - start);
+        if (type == IDENTIFIER) return this.internedToken(IDENTIFIER, start, ascii, column);
+        return new Token(type, type.toString(), this.line, column);
+    }
+
+    /**
+     * Creates an identifier or a string whose lexeme ends at the position. ASCII is
+     * interned as it is, other lexemes only once decoded, since a byte is not compared
+     * as the char it belongs to.
+     */
+    private Token internedToken(TokenType type, int start, boolean ascii, int column) {
+        if (this.symbols == null) return new Token(type, this.source.slice(start, this.pos), this.line, column);
+
+        int symbol = ascii ? this.symbols.intern(this.source, start, this.pos)
+                : this.symbols.intern(this.source.slice(start, this.pos));
+        return new Token(type, this.symbols.name(symbol), this.line, column, symbol);
+    }
+
+    private Token numberToken(int column) {
+        int start = this.pos;
+        NumberAccumulator value = this.numberValue;
+        value.reset();
+        this.scanDigits();
+        if (this.currentChar == '.' && is(this.peek(), DIGIT)) {
+            this.proceed();
+            value.point();
+            this.scanDigits();
+        }
+
+        this.number = value.doubleValue(this.source, start, this.pos);
+        Object literal = this.numberRepresentation == NumberRepresentation.INT64 && value.isLong()
+                ? (Object) value.longValue() : Token.literal(NUMBER, this.number, null);
+        return new Token(NUMBER, literal, this.line, column);
+    }
+
+    /**
+     * Proceeds over the run of digits that starts at the current char and adds them to
+     * the value of the number.
+     */
+    private void scanDigits() {
+        byte b = (byte) this.currentChar;
+        do {
+            this.numberValue.digit((char) b);
+            this.proceedOver(b);
+            b = this.source.byteAt(this.pos);
+        } while (b >= '0' && b <= '9');
+        this.read();
+    }
+
+    private void skipWhitespaces() {
+        while (isWhitespace(this.currentChar)) {
+            if (this.currentChar < 128) this.skipWhile(SPACE);
+            else this.proceed();
+        }
+    }
+
+    /**
+     * Proceeds from the current char, which is ASCII and in any of the classes, over the
+     * following bytes in any of them.
+     */
+    private void skipWhile(int classes) {
+        byte b = (byte) this.currentChar;
+        do {
+            this.proceedOver(b);
+            b = this.source.byteAt(this.pos);
+        } while (b >= 0 && (CLASSES[b] & classes) != 0);
+        this.read();
+    }
+
+    /**
+     * Proceeds from the current char, which is ASCII and in none of the classes, over
+     * the following ASCII bytes in none of them.
+     */
+    private void skipUntil(int classes) {
+        byte b = (byte) this.currentChar;
+        do {
+            this.proceedOver(b);
+            b = this.source.byteAt(this.pos);
+        } while (b >= 0 && (CLASSES[b] & classes) == 0);
+        this.read();
+    }
+
+    /**
+     * Proceeds over an ASCII byte without reading the next char.
+     */
+    private void proceedOver(byte b) {
+        if (b == '\n') {
+            this.line++;
+            this.column = 1;
+        } else this.column++;
+        this.pos++;
+    }
+
+    private void proceed() {
+        if (this.currentChar == '\n') {
+            this.line++;
+            this.column = 0;
+        }
+        this.column++;
+
+        if (this.lowSurrogate != 0) {
+            this.currentChar = this.lowSurrogate;
+            this.lowSurrogate = 0;
+            return;
+        }
+        this.pos += this.width;
+        this.read();
+    }
+
+    /**
+     * Reads the char at the position, which is '\0' at the end.
+     */
+    private void read() {
+        byte b = this.source.byteAt(this.pos);
+        if (b >= 0) {
+            this.currentChar = (char) b;
+            this.width = 1;
+        } else this.decode();
+    }
+
+    /**
+     * Decodes the char that starts with a non-ASCII byte. A char outside of the BMP is
+     * read as its two surrogates, one after the other, like in a string.
+     */
+    private void decode() {
+        ByteBuffer in = this.source.bytes(this.pos, 4);
+        CharBuffer out = this.decoded.clear().limit(1);
+        this.decoder.reset();
+        this.decoder.decode(in, out, true);
+        // Only a surrogate pair does not fit into one char
+        if (out.position() == 0) this.decoder.decode(in, out.limit(2), true);
+
+        this.width = in.position();
+        this.currentChar = this.decoded.get(0);
+        this.lowSurrogate = out.position() == 2 ? this.decoded.get(1) : 0;
+    }
+
+    /**
+     * Returns the byte after the current char as a char, which is only the actual char
+     * for ASCII.
+     */
+    private char peek() {
+        return (char) (this.source.byteAt(this.pos + this.width) & 0xFF);
+    }
+
+    private static boolean is(char c, int classes) {
+        return (CLASSES[c] & classes) != 0;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c < 128 ? is(c, SPACE) : net.pygmales.util.Character.isWhitespace(c);
+    }
+
+    private static boolean isLetter(char c) {
+        return c < 128 ? is(c, LETTER) : net.pygmales.util.Character.isLetter(c);
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return c < 128 ? is(c, IDENTIFIER_PART) : net.pygmales.util.Character.isIdentifierPart(c);
+    }
+
+    private class Cursor implements TokenCursor {
+        private Token current = Utf8Lexer.this.nextToken();
+        private double number = Utf8Lexer.this.number;
+
+        @Override
+        public TokenType type() {
+            return this.current.type();
+        }
+
+        @Override
+        public Object literal() {
+            return this.current.literal();
+        }
+
+        @Override
+        public double number() {
+            return this.number;
+        }
+
+        @Override
+        public boolean isLong() {
+            return this.current.literal() instanceof Long;
+        }
+
+        @Override
+        public long longValue() {
+            return this.current.literal() instanceof Long value ? value : (long) this.number;
+        }
+
+        @Override
+        public Token token() {
+            return this.current;
+        }
+
+        @Override
+        public void advance() {
+            if (this.current.type() == EOF) return;
+            this.current = Utf8Lexer.this.nextToken();
+            this.number = Utf8Lexer.this.number;
+        }
+    }
+}
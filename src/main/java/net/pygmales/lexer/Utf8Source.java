@@ -0,0 +1,61 @@
+package net.pygmales.lexer;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * UTF-8 bytes addressed by byte offset. A byte is read as the char of the same value,
+ * which is only the actual char for ASCII, so only keywords and ASCII symbols are
+ * looked up and no other char is compared through this view; lexemes are sliced as
+ * decoded strings.
+ */
+final class Utf8Source extends CharSource {
+    private final ByteBuffer bytes;
+    private final int length;
+
+    Utf8Source(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.length = bytes.limit();
+    }
+
+    /**
+     * Returns the byte at the index, or 0 at or past the end.
+     */
+    byte byteAt(int index) {
+        return index < this.length ? this.bytes.get(index) : 0;
+    }
+
+    /**
+     * Returns a view of at most the given number of bytes from the index on.
+     */
+    ByteBuffer bytes(int index, int length) {
+        return this.bytes.slice(index, Math.min(length, this.length - index));
+    }
+
+    @Override
+    char charAt(int index) {
+        return (char) (this.byteAt(index) & 0xFF);
+    }
+
+    @Override
+    boolean isEnd(int index) {
+        return index >= this.length;
+    }
+
+    @Override
+    String slice(int start, int end) {
+        if (this.bytes.hasArray()) return new String(this.bytes.array(), this.bytes.arrayOffset() + start, end - start, UTF_8);
+
+        byte[] slice = new byte[end - start];
+        this.bytes.get(start, slice);
+        return new String(slice, UTF_8);
+    }
+
+    @Override
+    boolean regionMatches(int start, String word, int offset, int length) {
+        for (int i = 0; i < length; i++)
+            if (this.byteAt(start + i) != word.charAt(offset + i)) return false;
+        return true;
+    }
+}
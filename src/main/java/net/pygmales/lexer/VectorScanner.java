@@ -0,0 +1,95 @@
+package net.pygmales.lexer;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.UNSIGNED_LT;
+
+/**
+ * Scans a string a vector of chars at a time, 16 to 64 bytes depending on the CPU,
+ * for the chars that end whitespace, comments and strings. Only whole vectors are
+ * scanned: every scan stops at the first such char or where less than a vector is
+ * left, and the caller goes on char by char from there. Chars outside of ASCII stop
+ * the whitespace scan, since only the caller knows which of them are whitespace.
+ * <p>
+ * This class is only loaded when the {@code jdk.incubator.vector} module is present.
+ */
+final class VectorScanner {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    static final int WIDTH = SPECIES.length();
+
+    // Chars copied out of the source at a time
+    private static final int WINDOW = 8192;
+
+    private final String source;
+    private final int length;
+    // Strings do not expose their chars, so the scans read a copy of the part of the
+    // source the lexer is at, which moves along with it
+    private final char[] window = new char[WINDOW];
+    private int windowStart;
+    private int windowEnd;
+
+    VectorScanner(String source, int length) {
+        this.source = source;
+        this.length = length;
+    }
+
+    int whitespaceEnd(int index) {
+        for (; index + WIDTH <= this.length; index += WIDTH) {
+            ShortVector chars = this.load(index);
+            VectorMask<Short> whitespace = chars.eq((short) ' ')
+                    .or(chars.sub((short) '\t').compare(UNSIGNED_LT, (short) ('\r' - '\t' + 1)))
+                    .or(chars.sub((short) '\u001C').compare(UNSIGNED_LT, (short) 4));
+            if (!whitespace.allTrue()) return index + whitespace.not().firstTrue();
+        }
+        return index;
+    }
+
+    int lineCommentEnd(int index) {
+        for (; index + WIDTH <= this.length; index += WIDTH) {
+            ShortVector chars = this.load(index);
+            VectorMask<Short> end = chars.eq((short) '\n').or(chars.eq((short) 0));
+            if (end.anyTrue()) return index + end.firstTrue();
+        }
+        return index;
+    }
+
+    int blockCommentEnd(int index) {
+        for (; index + WIDTH <= this.length; index += WIDTH) {
+            ShortVector chars = this.load(index);
+            VectorMask<Short> end = chars.eq((short) '*').or(chars.eq((short) 0));
+            if (end.anyTrue()) return index + end.firstTrue();
+        }
+        return index;
+    }
+
+    int stringEnd(int index) {
+        for (; index + WIDTH <= this.length; index += WIDTH) {
+            ShortVector chars = this.load(index);
+            VectorMask<Short> end = chars.eq((short) '"').or(chars.eq((short) '\n')).or(chars.eq((short) 0));
+            if (end.anyTrue()) return index + end.firstTrue();
+        }
+        return index;
+    }
+
+    /**
+     * Counts the line breaks in the whole vectors from the start on, and returns the
+     * count; the chars after the last whole vector before the end are left out.
+     */
+    int countNewlines(int start, int end) {
+        int count = 0;
+        for (; start + WIDTH <= end; start += WIDTH)
+            count += this.load(start).eq((short) '\n').trueCount();
+        return count;
+    }
+
+    private ShortVector load(int index) {
+        if (index < this.windowStart || index + WIDTH > this.windowEnd) {
+            this.windowStart = index;
+            this.windowEnd = Math.min(index + WINDOW, this.length);
+            this.source.getChars(index, this.windowEnd, this.window, 0);
+        }
+        return ShortVector.fromCharArray(SPECIES, this.window, index - this.windowStart);
+    }
+}
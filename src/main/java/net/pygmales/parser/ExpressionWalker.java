@@ -0,0 +1,98 @@
+package net.pygmales.parser;
+
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionVisitor;
+
+import java.util.Arrays;
+
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Depth-first traversal of an expression tree on an explicit stack, so that the depth
+ * of the tree is only limited by the heap and not by the thread stack. A listener is
+ * told when a node is entered, before any of its children, and when it is left, after
+ * all of them.
+ */
+public final class ExpressionWalker {
+    public interface Listener {
+        void enter(Expression expression);
+
+        default void leave(Expression expression) {}
+    }
+
+    private ExpressionWalker() {}
+
+    /**
+     * Walks the tree with the children of every node in source order.
+     */
+    public static void walk(Expression root, Listener listener) {
+        run(root, listener, false);
+    }
+
+    /**
+     * Walks the tree with the children of every node in reverse source order.
+     */
+    public static void walkRightToLeft(Expression root, Listener listener) {
+        run(root, listener, true);
+    }
+
+    /**
+     * Lets the visitor visit every node after all of its children, in source order.
+     * The visitor must not descend into the children itself; it typically keeps the
+     * results of the children on a stack of its own.
+     */
+    public static void postorder(Expression root, ExpressionVisitor<?> visitor) {
+        walk(root, new Listener() {
+            @Override
+            public void enter(Expression expression) {}
+
+            @Override
+            public void leave(Expression expression) {
+                expression.accept(visitor);
+            }
+        });
+    }
+
+    private static void run(Expression root, Listener listener, boolean rightToLeft) {
+        // Nodes still to be visited, and whether each one has been entered and only waits to be left
+        Expression[] nodes = new Expression[32];
+        boolean[] entered = new boolean[32];
+        int size = 0;
+
+        Expression expression = root;
+        while (true) {
+            listener.enter(expression);
+            if (size + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                entered = Arrays.copyOf(entered, size * 2);
+            }
+
+            // Descend into the first child right away and keep the rest for later
+            Expression next = null;
+            if (expression instanceof BinaryExpression binary) {
+                nodes[size] = expression;
+                entered[size++] = true;
+                nodes[size] = rightToLeft ? binary.left : binary.right;
+                entered[size++] = false;
+                next = rightToLeft ? binary.right : binary.left;
+            } else if (expression instanceof UnaryExpression unary) {
+                nodes[size] = expression;
+                entered[size++] = true;
+                next = unary.expression;
+            } else if (expression instanceof GroupingExpression grouping) {
+                nodes[size] = expression;
+                entered[size++] = true;
+                next = grouping.expression;
+            } else listener.leave(expression);
+
+            // Slots above the size are not cleared, the stack only lives for one walk
+            while (next == null) {
+                if (size == 0) return;
+                Expression pending = nodes[--size];
+                if (entered[size]) listener.leave(pending);
+                else next = pending;
+            }
+            expression = next;
+        }
+    }
+}
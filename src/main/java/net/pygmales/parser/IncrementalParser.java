@@ -0,0 +1,338 @@
+package net.pygmales.parser;
+
+import net.pygmales.lexer.EditableTokenBuffer;
+import net.pygmales.lexer.EditableTokenBuffer.Damage;
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.TextEdit;
+import net.pygmales.lexer.Token;
+import net.pygmales.lexer.TokenBuffer;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+
+import java.util.Arrays;
+
+import static net.pygmales.lexer.TokenCategory.LITERAL;
+import static net.pygmales.lexer.TokenType.SEMICOLON;
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Parser of a source that is edited over time, for editors and the interactive shell.
+ * After an edit only the damaged tokens are lexed again (see {@link EditableTokenBuffer})
+ * and only the innermost group around them is parsed again, or the literal when a
+ * single literal was replaced. The nodes above it are copied with the new child, and
+ * so are the nodes whose operators moved; every other node of the previous tree is
+ * kept.
+ * <p>
+ * The trees and the reported errors are the same as from a {@link Parser} on the whole
+ * source. Whenever the previous source had errors, the edit leaves the group it is in,
+ * or the group does not parse, the source is parsed as a whole instead.
+ */
+public class IncrementalParser {
+    private final ErrorLogger logger;
+    private boolean iterative;
+    private EditableTokenBuffer tokens;
+    private Expression tree;
+    private boolean clean;
+    private int reparsed;
+
+    public IncrementalParser(ErrorLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Parses with explicit stacks instead of recursion, see {@link Parser#setIterative}.
+     */
+    public void setIterative(boolean iterative) {
+        this.iterative = iterative;
+    }
+
+    /**
+     * Parses a whole new source.
+     */
+    public Expression parse(String source) {
+        return this.parse(new Lexer(this.logger, source).scanBuffer());
+    }
+
+    /**
+     * Applies the edit to the current source and returns the new tree.
+     */
+    public Expression edit(TextEdit edit) {
+        if (this.tokens == null) throw new IllegalStateException("No source has been parsed yet");
+
+        if (this.clean) {
+            Damage damage = this.tokens.edit(edit);
+            if (damage != null) {
+                Expression tree = this.reparse(damage);
+                if (tree != null) return this.tree = tree;
+
+                // The tokens are right, only the new structure did not fit into the old tree
+                this.logger.setSource(this.tokens.source());
+                return this.parse(this.tokens.toTokenBuffer());
+            }
+        }
+        return this.parse(edit.apply(this.tokens.source()));
+    }
+
+    public Expression tree() {
+        return this.tree;
+    }
+
+    public EditableTokenBuffer tokens() {
+        return this.tokens;
+    }
+
+    public boolean hasErrors() {
+        return !this.clean;
+    }
+
+    /**
+     * Returns the number of tokens parsed for the last parse or edit.
+     */
+    public int reparsedTokens() {
+        return this.reparsed;
+    }
+
+    private Expression parse(TokenBuffer tokens) {
+        Parser parser = new Parser(this.logger, tokens);
+        parser.setIterative(this.iterative);
+        this.tree = parser.parse();
+        this.tokens = new EditableTokenBuffer(tokens);
+        this.clean = !this.logger.hasErrors();
+        this.reparsed = tokens.size();
+        return this.tree;
+    }
+
+    /**
+     * Parses the part of the tree the damage is in again and returns the new tree, or
+     * {@code null} if the whole source has to be parsed.
+     */
+    private Expression reparse(Damage damage) {
+        int first = damage.first();
+        int last = this.tokens.size() - 2;
+        while (last >= 0 && this.tokens.type(last) == SEMICOLON) last--;
+
+        boolean replaced = damage.oldEnd() > first || damage.newEnd() > first;
+        boolean literal = damage.oldEnd() == first + 1 && damage.newEnd() == first + 1
+                && this.tokens.type(first).is(LITERAL) && first <= last;
+
+        // Descend towards the damage and keep the innermost group around it. All token
+        // ranges are of the new tokens, so the operators of the old tree are looked up
+        // where they moved to
+        Expression unit = null;
+        int unitStart = 0;
+        int unitEnd = 0;
+        Expression node = this.tree;
+        int start = 0;
+        int end = last;
+        while (replaced && node != null) {
+            if (node instanceof GroupingExpression && start < first && end >= damage.newEnd()) {
+                unit = node;
+                unitStart = start;
+                unitEnd = end;
+            }
+            if (literal && node instanceof LiteralExpression && start == first && end == first) {
+                unit = node;
+                unitStart = start;
+                unitEnd = end;
+            }
+
+            Expression next = null;
+            switch (node) {
+                case BinaryExpression binary -> {
+                    int operator = this.indexOf(binary.operator, damage);
+                    if (operator < 0) break;
+                    if (this.contains(start, operator - 1, damage, literal)) {
+                        next = binary.left;
+                        end = operator - 1;
+                    } else if (this.contains(operator + 1, end, damage, literal)) {
+                        next = binary.right;
+                        start = operator + 1;
+                    }
+                }
+                case UnaryExpression unary -> {
+                    if (this.contains(start + 1, end, damage, literal)) {
+                        next = unary.expression;
+                        start++;
+                    }
+                }
+                case GroupingExpression grouping -> {
+                    if (this.contains(start + 1, end - 1, damage, literal)) {
+                        next = grouping.expression;
+                        start++;
+                        end--;
+                    }
+                }
+                default -> {}
+            }
+            node = next;
+        }
+        if (replaced && unit == null) return null;
+
+        Expression replacement = null;
+        if (unit != null) {
+            boolean group = unit instanceof GroupingExpression;
+            int from = group ? unitStart + 1 : unitStart;
+            int to = group ? unitEnd : unitEnd + 1;
+            if (from >= to) return null;
+
+            Parser parser = new Parser(new ErrorLogger("edit", diagnostics -> {}), this.tokens.cursor(from, to));
+            parser.setIterative(this.iterative);
+            replacement = parser.parseFragment();
+            if (replacement == null) return null;
+            if (group) replacement = grouping(replacement);
+            this.reparsed = to - from;
+        } else this.reparsed = 0;
+
+        return new Rebuild(damage, unit, unitStart, unitEnd, replacement).run(this.tree, last);
+    }
+
+    /**
+     * Tells whether the token range holds the damage: the literal for a replaced
+     * literal, and otherwise the token before the damage and the token after it.
+     */
+    private boolean contains(int start, int end, Damage damage, boolean literal) {
+        if (literal) return start <= damage.first() && damage.first() <= end;
+        return start <= damage.first() - 1 && end >= damage.newEnd();
+    }
+
+    private int indexOf(Token token, Damage damage) {
+        Token moved = damage.moved(token);
+        return this.tokens.indexOf(moved.line(), moved.column());
+    }
+
+    /**
+     * Copies the nodes above the reparsed one and the nodes whose operator moved, on an
+     * explicit stack so that the depth of the tree is not limited by the thread stack.
+     */
+    private class Rebuild {
+        // Range of a node whose tokens all moved, which is not tracked any further
+        private static final int MOVED = Integer.MIN_VALUE;
+
+        private final Damage damage;
+        private final Expression unit;
+        private final int unitStart;
+        private final int unitEnd;
+        private final Expression replacement;
+
+        // Nodes still to be rebuilt with their token range and how many children are done
+        private Expression[] nodes = new Expression[32];
+        private int[] starts = new int[32];
+        private int[] ends = new int[32];
+        private int[] operators = new int[32];
+        private int[] stages = new int[32];
+        private int size;
+        private Expression[] results = new Expression[32];
+        private int resultCount;
+
+        private Rebuild(Damage damage, Expression unit, int unitStart, int unitEnd, Expression replacement) {
+            this.damage = damage;
+            this.unit = unit;
+            this.unitStart = unitStart;
+            this.unitEnd = unitEnd;
+            this.replacement = replacement;
+        }
+
+        private Expression run(Expression root, int end) {
+            this.push(root, 0, end);
+            while (this.size > 0) {
+                int top = this.size - 1;
+                Expression node = this.nodes[top];
+                int start = this.starts[top];
+                end = this.ends[top];
+
+                if (this.stages[top] == 0 && start != MOVED) {
+                    if (node == this.unit && start == this.unitStart) {
+                        this.pop(this.replacement);
+                        continue;
+                    }
+                    if (!this.isTouched(start, end)) {
+                        this.pop(node);
+                        continue;
+                    }
+                    // All tokens of the node moved, so its operators need not be looked up
+                    if (start >= this.damage.newEnd() && end < this.damage.movedEnd()) this.starts[top] = start = MOVED;
+                }
+
+                boolean moved = start == MOVED;
+                int stage = this.stages[top]++;
+                switch (node) {
+                    case BinaryExpression binary -> {
+                        if (stage == 0) {
+                            int operator = moved ? MOVED : IncrementalParser.this.indexOf(binary.operator, this.damage);
+                            if (operator == -1 && !moved)
+                                throw new IllegalStateException("Operator not found: " + binary.operator);
+                            this.operators[top] = operator;
+                            this.push(binary.left, start, operator - 1);
+                        } else if (stage == 1) this.push(binary.right, moved ? MOVED : this.operators[top] + 1, end);
+                        else {
+                            Expression right = this.results[--this.resultCount];
+                            Expression left = this.results[--this.resultCount];
+                            Token operator = this.operator(binary.operator, this.operators[top]);
+                            this.pop(left == binary.left && right == binary.right && operator == binary.operator
+                                    ? binary : binary(left, operator, right));
+                        }
+                    }
+                    case UnaryExpression unary -> {
+                        if (stage == 0) this.push(unary.expression, moved ? MOVED : start + 1, end);
+                        else {
+                            Expression expression = this.results[--this.resultCount];
+                            Token operator = this.operator(unary.operator, start);
+                            this.pop(expression == unary.expression && operator == unary.operator
+                                    ? unary : unary(operator, expression));
+                        }
+                    }
+                    case GroupingExpression grouping -> {
+                        if (stage == 0) this.push(grouping.expression, moved ? MOVED : start + 1, end - 1);
+                        else {
+                            Expression expression = this.results[--this.resultCount];
+                            this.pop(expression == grouping.expression ? grouping : grouping(expression));
+                        }
+                    }
+                    case LiteralExpression literal -> this.pop(literal);
+                    case ErrorExpression error -> throw new IllegalStateException("A tree with errors is not edited");
+                }
+            }
+            return this.results[0];
+        }
+
+        /**
+         * Tells whether the range holds the reparsed node or a moved token.
+         */
+        private boolean isTouched(int start, int end) {
+            if (this.unit != null && start <= this.unitStart && this.unitEnd <= end) return true;
+            return start < this.damage.movedEnd() && end >= this.damage.newEnd();
+        }
+
+        private Token operator(Token operator, int index) {
+            if (index == MOVED) return this.damage.moved(operator);
+            if (index < this.damage.newEnd() || index >= this.damage.movedEnd()) return operator;
+            return IncrementalParser.this.tokens.token(index);
+        }
+
+        private void push(Expression node, int start, int end) {
+            if (this.size == this.nodes.length) {
+                int capacity = this.size * 2;
+                this.nodes = Arrays.copyOf(this.nodes, capacity);
+                this.starts = Arrays.copyOf(this.starts, capacity);
+                this.ends = Arrays.copyOf(this.ends, capacity);
+                this.operators = Arrays.copyOf(this.operators, capacity);
+                this.stages = Arrays.copyOf(this.stages, capacity);
+            }
+            this.nodes[this.size] = node;
+            this.starts[this.size] = start;
+            this.ends[this.size] = end;
+            this.stages[this.size] = 0;
+            this.size++;
+        }
+
+        /**
+         * Replaces the node on top of the stack by its result.
+         */
+        private void pop(Expression result) {
+            this.nodes[--this.size] = null;
+            if (this.resultCount == this.results.length)
+                this.results = Arrays.copyOf(this.results, this.resultCount * 2);
+            this.results[this.resultCount++] = result;
+        }
+    }
+}
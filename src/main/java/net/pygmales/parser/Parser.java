@@ -1,96 +1,148 @@
 package net.pygmales.parser;
 
 import net.pygmales.lexer.Token;
+import net.pygmales.lexer.TokenBuffer;
+import net.pygmales.lexer.TokenCursor;
 import net.pygmales.lexer.TokenType;
 
 import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.Expression.ErrorExpression;
 import net.pygmales.util.ErrorLogger;
 
-import java.util.List;
+import java.util.Arrays;
 
+import static net.pygmales.lexer.TokenCategory.*;
 import static net.pygmales.lexer.TokenType.*;
 import static net.pygmales.parser.expression.Expression.*;
 
+/**
+ * Pratt parser with panic-mode error recovery. Operator precedence comes from a table
+ * of binding powers indexed by token ordinal, so a new operator only needs an entry
+ * in that table.
+ * <p>
+ * A syntax error does not end the parse: the broken part of the tree becomes an
+ * {@link ErrorExpression}, the parser skips to the next synchronization point and
+ * goes on, so a single pass reports every error. Skipped tokens are never revisited,
+ * which keeps the extra work linear.
+ */
 public class Parser {
+    private static final int SYNCHRONIZATION = CLOSING | STATEMENT;
+
+    // Binding powers of the infix operators by token ordinal, 0 for any other token
+    private static final int[] INFIX_POWERS = new int[TokenType.values().length];
+    private static final int LOWEST_POWER = 1;
+
+    static {
+        bind(EQUALITY_OPERATOR, 1);
+        bind(COMPARISON_OPERATOR, 2);
+        bind(TERM_OPERATOR, 3);
+        bind(FACTOR_OPERATOR, 4);
+    }
+
     private final ErrorLogger logger;
-    private final List<Token> tokens;
-    private int position = 0;
+    private final TokenCursor tokens;
+    private Token lastError;
+    private boolean iterative;
+
+    public Parser(ErrorLogger logger, TokenBuffer tokens) {
+        this(logger, tokens.cursor());
+    }
 
-    public Parser(ErrorLogger logger, List<Token> tokens) {
+    public Parser(ErrorLogger logger, TokenCursor tokens) {
         this.logger = logger;
         this.tokens = tokens;
     }
 
+    /**
+     * Parses with explicit stacks instead of recursion, so that the nesting depth of the
+     * input is only limited by the heap. The trees and the reported errors are the same
+     * in both modes, but the recursive mode is about a third faster on shallow input.
+     */
+    public void setIterative(boolean iterative) {
+        this.iterative = iterative;
+    }
+
+    /**
+     * Parses a single expression, optionally closed by a semicolon. The returned tree
+     * contains {@link ErrorExpression} nodes where errors were found, so check the
+     * logger for errors before using it.
+     */
     public Expression parse() {
+        Expression expression;
         try {
-            return expression();
+            expression = expression();
         } catch (ParseError error) {
-            logger.close();
-            return Expression.literal(-1);
+            synchronize();
+            expression = Expression.error(error.token);
         }
-    }
 
-    private Expression expression() {
-        return equality();
+        if (match(SEMICOLON)) proceed();
+        skipTrailingTokens();
+        logger.close();
+        return expression;
     }
 
-    private Expression equality() {
-        Expression exp = comparison();
-
-        while (match(EQUALITY_OPERATOR_TYPE)) {
-            Token operator = getCurrent();
-            proceed();
-            Expression right = comparison();
-            exp = binary(exp, operator, right);
+    /**
+     * Parses a single expression that has to take up every token, without a semicolon.
+     * Returns {@code null} on the first syntax error instead of recovering from it; the
+     * {@link IncrementalParser} falls back to a full parse in that case.
+     */
+    Expression parseFragment() {
+        try {
+            Expression expression = expression();
+            return isLastToken() && lastError == null ? expression : null;
+        } catch (ParseError error) {
+            return null;
         }
-
-        return exp;
     }
 
-    private Expression comparison() {
-        Expression exp = term();
+    /**
+     * Reports everything after the expression, once for every statement that follows.
+     */
+    private void skipTrailingTokens() {
+        while (!isLastToken()) {
+            if (matchAny(ERROR) || match(SEMICOLON)) {
+                proceed();
+                continue;
+            }
 
-        while (match(COMPARISON_OPERATOR_TYPE)) {
-            Token operator = getCurrent();
+            error(getCurrent(), "unexpected token", "expected the end of the expression");
             proceed();
-            Expression right = term();
-            exp = binary(exp, operator, right);
+            synchronize();
         }
-
-        return exp;
     }
 
-    private Expression term() {
-        Expression exp = factor();
-
-        while (match(TERM_OPERATOR_TYPE)) {
-            Token operator = getCurrent();
-            proceed();
-            Expression right = factor();
-            exp = binary(exp, operator, right);
-        }
-
-        return exp;
+    private Expression expression() {
+        return iterative ? iterativeExpression() : expression(LOWEST_POWER);
     }
 
-    private Expression factor() {
-        Expression exp = unary();
+    private Expression expression(int minPower) {
+        return infix(prefix(), minPower);
+    }
 
-        while (match(FACTOR_OPERATOR_TYPE)) {
+    /**
+     * Extends the left operand with infix operators that bind at least as tightly as
+     * the given power. Operators of the same precedence associate to the left within
+     * the loop, and only an operator that binds tighter than the one before it starts
+     * a nested call, so a flat chain of operators is parsed without recursion.
+     */
+    private Expression infix(Expression left, int minPower) {
+        for (int power = infixPower(); power >= minPower; power = infixPower()) {
             Token operator = getCurrent();
             proceed();
-            Expression right = unary();
-            exp = binary(exp, operator, right);
+            Expression right = prefix();
+            if (infixPower() > power) right = infix(right, power + 1);
+            left = binary(left, operator, right);
         }
 
-        return exp;
+        return left;
     }
 
-    private Expression unary() {
-        if (match(UNARY_OPERATOR_TYPE)) {
+    private Expression prefix() {
+        if (tokens.type().is(UNARY_OPERATOR)) {
             Token operator = getCurrent();
             proceed();
-            Expression right = unary();
+            Expression right = prefix();
 
             return Expression.unary(operator, right);
         }
@@ -99,23 +151,110 @@ public class Parser {
     }
 
     private Expression primary() {
-        if (match(PRIMARY_OPERATOR_TYPE)) {
-            Expression exp = literal(getCurrent().literal());
-            proceed();
-            return exp;
+        if (tokens.type() == LPAR) return group();
+        return operand();
+    }
+
+    /**
+     * Parses a primary expression other than a group.
+     */
+    private Expression operand() {
+        Expression exp;
+        switch (tokens.type()) {
+            case NUMBER -> exp = literal(tokens.number());
+            case STRING -> exp = literal(tokens.literal());
+            case TRUE -> exp = literal(true);
+            case FALSE -> exp = literal(false);
+            case NULL -> exp = literal(null);
+            // Already reported by the lexer
+            case UNKNOWN, UMC_ERROR, US_ERROR -> exp = Expression.error(getCurrent());
+            default -> throw error(getCurrent(), "not an expression", "expression expected");
         }
 
-        if (match(LPAR)) {
-            proceed();
+        proceed();
+        return exp;
+    }
+
+    private Expression group() {
+        proceed();
+        try {
             Expression exp = expression();
             if (consumeOrThrow(RPAR,
                     "unclosed expression",
                     "expression was not properly closed with `)`"))
                 proceed();
             return grouping(exp);
+        } catch (ParseError error) {
+            if (!synchronizeGroup()) throw error;
+            return Expression.error(error.token);
+        }
+    }
+
+    /**
+     * The iterative mode. Operators wait on a stack until an operator that binds less
+     * tightly, or the end of their group, shows that their operands are complete. An
+     * error inside a group is recovered from exactly like in {@link #group()}: the
+     * innermost open group is skipped and replaced by an {@link ErrorExpression}.
+     */
+    private Expression iterativeExpression() {
+        ExpressionStack stack = new ExpressionStack();
+        boolean afterOperand = false;
+        while (true) {
+            try {
+                return shunt(stack, afterOperand);
+            } catch (ParseError error) {
+                if (!stack.inGroup() || !synchronizeGroup()) throw error;
+                stack.dropGroup();
+                stack.pushOperand(Expression.error(error.token));
+                afterOperand = true;
+            }
         }
+    }
+
+    private Expression shunt(ExpressionStack stack, boolean afterOperand) {
+        while (true) {
+            if (!afterOperand) {
+                if (tokens.type().is(UNARY_OPERATOR)) {
+                    stack.pushOperator(getCurrent(), ExpressionStack.PREFIX);
+                    proceed();
+                    continue;
+                }
+                if (tokens.type() == LPAR) {
+                    stack.openGroup();
+                    proceed();
+                    continue;
+                }
+
+                stack.pushOperand(operand());
+                afterOperand = true;
+            }
+
+            stack.reduce(ExpressionStack.PREFIX);
+            int power = infixPower();
+            if (power > 0) {
+                stack.reduce(power);
+                stack.pushOperator(getCurrent(), power);
+                proceed();
+                afterOperand = false;
+                continue;
+            }
+
+            stack.reduce(LOWEST_POWER);
+            if (!stack.inGroup()) return stack.popOperand();
+            if (consumeOrThrow(RPAR,
+                    "unclosed expression",
+                    "expression was not properly closed with `)`"))
+                proceed();
+            stack.closeGroup();
+        }
+    }
 
-        throw error(getNext(), "not an expression", "expression expected");
+    private static void bind(int category, int power) {
+        for (TokenType type : TokenType.values()) if (type.is(category)) INFIX_POWERS[type.ordinal()] = power;
+    }
+
+    private int infixPower() {
+        return INFIX_POWERS[tokens.type().ordinal()];
     }
 
     private boolean consumeOrThrow(TokenType type, String errorName, String errorDescription) {
@@ -124,34 +263,152 @@ public class Parser {
         throw error(getCurrent(), errorName, errorDescription);
     }
 
-    private ParseError error(Token token, String errorName, String errorDescription) {
-        logger.error(token, errorName, errorDescription);
-        return new ParseError();
+    /**
+     * Skips to the next statement boundary or closing delimiter, or to the end.
+     */
+    private void synchronize() {
+        while (!isLastToken() && !matchAny(SYNCHRONIZATION)) proceed();
     }
 
-    private boolean match (TokenType type) {
-        return !isLastToken() && type.equals(getCurrent().type());
+    /**
+     * Skips the rest of a broken group including its closing parenthesis. Returns false
+     * if a statement boundary or the end comes first, so that the error is passed on.
+     */
+    private boolean synchronizeGroup() {
+        int depth = 0;
+        while (!isLastToken()) {
+            if (match(LPAR)) depth++;
+            else if (match(RPAR)) {
+                if (depth-- == 0) {
+                    proceed();
+                    return true;
+                }
+            } else if (matchAny(SYNCHRONIZATION)) return false;
+            proceed();
+        }
+        return false;
     }
 
-    private boolean match(List<TokenType> types) {
-        return !isLastToken () && types.contains(getCurrent().type());
+    private ParseError error(Token token, String errorName, String errorDescription) {
+        // A token that ends one recovery and starts the next is only reported once
+        if (lastError == null || token.line() != lastError.line() || token.column() != lastError.column())
+            logger.error(token, errorName, errorDescription);
+        lastError = token;
+        return new ParseError(token);
+    }
+
+    private boolean match (TokenType type) {
+        return !isLastToken() && type == tokens.type();
     }
 
-    private Token getNext() {
-        return tokens.get(position+1);
+    private boolean matchAny(int categories) {
+        return !isLastToken() && tokens.type().is(categories);
     }
 
     private Token getCurrent() {
-        return tokens.get(position);
+        return tokens.token();
     }
 
     private void proceed() {
-        position++;
+        tokens.advance();
     }
 
     private boolean isLastToken() {
-        return position == tokens.size()-1;
+        return tokens.type() == EOF;
     }
 
-    private static class ParseError extends RuntimeException {}
+    /**
+     * Operand and operator stacks of the iterative mode. An operator is kept with its
+     * binding power; an open group is an operator entry of power 0, so that reducing
+     * never reaches past it.
+     */
+    private static class ExpressionStack {
+        private static final int GROUP = 0;
+        private static final int PREFIX = Integer.MAX_VALUE;
+
+        private Expression[] operands = new Expression[16];
+        private int operandCount;
+        private Token[] operators = new Token[16];
+        private int[] powers = new int[16];
+        private int operatorCount;
+        // Operator index and operand count of every open group, innermost last
+        private int[] groups = new int[16];
+        private int[] groupOperands = new int[16];
+        private int groupCount;
+
+        private void pushOperand(Expression operand) {
+            if (operandCount == operands.length) operands = Arrays.copyOf(operands, operandCount * 2);
+            operands[operandCount++] = operand;
+        }
+
+        private Expression popOperand() {
+            Expression operand = operands[--operandCount];
+            operands[operandCount] = null;
+            return operand;
+        }
+
+        private void pushOperator(Token operator, int power) {
+            if (operatorCount == powers.length) {
+                operators = Arrays.copyOf(operators, operatorCount * 2);
+                powers = Arrays.copyOf(powers, operatorCount * 2);
+            }
+            operators[operatorCount] = operator;
+            powers[operatorCount++] = power;
+        }
+
+        /**
+         * Applies the operators on top of the stack that bind at least as tightly as
+         * the given power. Prefix operators bind tighter than any infix operator.
+         */
+        private void reduce(int minPower) {
+            while (operatorCount > 0 && powers[operatorCount - 1] >= minPower) {
+                Token operator = operators[--operatorCount];
+                operators[operatorCount] = null;
+                Expression right = popOperand();
+                if (powers[operatorCount] == PREFIX) pushOperand(unary(operator, right));
+                else pushOperand(binary(popOperand(), operator, right));
+            }
+        }
+
+        private boolean inGroup() {
+            return groupCount > 0;
+        }
+
+        private void openGroup() {
+            if (groupCount == groups.length) {
+                groups = Arrays.copyOf(groups, groupCount * 2);
+                groupOperands = Arrays.copyOf(groupOperands, groupCount * 2);
+            }
+            groups[groupCount] = operatorCount;
+            groupOperands[groupCount++] = operandCount;
+            pushOperator(null, GROUP);
+        }
+
+        /**
+         * Closes the innermost group around its completely reduced expression.
+         */
+        private void closeGroup() {
+            groupCount--;
+            operatorCount--;
+            pushOperand(grouping(popOperand()));
+        }
+
+        /**
+         * Discards the innermost group together with everything parsed inside it.
+         */
+        private void dropGroup() {
+            groupCount--;
+            while (operatorCount > groups[groupCount]) operators[--operatorCount] = null;
+            while (operandCount > groupOperands[groupCount]) popOperand();
+        }
+    }
+
+    private static class ParseError extends RuntimeException {
+        private final Token token;
+
+        private ParseError(Token token) {
+            super(null, null, false, false);
+            this.token = token;
+        }
+    }
 }
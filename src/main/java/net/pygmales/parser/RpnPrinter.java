@@ -1,46 +1,30 @@
 package net.pygmales.parser;
 
 import net.pygmales.parser.expression.Expression;
-import net.pygmales.parser.expression.ExpressionVisitor;
 
 import java.util.Stack;
 
 import static net.pygmales.parser.expression.Expression.*;
 
-public class RpnPrinter implements ExpressionVisitor<String> {
+public class RpnPrinter implements ExpressionWalker.Listener {
     Stack<String> stack = new Stack<>();
 
     public String print(Expression expression) {
-        expression.accept(this);
+        ExpressionWalker.walkRightToLeft(expression, this);
         return String.join(" ", stack);
     }
 
     @Override
-    public String visitLiteral(LiteralExpression literal) {
-        stack.push(literal.literal.toString());
-        return null;
+    public void enter(Expression expression) {
+        if (expression instanceof LiteralExpression literal) stack.push(String.valueOf(literal.literal));
+        else if (expression instanceof UnaryExpression unary) stack.push(unary.operator.literal().toString());
+        else if (expression instanceof GroupingExpression) stack.push("[");
+        else if (expression instanceof ErrorExpression) stack.push("<error>");
     }
 
     @Override
-    public String visitBinary(BinaryExpression binary) {
-        binary.right.accept(this);
-        binary.left.accept(this);
-        stack.push(binary.operator.literal().toString());
-        return null;
-    }
-
-    @Override
-    public String visitUnary(UnaryExpression unary) {
-        stack.push(unary.operator.literal().toString());
-        unary.expression.accept(this);
-        return null;
-    }
-
-    @Override
-    public String visitGrouping(GroupingExpression grouping) {
-        stack.push("[");
-        grouping.expression.accept(this);
-        stack.push("]");
-        return null;
+    public void leave(Expression expression) {
+        if (expression instanceof BinaryExpression binary) stack.push(binary.operator.literal().toString());
+        else if (expression instanceof GroupingExpression) stack.push("]");
     }
 }
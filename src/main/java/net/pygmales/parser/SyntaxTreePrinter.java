@@ -2,79 +2,90 @@ package net.pygmales.parser;
 
 import net.pygmales.parser.expression.Expression;
 import net.pygmales.parser.expression.Expression.*;
-import net.pygmales.parser.expression.ExpressionVisitor;
 import net.pygmales.util.ErrorLogger;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.IntStream;
 
-public class SyntaxTreePrinter implements ExpressionVisitor<String> {
+public class SyntaxTreePrinter implements ExpressionWalker.Listener {
+    private final StringBuilder builder = new StringBuilder();
     private int depth = -1;
     private final Set<Integer> binaryAtLevel = new HashSet<>();
-    private boolean isBinary = false;
+    // The nodes with children on the path to the current node, and how many children each has left
+    private final Deque<Expression> parents = new ArrayDeque<>();
+    private final Deque<Integer> remainingChildren = new ArrayDeque<>();
 
     public String print(Expression root) {
-        return root.accept(this);
+        this.builder.setLength(0);
+        ExpressionWalker.walk(root, this);
+        return this.builder.toString();
     }
 
     @Override
-    public String visitLiteral(LiteralExpression literal) {
-        return ErrorLogger.red(literal.literal.toString()) + "\n";
+    public void enter(Expression expression) {
+        if (!this.parents.isEmpty()) this.branch(expression);
+
+        if (expression instanceof BinaryExpression binary) {
+            this.binaryAtLevel.add(++this.depth);
+            this.nest(binary.operator.literal().toString(), binary, 2);
+        } else if (expression instanceof UnaryExpression unary) {
+            this.depth++;
+            this.nest(unary.operator.literal().toString(), unary, 1);
+        } else if (expression instanceof GroupingExpression grouping) {
+            this.depth++;
+            this.nest("()", grouping, 1);
+        } else if (expression instanceof LiteralExpression literal) {
+            this.builder.append(ErrorLogger.red(String.valueOf(literal.literal))).append("\n");
+        } else {
+            this.builder.append(ErrorLogger.red("<error>")).append("\n");
+        }
     }
 
     @Override
-    public String visitBinary(BinaryExpression binary) {
-        this.binaryAtLevel.add(++this.depth);
-        this.isBinary = true;
-        return this.nest(binary.operator.literal().toString(), binary.left, binary.right);
-    }
+    public void leave(Expression expression) {
+        if (expression instanceof LiteralExpression || expression instanceof ErrorExpression) return;
 
-    @Override
-    public String visitUnary(UnaryExpression unary) {
-        this.depth++;
-        return this.nest(unary.operator.literal().toString(), unary.expression);
-    }
-
-    @Override
-    public String visitGrouping(Expression.GroupingExpression grouping) {
-        this.depth++;
-        return this.nest("()", grouping.expression);
+        this.parents.pop();
+        this.remainingChildren.pop();
+        this.depth--;
     }
 
-    private String nest(String literal, Expression... expressions) {
-        StringBuilder builder = new StringBuilder();
+    private void nest(String literal, Expression expression, int children) {
+        this.builder.append(ErrorLogger.yellow(literal));
+        this.builder.append("\n");
 
-        builder.append(ErrorLogger.yellow(literal));
-        builder.append("\n");
-
-        int binaryTrailLevel = -1;
-        if (this.isBinary) binaryTrailLevel = this.depth;
-
-        this.intend(builder);
-        builder.append("┃\n");
-        for (Expression exp : expressions) {
-            this.intend(builder);
-            if (this.isBinary) builder.append("┣");
-            else builder.append("┗");
-            builder.append("━▶ ");
-            this.isBinary = false;
-
-            if (exp.equals(expressions[expressions.length-1])) {
-                if (binaryTrailLevel >= 0) this.binaryAtLevel.remove(binaryTrailLevel);
-            }
-
-            builder.append(exp.accept(this));
-        }
+        this.intend();
+        this.builder.append("┃\n");
+        this.parents.push(expression);
+        this.remainingChildren.push(children);
+    }
 
-        this.depth--;
-        return builder.toString();
+    /**
+     * Draws the branch from the parent to the child about to be printed. Only the first
+     * child of a binary operation branches off sideways; the vertical line of a binary
+     * operation ends at its last child.
+     */
+    private void branch(Expression child) {
+        Expression parent = this.parents.peek();
+        int remaining = this.remainingChildren.pop();
+        this.remainingChildren.push(remaining - 1);
+
+        this.intend();
+        if (parent instanceof BinaryExpression && remaining == 2) this.builder.append("┣");
+        else this.builder.append("┗");
+        this.builder.append("━▶ ");
+
+        if (parent instanceof BinaryExpression binary && child == binary.right)
+            this.binaryAtLevel.remove(this.depth);
     }
 
-    private void intend(StringBuilder builder) {
+    private void intend() {
         IntStream.range(0, this.depth).forEach(i -> {
-            if (this.binaryAtLevel.contains(i)) builder.append("┃\t");
-            else builder.append("\t");
+            if (this.binaryAtLevel.contains(i)) this.builder.append("┃\t");
+            else this.builder.append("\t");
         });
     }
 }
@@ -0,0 +1,83 @@
+package net.pygmales.parser.binary;
+
+import net.pygmales.lexer.TokenType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Layout of a precompiled expression file. All values are big-endian.
+ * <pre>
+ * header    int magic, short format version, short 0, long scheme hash,
+ *           int source name (string index or -1), long source length,
+ *           int number count, int string count, int string chars, int token count,
+ *           int node count, int node bytes
+ * numbers   double[number count]
+ * strings   (int char offset, int char length)[string count], char[string chars]
+ * tokens    (byte type, int line, int column, int literal)[token count], where the
+ *           literal is a number index for numbers, a string index for other tokens
+ *           whose literal is not their own spelling, and -1 otherwise
+ * nodes     the tree in postorder, one opcode byte per node with an int operand for
+ *           number and string literals (a pool index), operators and errors (a token index)
+ * </pre>
+ * The scheme hash is derived from {@code scheme.exp} and the names of the token types
+ * in declaration order, so regenerating the expression classes or adding, removing or
+ * reordering a token type invalidates every file written before. Token types are
+ * stored as ordinals, which would otherwise silently read back as other types.
+ */
+public final class AstFormat {
+    public static final String EXTENSION = ".phlc";
+
+    static final int MAGIC = 0x50484C41;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 52;
+    static final int STRING_ENTRY_SIZE = 8;
+    static final int TOKEN_SIZE = 13;
+    static final long SCHEME_HASH = schemeHash();
+
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte NUMBER = 3;
+    static final byte STRING = 4;
+    static final byte BINARY = 5;
+    static final byte UNARY = 6;
+    static final byte GROUPING = 7;
+    static final byte ERROR = 8;
+
+    private AstFormat() {}
+
+    public static boolean isPrecompiled(String fileName) {
+        return fileName.endsWith(EXTENSION);
+    }
+
+    /**
+     * Returns where the precompiled form of a source file is written: next to it,
+     * with the {@code .phl} extension replaced.
+     */
+    public static Path precompiledPath(Path source) {
+        String name = source.getFileName().toString();
+        return source.resolveSibling(name.replaceFirst("\\.phl$", "") + EXTENSION);
+    }
+
+    private static long schemeHash() {
+        try (InputStream scheme = AstFormat.class.getResourceAsStream("/scheme.exp")) {
+            if (scheme == null) throw new IllegalStateException("scheme.exp is missing from the classpath");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(scheme.readAllBytes());
+            for (TokenType type : TokenType.values())
+                digest.update((type.name() + '\n').getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest.digest()).getLong();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+}
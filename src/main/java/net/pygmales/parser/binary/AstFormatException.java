@@ -0,0 +1,13 @@
+package net.pygmales.parser.binary;
+
+import java.io.IOException;
+
+/**
+ * Thrown when data is not a precompiled tree, or one written for another version of
+ * the format or of {@code scheme.exp}.
+ */
+public class AstFormatException extends IOException {
+    public AstFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,206 @@
+package net.pygmales.parser.binary;
+
+import net.pygmales.lexer.Token;
+import net.pygmales.lexer.TokenCategory;
+import net.pygmales.lexer.TokenType;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionArena;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static net.pygmales.parser.binary.AstFormat.*;
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Reads a tree in the {@link AstFormat} straight from a buffer, usually a mapped
+ * file. Strings are slices of the buffer until a literal needs them as a
+ * {@link String}, and each pooled string is only turned into one once.
+ */
+public class AstReader {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final ByteBuffer buffer;
+    private final int sourceName;
+    private final long sourceLength;
+    private final int numberCount;
+    private final int stringCount;
+    private final int tokenCount;
+    private final int nodeCount;
+    private final int numbersStart;
+    private final int stringsStart;
+    private final CharBuffer chars;
+    private final int tokensStart;
+    private final int nodesStart;
+    private final int nodesEnd;
+    private final String[] strings;
+
+    public AstReader(ByteBuffer buffer) throws AstFormatException {
+        this.buffer = buffer.slice();
+        try {
+            if (this.buffer.getInt(0) != MAGIC) throw new AstFormatException("Not a precompiled pathl file");
+            if (this.buffer.getShort(4) != VERSION) throw new AstFormatException("Unsupported precompiled format version");
+            if (this.buffer.getLong(8) != SCHEME_HASH)
+                throw new AstFormatException("Precompiled for another version of the syntax tree, compile it again");
+
+            this.sourceName = this.buffer.getInt(16);
+            this.sourceLength = this.buffer.getLong(20);
+            this.numberCount = this.buffer.getInt(28);
+            this.stringCount = this.buffer.getInt(32);
+            int charCount = this.buffer.getInt(36);
+            this.tokenCount = this.buffer.getInt(40);
+            this.nodeCount = this.buffer.getInt(44);
+            int nodeBytes = this.buffer.getInt(48);
+
+            this.numbersStart = HEADER_SIZE;
+            this.stringsStart = this.numbersStart + this.numberCount * Double.BYTES;
+            int charsStart = this.stringsStart + this.stringCount * STRING_ENTRY_SIZE;
+            this.chars = this.buffer.slice(charsStart, charCount * Character.BYTES).asCharBuffer();
+            this.tokensStart = charsStart + charCount * Character.BYTES;
+            this.nodesStart = this.tokensStart + this.tokenCount * TOKEN_SIZE;
+            this.nodesEnd = this.nodesStart + nodeBytes;
+            if (this.nodesEnd > this.buffer.limit()) throw new AstFormatException("Truncated precompiled file");
+        } catch (IndexOutOfBoundsException | IllegalArgumentException exception) {
+            throw new AstFormatException("Truncated precompiled file");
+        }
+        this.strings = new String[this.stringCount];
+    }
+
+    /**
+     * Maps the file and reads it in place. The mapping stays valid after the file
+     * is closed.
+     */
+    public static AstReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            return new AstReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public String sourceName() {
+        return this.sourceName < 0 ? null : this.string(this.sourceName);
+    }
+
+    public long sourceLength() {
+        return this.sourceLength;
+    }
+
+    public int nodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Returns the pooled string as a view of the buffer, without copying it.
+     */
+    public CharSequence stringSlice(int index) {
+        int entry = this.stringsStart + index * STRING_ENTRY_SIZE;
+        int offset = this.buffer.getInt(entry);
+        return this.chars.subSequence(offset, offset + this.buffer.getInt(entry + 4));
+    }
+
+    /**
+     * Rebuilds the tree. Nodes are stored in postorder, so the tree is assembled on an
+     * explicit stack without recursion.
+     */
+    public Expression read() throws AstFormatException {
+        try {
+            Expression[] stack = new Expression[16];
+            int size = 0;
+            ByteBuffer nodes = this.buffer.slice(this.nodesStart, this.nodesEnd - this.nodesStart);
+            for (int i = 0; i < this.nodeCount; i++) {
+                if (size == stack.length) stack = Arrays.copyOf(stack, size * 2);
+
+                switch (nodes.get()) {
+                    case NULL -> stack[size++] = literal(null);
+                    case TRUE -> stack[size++] = literal(true);
+                    case FALSE -> stack[size++] = literal(false);
+                    case NUMBER -> stack[size++] = literal(this.number(nodes.getInt()));
+                    case STRING -> stack[size++] = literal(this.string(nodes.getInt()));
+                    case BINARY -> {
+                        Token operator = this.token(nodes.getInt());
+                        Expression right = stack[--size];
+                        stack[size - 1] = binary(stack[size - 1], operator, right);
+                    }
+                    case UNARY -> stack[size - 1] = unary(this.token(nodes.getInt()), stack[size - 1]);
+                    case GROUPING -> stack[size - 1] = grouping(stack[size - 1]);
+                    case ERROR -> stack[size++] = error(this.token(nodes.getInt()));
+                    default -> throw new AstFormatException("Corrupt precompiled file");
+                }
+            }
+            if (size != 1) throw new AstFormatException("Corrupt precompiled file");
+            return stack[0];
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException exception) {
+            throw new AstFormatException("Corrupt precompiled file");
+        }
+    }
+
+    /**
+     * Reads the tree into an {@link ExpressionArena} instead of objects. The nodes keep
+     * their postorder, so the root is the last node of the arena.
+     */
+    public ExpressionArena readArena() throws AstFormatException {
+        try {
+            ExpressionArena arena = new ExpressionArena(this.nodeCount);
+            int[] stack = new int[16];
+            int size = 0;
+            ByteBuffer nodes = this.buffer.slice(this.nodesStart, this.nodesEnd - this.nodesStart);
+            for (int i = 0; i < this.nodeCount; i++) {
+                if (size == stack.length) stack = Arrays.copyOf(stack, size * 2);
+
+                switch (nodes.get()) {
+                    case NULL -> stack[size++] = arena.addLiteral(null);
+                    case TRUE -> stack[size++] = arena.addLiteral(true);
+                    case FALSE -> stack[size++] = arena.addLiteral(false);
+                    case NUMBER -> stack[size++] = arena.addLiteral(this.number(nodes.getInt()));
+                    case STRING -> stack[size++] = arena.addLiteral(this.string(nodes.getInt()));
+                    case BINARY -> {
+                        Token operator = this.token(nodes.getInt());
+                        int right = stack[--size];
+                        stack[size - 1] = arena.addBinary(stack[size - 1], operator, right);
+                    }
+                    case UNARY -> stack[size - 1] = arena.addUnary(this.token(nodes.getInt()), stack[size - 1]);
+                    case GROUPING -> stack[size - 1] = arena.addGrouping(stack[size - 1]);
+                    case ERROR -> stack[size++] = arena.addError(this.token(nodes.getInt()));
+                    default -> throw new AstFormatException("Corrupt precompiled file");
+                }
+            }
+            if (size != 1) throw new AstFormatException("Corrupt precompiled file");
+            return arena;
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException exception) {
+            throw new AstFormatException("Corrupt precompiled file");
+        }
+    }
+
+    private double number(int index) {
+        if (index < 0 || index >= this.numberCount) throw new IndexOutOfBoundsException(index);
+        return this.buffer.getDouble(this.numbersStart + index * Double.BYTES);
+    }
+
+    private String string(int index) {
+        if (this.strings[index] == null) this.strings[index] = this.stringSlice(index).toString();
+        return this.strings[index];
+    }
+
+    private Token token(int index) {
+        if (index < 0 || index >= this.tokenCount) throw new IndexOutOfBoundsException(index);
+        int offset = this.tokensStart + index * TOKEN_SIZE;
+        TokenType type = TYPES[this.buffer.get(offset)];
+        int literal = this.buffer.getInt(offset + 9);
+        return new Token(type, this.tokenLiteral(type, literal), this.buffer.getInt(offset + 1),
+                this.buffer.getInt(offset + 5));
+    }
+
+    /**
+     * Returns the literal of a token from its pool index, or the literal its type
+     * implies: nothing for EOF and error tokens, the spelling for all others.
+     */
+    private Object tokenLiteral(TokenType type, int index) {
+        if (index >= 0) return type == TokenType.NUMBER ? this.number(index) : this.string(index);
+        return type == TokenType.EOF || type.is(TokenCategory.ERROR) ? null : type.toString();
+    }
+}
@@ -0,0 +1,176 @@
+package net.pygmales.parser.binary;
+
+import net.pygmales.lexer.Token;
+import net.pygmales.parser.ExpressionWalker;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionVisitor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.*;
+import static net.pygmales.parser.binary.AstFormat.*;
+import static net.pygmales.parser.expression.Expression.*;
+
+/**
+ * Writes an expression in the {@link AstFormat}. Numbers and strings are pooled, so
+ * every distinct literal is stored once. The tree is walked without recursion.
+ */
+public class AstWriter implements ExpressionVisitor<Void> {
+    private final List<Double> numbers = new ArrayList<>();
+    private final Map<Double, Integer> numberIndices = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+    private final List<Token> tokens = new ArrayList<>();
+    private ByteBuffer nodes = ByteBuffer.allocate(256);
+    private int nodeCount;
+
+    private AstWriter() {}
+
+    /**
+     * @param sourceName   the name of the compiled source, or {@code null}
+     * @param sourceLength the length of the compiled source in characters
+     */
+    public static ByteBuffer write(Expression expression, String sourceName, long sourceLength) {
+        AstWriter writer = new AstWriter();
+        int name = sourceName != null ? writer.string(sourceName) : -1;
+        ExpressionWalker.postorder(expression, writer);
+        return writer.toBuffer(name, sourceLength);
+    }
+
+    public static void write(Expression expression, String sourceName, long sourceLength, Path file) throws IOException {
+        ByteBuffer buffer = write(expression, sourceName, sourceLength);
+        try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    @Override
+    public Void visitLiteral(LiteralExpression literal) {
+        switch (literal.literal) {
+            case null -> this.node(NULL);
+            case Number number -> this.node(NUMBER, this.number(number.doubleValue()));
+            case String string -> this.node(STRING, this.string(string));
+            case Boolean bool -> this.node(bool ? TRUE : FALSE);
+            default -> throw new IllegalArgumentException("Unknown literal: " + literal.literal);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinary(BinaryExpression binary) {
+        this.node(BINARY, this.token(binary.operator));
+        return null;
+    }
+
+    @Override
+    public Void visitUnary(UnaryExpression unary) {
+        this.node(UNARY, this.token(unary.operator));
+        return null;
+    }
+
+    @Override
+    public Void visitGrouping(GroupingExpression grouping) {
+        this.node(GROUPING);
+        return null;
+    }
+
+    @Override
+    public Void visitError(ErrorExpression error) {
+        this.node(ERROR, this.token(error.token));
+        return null;
+    }
+
+    private int number(double value) {
+        return this.numberIndices.computeIfAbsent(value, number -> {
+            this.numbers.add(number);
+            return this.numbers.size() - 1;
+        });
+    }
+
+    private int string(String value) {
+        return this.stringIndices.computeIfAbsent(value, string -> {
+            this.strings.add(string);
+            return this.strings.size() - 1;
+        });
+    }
+
+    private int token(Token token) {
+        this.tokens.add(token);
+        return this.tokens.size() - 1;
+    }
+
+    /**
+     * Pools the literal of a token that is not the token's spelling, like the lexeme
+     * of an unknown symbol that ended up in an error node.
+     */
+    private int literal(Token token) {
+        return switch (token.literal()) {
+            case Number number -> this.number(number.doubleValue());
+            case String string when !string.equals(token.type().toString()) -> this.string(string);
+            case null, default -> -1;
+        };
+    }
+
+    private void node(byte opcode) {
+        this.ensure(1);
+        this.nodes.put(opcode);
+        this.nodeCount++;
+    }
+
+    private void node(byte opcode, int operand) {
+        this.ensure(5);
+        this.nodes.put(opcode).putInt(operand);
+        this.nodeCount++;
+    }
+
+    private void ensure(int bytes) {
+        if (this.nodes.remaining() >= bytes) return;
+
+        ByteBuffer grown = ByteBuffer.allocate(this.nodes.capacity() + (this.nodes.capacity() >> 1) + bytes);
+        this.nodes.flip();
+        this.nodes = grown.put(this.nodes);
+    }
+
+    private ByteBuffer toBuffer(int sourceName, long sourceLength) {
+        // Pooled before the pools are sized
+        int[] literals = new int[this.tokens.size()];
+        for (int i = 0; i < literals.length; i++) literals[i] = this.literal(this.tokens.get(i));
+
+        int chars = 0;
+        for (String string : this.strings) chars += string.length();
+
+        int size = HEADER_SIZE + this.numbers.size() * Double.BYTES + this.strings.size() * STRING_ENTRY_SIZE
+                + chars * Character.BYTES + this.tokens.size() * TOKEN_SIZE + this.nodes.position();
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).putLong(SCHEME_HASH)
+                .putInt(sourceName).putLong(sourceLength)
+                .putInt(this.numbers.size()).putInt(this.strings.size()).putInt(chars).putInt(this.tokens.size())
+                .putInt(this.nodeCount).putInt(this.nodes.position());
+
+        for (double number : this.numbers) buffer.putDouble(number);
+
+        int offset = 0;
+        for (String string : this.strings) {
+            buffer.putInt(offset).putInt(string.length());
+            offset += string.length();
+        }
+        for (String string : this.strings)
+            for (int i = 0; i < string.length(); i++) buffer.putChar(string.charAt(i));
+
+        for (int i = 0; i < this.tokens.size(); i++) {
+            Token token = this.tokens.get(i);
+            buffer.put((byte) token.type().ordinal()).putInt(token.line()).putInt(token.column())
+                    .putInt(literals[i]);
+        }
+
+        buffer.put(this.nodes.flip());
+        return buffer.flip();
+    }
+}
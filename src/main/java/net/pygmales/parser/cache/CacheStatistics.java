@@ -0,0 +1,14 @@
+package net.pygmales.parser.cache;
+
+/**
+ * A snapshot of the counters of a {@link ParseCache}. Disk hits are lookups that
+ * missed the memory layer but were loaded from the cache directory; they are not
+ * counted as misses.
+ */
+public record CacheStatistics(long hits, long diskHits, long misses, long evictions, int entries, long weight) {
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d disk hits, %d misses, %d evictions, %d entries of weight %d",
+                this.hits, this.diskHits, this.misses, this.evictions, this.entries, this.weight);
+    }
+}
@@ -0,0 +1,167 @@
+package net.pygmales.parser.cache;
+
+import net.pygmales.parser.binary.AstFormat;
+import net.pygmales.parser.binary.AstReader;
+import net.pygmales.parser.binary.AstWriter;
+import net.pygmales.parser.expression.Expression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of parsed expressions keyed by the SHA-256 hash of their source. The memory
+ * layer is an LRU bounded both by its number of entries and by the total weight of
+ * the entries, where the weight of an entry is the length of its source. With a
+ * cache directory, every stored expression is also written to a file named after its
+ * key in the {@link AstFormat}, so that the trees survive the process.
+ * <p>
+ * Only trees that parsed without errors should be stored, since a cached tree skips
+ * the front end and with it the reports of lexing and parsing errors.
+ */
+public class ParseCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    public static final long DEFAULT_MAX_WEIGHT = 64L << 20;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Path directory;
+
+    private long weight;
+    private long hits;
+    private long diskHits;
+    private long misses;
+    private long evictions;
+
+    private record Entry(Expression expression, long weight) {}
+
+    public ParseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT, null);
+    }
+
+    public ParseCache(Path directory) {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT, directory);
+    }
+
+    /**
+     * @param directory the directory of the disk layer, or {@code null} to keep the
+     *                  trees in memory only
+     */
+    public ParseCache(int maxEntries, long maxWeight, Path directory) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.directory = directory;
+    }
+
+    public static String key(String source) {
+        MessageDigest digest = digest();
+        digest.update(source.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String key(Path file) throws IOException {
+        MessageDigest digest = digest();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read; (read = in.read(buffer)) != -1; ) digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the tree stored under the key, or {@code null} if neither layer has it.
+     */
+    public synchronized Expression get(String key) {
+        Entry entry = this.entries.get(key);
+        if (entry != null) {
+            this.hits++;
+            return entry.expression;
+        }
+
+        entry = this.load(key);
+        if (entry == null) {
+            this.misses++;
+            return null;
+        }
+
+        this.diskHits++;
+        this.remember(key, entry);
+        return entry.expression;
+    }
+
+    public synchronized void put(String key, Expression expression, long weight) {
+        Entry entry = new Entry(expression, weight);
+        this.remember(key, entry);
+        this.store(key, entry);
+    }
+
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(this.hits, this.diskHits, this.misses, this.evictions,
+                this.entries.size(), this.weight);
+    }
+
+    private void remember(String key, Entry entry) {
+        Entry previous = this.entries.put(key, entry);
+        if (previous != null) this.weight -= previous.weight;
+        this.weight += entry.weight;
+
+        Iterator<Map.Entry<String, Entry>> eldest = this.entries.entrySet().iterator();
+        while (this.entries.size() > 1 && (this.entries.size() > this.maxEntries || this.weight > this.maxWeight)) {
+            this.weight -= eldest.next().getValue().weight;
+            eldest.remove();
+            this.evictions++;
+        }
+    }
+
+    private Entry load(String key) {
+        if (this.directory == null) return null;
+
+        Path file = this.directory.resolve(key + AstFormat.EXTENSION);
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            AstReader reader = AstReader.open(file);
+            return new Entry(reader.read(), reader.sourceLength());
+        } catch (IOException exception) {
+            // A file of another format or scheme version is just a miss, the next put replaces it
+            return null;
+        }
+    }
+
+    /**
+     * Writes the entry to a temporary file first, so that concurrent processes never
+     * read a partially written entry.
+     */
+    private void store(String key, Entry entry) {
+        if (this.directory == null) return;
+
+        Path temporary = null;
+        try {
+            Files.createDirectories(this.directory);
+            temporary = Files.createTempFile(this.directory, key, ".tmp");
+            AstWriter.write(entry.expression, null, entry.weight, temporary);
+            Files.move(temporary, this.directory.resolve(key + AstFormat.EXTENSION),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            // The disk layer is only an optimization, the tree stays in memory
+            if (temporary != null) temporary.toFile().delete();
+        }
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+}
@@ -1,8 +0,0 @@
-package net.pygmales.parser.expression;
-
-import net.pygmales.lexer.Token;
-
-import static net.pygmales.parser.expression.Expression.*;
-
-public interface Container {
-}
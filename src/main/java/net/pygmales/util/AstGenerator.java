@@ -15,9 +15,11 @@ public class AstGenerator {
     private static final Path EXPRESSION_PATH = Path.of("./src/main/generated/net/pygmales/parser/expression/Expression.java");
     private static final Path CONTAINER_PATH = Path.of("./src/main/generated/net/pygmales/parser/expression/Container.java");
     private static final Path VISITOR_PATH = Path.of("./src/main/generated/net/pygmales/parser/expression/ExpressionVisitor.java");
+    private static final Path ARENA_PATH = Path.of("./src/main/generated/net/pygmales/parser/expression/ExpressionArena.java");
 
     private static final String OPERATOR = "Operator";
     private static final String LITERAL = "Literal";
+    private static final String TOKEN = "Token";
     private static final String EXPRESSION = "Expression";
 
     private static final Map<String, List<String>> CONTAINERS = new HashMap<>();
@@ -46,11 +48,13 @@ public class AstGenerator {
         cont_writer.write("public interface Container {\n");
         visitor_writer.write("public interface ExpressionVisitor<R> {\n");
 
-        for (SchemeParser parser : generateParsers(reader)) {
+        List<SchemeParser> parsers = generateParsers(reader);
+        for (SchemeParser parser : parsers) {
             addVisitMethod(visitor_writer, parser);
             addExpressionClass(exp_writer, parser);
             addExpressionFactory(exp_writer, parser);
         }
+        addDispatchMethod(exp_writer, parsers);
 
         addContainers(cont_writer);
 
@@ -61,6 +65,10 @@ public class AstGenerator {
         visitor_writer.close();
         cont_writer.close();
         exp_writer.close();
+
+        try (FileWriter arena_writer = new FileWriter(ARENA_PATH.toFile())) {
+            addArena(arena_writer, parsers);
+        }
     }
 
     private static List<SchemeParser> generateParsers(BufferedReader reader) throws IOException {
@@ -75,15 +83,14 @@ public class AstGenerator {
     }
 
     private static void addExpressionInterfaceFields(FileWriter writer) throws IOException {
-        writer.write("public interface Expression {\n");
+        writer.write("public sealed interface Expression {\n");
         writer.write("\t<R> R accept(ExpressionVisitor<R> visitor);\n\n");
     }
 
     private static void addExpressionHeaders(Writer writer) throws IOException {
         writer.write("package net.pygmales.parser.expression;\n\n");
-        writer.write("import java.util.List;\n");
         writer.write("import net.pygmales.lexer.Token;\n\n");
-        writer.write("import static net.pygmales.lexer.TokenType.*;\n");
+        writer.write("import static net.pygmales.lexer.TokenCategory.*;\n");
         writer.write("import static net.pygmales.parser.expression.Container.*;\n\n");
     }
 
@@ -116,7 +123,7 @@ public class AstGenerator {
 
     private static void addExpressionClass(Writer writer, SchemeParser parser) throws IOException {
         // Class definition
-        writer.write(String.format("\tclass %s%s implements %s {\n", parser.className, EXPRESSION, EXPRESSION));
+        writer.write(String.format("\tfinal class %s%s implements %s {\n", parser.className, EXPRESSION, EXPRESSION));
 
         // Class fields
         for (String field : parser.fields) writer.write(getClassField(field));
@@ -138,7 +145,7 @@ public class AstGenerator {
         writer.write("\t\t@Override\n\t\tpublic String toString() {\n");
         writer.write(String.format("\t\t\treturn \"%s[\" + %s + \"]\";\n\t\t}\n",
                 parser.className, parser.fields.stream().map(AstGenerator::getFieldName)
-                .map(name -> String.format("%s.toString()", name))
+                .map(name -> String.format("String.valueOf(%s)", name))
                 .collect(Collectors.joining(" + \", \"\n\t\t\t\t\t + "))));
 
         writer.write("\t}\n\n");
@@ -153,7 +160,7 @@ public class AstGenerator {
         boolean typeCheck = parser.fields.stream().anyMatch(field -> field.equals(OPERATOR));
 
         if (typeCheck)
-            writer.write(String.format("\t\tif (%s_OPERATOR_TYPE.contains(operator.type()))\n", parser.className.toUpperCase()));
+            writer.write(String.format("\t\tif (operator.type().is(%s_OPERATOR))\n", parser.className.toUpperCase()));
 
         // Return statement
         if (typeCheck) writer.write("\t");
@@ -162,9 +169,210 @@ public class AstGenerator {
 
         // Exception for an incorrect Token type
         if (typeCheck)
-            writer.write("\t\tthrow new IllegalArgumentException(\"Provided token cannot be used in literal expression!\");\n");
+            writer.write(String.format("\t\tthrow new IllegalArgumentException(\"Provided token cannot be used in %s expression!\");\n",
+                    parser.className.toLowerCase()));
+
+        writer.write("\t}\n\n");
+    }
+
+    private static void addDispatchMethod(Writer writer, List<SchemeParser> parsers) throws IOException {
+        writer.write("\t/**\n");
+        writer.write("\t * Calls the visit method for the class of the expression through a switch over the\n");
+        writer.write("\t * sealed hierarchy instead of the virtual {@link #accept(ExpressionVisitor)}. Inlined\n");
+        writer.write("\t * into a visitor that passes itself, every call site stays monomorphic.\n");
+        writer.write("\t */\n");
+        writer.write("\tstatic <R> R dispatch(Expression expression, ExpressionVisitor<R> visitor) {\n");
+        writer.write("\t\treturn switch (expression) {\n");
+        for (SchemeParser parser : parsers)
+            writer.write(String.format("\t\t\tcase %sExpression %s -> visitor.visit%s(%s);\n", parser.className,
+                    parser.className.toLowerCase(), parser.className, parser.className.toLowerCase()));
+        writer.write("\t\t};\n\t}\n");
+    }
+
+    private static void addArena(Writer writer, List<SchemeParser> parsers) throws IOException {
+        if (!CONTAINERS.isEmpty())
+            throw new IllegalStateException("Expressions with containers cannot be stored in the arena");
+        int slots = parsers.stream().mapToInt(parser -> parser.fields.size()).max().orElse(0);
 
+        writer.write("package net.pygmales.parser.expression;\n\n");
+        writer.write("import java.util.Arrays;\n");
+        writer.write("import java.util.Objects;\n");
+        writer.write("import net.pygmales.lexer.Token;\n");
+        writer.write("import net.pygmales.lexer.TokenCategory;\n");
+        writer.write("import net.pygmales.parser.ExpressionWalker;\n\n");
+        writer.write("import static net.pygmales.parser.expression.Expression.*;\n\n");
+
+        writer.write("/**\n");
+        writer.write(" * Flat storage of expression trees. A node is its kind and a fixed number of int\n");
+        writer.write(" * slots, holding the index of a child node, of a token or of a literal. Nodes are\n");
+        writer.write(" * only added after their children, so a pass over the nodes in index order meets\n");
+        writer.write(" * every child before its parent.\n");
+        writer.write(" */\n");
+        writer.write("public final class ExpressionArena {\n");
+        for (int kind = 0; kind < parsers.size(); kind++)
+            writer.write(String.format("\tpublic static final int %s = %d;\n", parsers.get(kind).className.toUpperCase(), kind));
+        writer.write(String.format("\n\tprivate static final int SLOTS = %d;\n\n", slots));
+
+        writer.write("\tprivate int[] kinds;\n");
+        writer.write("\tprivate int[] slots;\n");
+        writer.write("\tprivate Token[] tokens = new Token[16];\n");
+        writer.write("\tprivate Object[] literals = new Object[16];\n");
+        writer.write("\tprivate int size;\n");
+        writer.write("\tprivate int tokenCount;\n");
+        writer.write("\tprivate int literalCount;\n\n");
+
+        writer.write("\tpublic ExpressionArena() {\n\t\tthis(16);\n\t}\n\n");
+        writer.write("\tpublic ExpressionArena(int capacity) {\n");
+        writer.write("\t\tthis.kinds = new int[Math.max(capacity, 1)];\n");
+        writer.write("\t\tthis.slots = new int[this.kinds.length * SLOTS];\n");
         writer.write("\t}\n\n");
+
+        // Conversion from a tree of objects
+        writer.write("\t/**\n\t * Copies the tree into a new arena, with its root as the last node.\n\t */\n");
+        writer.write("\tpublic static ExpressionArena of(Expression root) {\n");
+        writer.write("\t\tBuilder builder = new Builder(new ExpressionArena());\n");
+        writer.write("\t\tExpressionWalker.postorder(root, builder);\n");
+        writer.write("\t\treturn builder.arena;\n\t}\n\n");
+
+        writer.write("\tpublic int size() {\n\t\treturn this.size;\n\t}\n\n");
+        writer.write("\t/**\n\t * Returns the last node added, which is the root of the last tree.\n\t */\n");
+        writer.write("\tpublic int root() {\n");
+        writer.write("\t\tif (this.size == 0) throw new IllegalStateException(\"The arena is empty\");\n");
+        writer.write("\t\treturn this.size - 1;\n\t}\n\n");
+        writer.write("\tpublic int kind(int node) {\n");
+        writer.write("\t\treturn this.kinds[Objects.checkIndex(node, this.size)];\n\t}\n\n");
+
+        for (SchemeParser parser : parsers) {
+            addArenaNode(writer, parser);
+            addArenaAccessors(writer, parser);
+        }
+
+        // Conversion back to a tree of objects
+        writer.write("\t/**\n\t * Rebuilds the tree under the node as objects, without recursion.\n\t */\n");
+        writer.write("\tpublic Expression toExpression(int node) {\n");
+        writer.write("\t\tObjects.checkIndex(node, this.size);\n");
+        writer.write("\t\tExpression[] built = new Expression[node + 1];\n");
+        writer.write("\t\tfor (int i = 0; i <= node; i++) {\n");
+        writer.write("\t\t\tbuilt[i] = switch (this.kinds[i]) {\n");
+        for (SchemeParser parser : parsers) {
+            writer.write(String.format("\t\t\t\tcase %s -> Expression.%s(%s);\n", parser.className.toUpperCase(),
+                    parser.className.toLowerCase(), parser.fields.stream()
+                            .map(field -> getBuiltField(parser, field)).collect(Collectors.joining(", "))));
+        }
+        writer.write("\t\t\t\tdefault -> throw new IllegalStateException(\"Unknown node kind: \" + this.kinds[i]);\n");
+        writer.write("\t\t\t};\n\t\t}\n");
+        writer.write("\t\treturn built[node];\n\t}\n\n");
+
+        // Storage helpers
+        writer.write("\tprivate int node(int kind) {\n");
+        writer.write("\t\tif (this.size == this.kinds.length) {\n");
+        writer.write("\t\t\tthis.kinds = Arrays.copyOf(this.kinds, this.size * 2);\n");
+        writer.write("\t\t\tthis.slots = Arrays.copyOf(this.slots, this.kinds.length * SLOTS);\n\t\t}\n");
+        writer.write("\t\tthis.kinds[this.size] = kind;\n");
+        writer.write("\t\treturn this.size++;\n\t}\n\n");
+
+        writer.write("\tprivate int child(int node) {\n");
+        writer.write("\t\treturn Objects.checkIndex(node, this.size);\n\t}\n\n");
+
+        writer.write("\tprivate int tokenIndex(Token token) {\n");
+        writer.write("\t\tif (this.tokenCount == this.tokens.length) this.tokens = Arrays.copyOf(this.tokens, this.tokenCount * 2);\n");
+        writer.write("\t\tthis.tokens[this.tokenCount] = token;\n");
+        writer.write("\t\treturn this.tokenCount++;\n\t}\n\n");
+
+        writer.write("\tprivate int literalIndex(Object literal) {\n");
+        writer.write("\t\tif (this.literalCount == this.literals.length) this.literals = Arrays.copyOf(this.literals, this.literalCount * 2);\n");
+        writer.write("\t\tthis.literals[this.literalCount] = literal;\n");
+        writer.write("\t\treturn this.literalCount++;\n\t}\n\n");
+
+        writer.write("\tprivate int slot(int node, int kind, int field) {\n");
+        writer.write("\t\tif (this.kinds[Objects.checkIndex(node, this.size)] != kind)\n");
+        writer.write("\t\t\tthrow new IllegalArgumentException(\"Node \" + node + \" is of another kind\");\n");
+        writer.write("\t\treturn this.slots[node * SLOTS + field];\n\t}\n\n");
+
+        // Postorder builder used by of()
+        writer.write("\tprivate static final class Builder implements ExpressionVisitor<Void> {\n");
+        writer.write("\t\tprivate final ExpressionArena arena;\n");
+        writer.write("\t\tprivate int[] pending = new int[16];\n");
+        writer.write("\t\tprivate int count;\n\n");
+        writer.write("\t\tprivate Builder(ExpressionArena arena) {\n\t\t\tthis.arena = arena;\n\t\t}\n\n");
+        for (SchemeParser parser : parsers) addArenaBuilderVisit(writer, parser);
+        writer.write("\t\tprivate void push(int node) {\n");
+        writer.write("\t\t\tif (this.count == this.pending.length) this.pending = Arrays.copyOf(this.pending, this.count * 2);\n");
+        writer.write("\t\t\tthis.pending[this.count++] = node;\n\t\t}\n");
+        writer.write("\t}\n");
+        writer.write("}\n");
+    }
+
+    private static void addArenaNode(Writer writer, SchemeParser parser) throws IOException {
+        List<String> fields = parser.fields;
+        writer.write(String.format("\tpublic int add%s(%s) {\n", parser.className, fields.stream()
+                .map(field -> isChildField(field) ? "int " + getFieldName(field) : getFieldDefinition(field))
+                .collect(Collectors.joining(", "))));
+        if (fields.contains(OPERATOR)) {
+            writer.write(String.format("\t\tif (!operator.type().is(TokenCategory.%s_OPERATOR))\n", parser.className.toUpperCase()));
+            writer.write(String.format("\t\t\tthrow new IllegalArgumentException(\"Provided token cannot be used in %s expression!\");\n",
+                    parser.className.toLowerCase()));
+        }
+        for (String field : fields)
+            if (isChildField(field)) writer.write(String.format("\t\tthis.child(%s);\n", getFieldName(field)));
+
+        writer.write(String.format("\t\tint node = this.node(%s);\n", parser.className.toUpperCase()));
+        for (int i = 0; i < fields.size(); i++) {
+            String field = fields.get(i);
+            String value = switch (field) {
+                case OPERATOR, TOKEN -> String.format("this.tokenIndex(%s)", getFieldName(field));
+                case LITERAL -> String.format("this.literalIndex(%s)", getFieldName(field));
+                default -> getFieldName(field);
+            };
+            writer.write(String.format("\t\tthis.slots[node * SLOTS%s] = %s;\n", i == 0 ? "" : " + " + i, value));
+        }
+        writer.write("\t\treturn node;\n\t}\n\n");
+    }
+
+    private static void addArenaAccessors(Writer writer, SchemeParser parser) throws IOException {
+        for (int i = 0; i < parser.fields.size(); i++) {
+            String field = parser.fields.get(i);
+            String slot = String.format("this.slot(node, %s, %d)", parser.className.toUpperCase(), i);
+            String name = getArenaAccessor(parser, field);
+            switch (field) {
+                case OPERATOR, TOKEN -> writer.write(String.format(
+                        "\tpublic Token %s(int node) {\n\t\treturn this.tokens[%s];\n\t}\n\n", name, slot));
+                case LITERAL -> writer.write(String.format(
+                        "\tpublic Object %s(int node) {\n\t\treturn this.literals[%s];\n\t}\n\n", name, slot));
+                default -> writer.write(String.format(
+                        "\tpublic int %s(int node) {\n\t\treturn %s;\n\t}\n\n", name, slot));
+            }
+        }
+    }
+
+    private static void addArenaBuilderVisit(Writer writer, SchemeParser parser) throws IOException {
+        String variable = parser.className.toLowerCase();
+        writer.write(String.format("\t\t@Override\n\t\tpublic Void visit%s(%sExpression %s) {\n",
+                parser.className, parser.className, variable));
+        // Children were pushed in field order, so they come off the stack last first
+        for (String field : parser.fields.reversed())
+            if (isChildField(field))
+                writer.write(String.format("\t\t\tint %s = this.pending[--this.count];\n", getFieldName(field)));
+        writer.write(String.format("\t\t\tthis.push(this.arena.add%s(%s));\n", parser.className, parser.fields.stream()
+                .map(field -> isChildField(field) ? getFieldName(field) : variable + "." + getFieldName(field))
+                .collect(Collectors.joining(", "))));
+        writer.write("\t\t\treturn null;\n\t\t}\n\n");
+    }
+
+    private static String getBuiltField(SchemeParser parser, String field) {
+        String value = String.format("this.%s(i)", getArenaAccessor(parser, field));
+        if (!isChildField(field)) return value;
+        if (EXPRESSION_TYPES.contains(field)) return String.format("(%sExpression) built[%s]", field, value);
+        return String.format("built[%s]", value);
+    }
+
+    private static String getArenaAccessor(SchemeParser parser, String field) {
+        if (field.equals(parser.className)) return getFieldName(field);
+        return parser.className.toLowerCase() + field;
+    }
+
+    private static boolean isChildField(String field) {
+        return !field.equals(OPERATOR) && !field.equals(LITERAL) && !field.equals(TOKEN);
     }
 
     private static String getClassField(String field) {
@@ -187,6 +395,7 @@ public class AstGenerator {
             case EXPRESSION -> "Expression expression";
             case OPERATOR -> "Token operator";
             case LITERAL -> "Object literal";
+            case TOKEN -> "Token token";
             default -> EXPRESSION_TYPES.contains(field) ?
                     String.format("%sExpression %s", field, field.toLowerCase())
                     : String.format("Expression %s", field.toLowerCase());
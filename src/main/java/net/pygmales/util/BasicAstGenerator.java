@@ -10,8 +10,8 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class BasicAstGenerator {
-    private static final Path EXP_PATH = Path.of("./src/main/java/net/pygmales/parser/expression/Expression.java");
-    private static final Path VISITOR_PATH = Path.of("./src/main/java/net/pygmales/parser/expression/ExpressionVisitor.java");
+    private static final Path EXP_PATH = Path.of("./src/main/generated/net/pygmales/parser/expression/Expression.java");
+    private static final Path VISITOR_PATH = Path.of("./src/main/generated/net/pygmales/parser/expression/ExpressionVisitor.java");
 
     public static void main(String[] args) throws IOException, URISyntaxException {
         URL schemeUrl = BasicAstGenerator.class.getResource("/scheme.exp");
@@ -47,14 +47,14 @@ public class BasicAstGenerator {
     }
 
     private static void addExpressionInterfaceFields(FileWriter writer) throws IOException {
-        writer.write("public interface Expression {\n");
+        writer.write("public sealed interface Expression {\n");
         writer.write("\t<R> R accept(ExpressionVisitor<R> visitor);\n\n");
     }
 
     private static void addExpressionHeaders(Writer writer) throws IOException {
         writer.write("package net.pygmales.parser.expression;\n\n");
         writer.write("import net.pygmales.lexer.Token;\n");
-        writer.write("import static net.pygmales.lexer.TokenType.*;\n\n");
+        writer.write("import static net.pygmales.lexer.TokenCategory.*;\n\n");
     }
 
     private static void addVisitorHeaders(Writer writer) throws IOException {
@@ -69,7 +69,7 @@ public class BasicAstGenerator {
 
     private static void addExpressionClass(Writer writer, SchemeParser parser) throws IOException {
         // Class declaration
-        writer.write(String.format("\tclass %sExpression implements Expression {\n", parser.className));
+        writer.write(String.format("\tfinal class %sExpression implements Expression {\n", parser.className));
 
         // Class fields
         for (String type : parser.fieldTypes) writer.write(String.format("\t\tpublic final %s;\n", type));
@@ -103,7 +103,7 @@ public class BasicAstGenerator {
         boolean typeCheck = false;
         for (String[] splitField : parser.fieldElements) {
             if (splitField.length < 3) continue;
-            writer.write(String.format("\t\tif (%s_TYPE.contains(%s.type()))\n", splitField[2], splitField[1]));
+            writer.write(String.format("\t\tif (%s.type().is(%s))\n", splitField[1], splitField[2]));
             typeCheck = true;
         }
 
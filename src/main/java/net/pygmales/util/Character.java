@@ -2,14 +2,25 @@ package net.pygmales.util;
 
 public class Character {
     public static boolean isLetter(char c) {
+        if (c < 128) return (char) ((c | 0x20) - 'a') < 26;
         return java.lang.Character.isLetter(c);
     }
 
     public static boolean isDigit(char c) {
+        if (c < 128) return isAsciiDigit(c);
         return java.lang.Character.isDigit(c);
     }
 
+    public static boolean isAsciiDigit(char c) {
+        return (char) (c - '0') < 10;
+    }
+
+    public static boolean isIdentifierPart(char c) {
+        return isLetter(c) || isDigit(c) || isUnderscore(c);
+    }
+
     public static boolean isWhitespace(char c) {
+        if (c < 128) return c == ' ' || (c >= '\t' && c <= '\r') || (c >= '\u001C' && c <= '\u001F');
         return java.lang.Character.isWhitespace(c);
     }
 
@@ -0,0 +1,8 @@
+package net.pygmales.util;
+
+/**
+ * An error reported on a position of a source, with the text of the source line it
+ * points into. The line is empty when the source is not available, and the line and
+ * column are 0 for an error about the file as a whole.
+ */
+public record Diagnostic(String file, int line, int column, String message, String description, String sourceLine) {}
@@ -0,0 +1,19 @@
+package net.pygmales.util;
+
+import java.io.PrintStream;
+
+public enum DiagnosticFormat {
+    ANSI, PLAIN, JSON;
+
+    public DiagnosticSink sink(PrintStream out) {
+        return switch (this) {
+            case ANSI -> new TextDiagnosticSink(out, true);
+            case PLAIN -> new TextDiagnosticSink(out, false);
+            case JSON -> new JsonDiagnosticSink(out);
+        };
+    }
+
+    public static DiagnosticFormat of(String name) {
+        return valueOf(name.toUpperCase());
+    }
+}
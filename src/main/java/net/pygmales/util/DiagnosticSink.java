@@ -0,0 +1,12 @@
+package net.pygmales.util;
+
+import java.util.List;
+
+/**
+ * Output of an {@link ErrorLogger}. The logger hands over the diagnostics it
+ * collected as one group, and a sink writes every group with a single call to its
+ * stream, so that groups written from different threads never interleave.
+ */
+public interface DiagnosticSink {
+    void write(List<Diagnostic> diagnostics);
+}
@@ -2,90 +2,196 @@ package net.pygmales.util;
 
 import net.pygmales.lexer.Token;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the errors reported on a source as {@link Diagnostic}s and hands them to
+ * its {@link DiagnosticSink} as one group whenever it is closed. All methods are
+ * synchronized, so one logger can be shared by threads working on the same source.
+ */
 public class ErrorLogger {
-    private String[] sourceLines;
+    static final String RED = "\033[1;91m";
+    static final String WHITE = "\033[0;97m";
+    static final String YELLOW = "\033[1;93m";
+    static final String RESET = "\033[0m";
+
     private final String filename;
+    private final DiagnosticSink sink;
+    private final List<Diagnostic> pending = new ArrayList<>();
+    private String source;
+    private Path sourceFile;
+    // Offsets of the line starts in the source, only built once an error is reported
+    private long[] lineStarts;
+    private int lineCount;
     private int errorCount;
 
     public ErrorLogger(String filename) {
+        this(filename, System.out);
+    }
+
+    public ErrorLogger(String filename, PrintStream out) {
+        this(filename, DiagnosticFormat.ANSI.sink(out));
+    }
+
+    public ErrorLogger(String filename, DiagnosticSink sink) {
         this.filename = filename;
+        this.sink = sink;
     }
 
-    public void setSource(String source) {
-        this.sourceLines = source.split("\n");
+    /**
+     * Uses the string as the source. Its lines are only indexed once an error is
+     * reported, so setting a source costs nothing for an error-free run.
+     */
+    public synchronized void setSource(String source) {
+        this.source = source;
+        this.sourceFile = null;
+        this.lineStarts = null;
+        this.errorCount = 0;
+    }
+
+    /**
+     * Uses a file that is lexed as a stream as the source. Its lines are only read
+     * back from the file when an error is reported.
+     */
+    public synchronized void setSource(Path sourceFile) {
+        this.source = null;
+        this.sourceFile = sourceFile;
+        this.lineStarts = null;
         this.errorCount = 0;
     }
 
     public void error(Token token, String errorName, String errorDescription) {
-        this.printError(token, errorName, errorDescription);
+        this.report(token, errorName, errorDescription);
     }
 
     public void unclosedString(Token token) {
-        this.printError(token,
+        this.report(token,
                 "unclosed string literal",
                 "string literal started here and was not closed with `\"`"
         );
     }
 
     public void unclosedComment(Token token) {
-        this.printError(token,
+        this.report(token,
                 "unclosed multiline comment",
                 "multiline comment started here and was not closed with `*/`"
         );
     }
 
     public void unexpectedToken(Token token) {
-        this.printError(token,
-                String.format("unexpected token `%s`", token.literal()),
-                String.format("no rules defined for the token `%s`", token.literal())
+        this.report(token,
+                "unexpected token `" + token.literal() + "`",
+                "no rules defined for the token `" + token.literal() + "`"
         );
     }
 
-    private void printError(Token token, String errorName, String errorDescription) {
-        String line = this.sourceLines[token.line()-1];
-        int tokenPos = token.column() - (line.length() - line.stripLeading().length()) - 1;
-
-        this.printOpener();
-        this.printLine();
-        System.out.printf("%s %s\n", red("error:"), white(errorName+"!"));
-        this.printErrorPosition(line, token.line(), token.column());
-        System.out.println(red(String.format("┃\t\t%s▲ %s",
-                " ".repeat(tokenPos), errorDescription)));
-        this.printLine();
-        System.out.println();
+    /**
+     * Reports an error about the file as a whole, e.g. one that could not be read or
+     * written, at line and column 0 and without a source line.
+     */
+    public synchronized void fileError(String errorName, String errorDescription) {
+        this.pending.add(new Diagnostic(this.filename, 0, 0, errorName, errorDescription, ""));
+        this.errorCount++;
+    }
 
+    private synchronized void report(Token token, String errorName, String errorDescription) {
+        this.pending.add(new Diagnostic(this.filename, token.line(), token.column(),
+                errorName, errorDescription, this.getSourceLine(token.line())));
         this.errorCount++;
     }
 
-    private void printErrorPosition(String line, int lineNum, int column) {
-        System.out.print(red("┣━ "));
-        System.out.printf("in file \"%s\" at %d:%d\n", this.filename, lineNum, column);
-        System.out.println(red("┃"));
-        System.out.printf("%s\t%s\n", red("┣━━━▶"), line.trim());
+    private String getSourceLine(int lineNumber) {
+        if (this.source == null && this.sourceFile == null) return "";
+        try {
+            if (this.lineStarts == null) this.indexLines();
+            if (lineNumber < 1 || lineNumber > this.lineCount) return "";
+
+            long start = this.lineStarts[lineNumber-1];
+            long end = lineNumber < this.lineCount ? this.lineStarts[lineNumber] - 1 : -1;
+            String line = this.source != null ?
+                    this.source.substring((int) start, end < 0 ? this.source.length() : (int) end) :
+                    this.readFileLine(start, end);
+            return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void indexLines() throws IOException {
+        this.lineStarts = new long[64];
+        this.lineCount = 1;
+        if (this.source != null) {
+            for (int i = this.source.indexOf('\n'); i >= 0; i = this.source.indexOf('\n', i + 1)) this.addLine(i + 1);
+            return;
+        }
+
+        // Newlines are the same byte in every charset a source file can be read with
+        byte[] buffer = new byte[1 << 16];
+        long offset = 0;
+        try (InputStream in = Files.newInputStream(this.sourceFile)) {
+            for (int read; (read = in.read(buffer)) != -1; offset += read)
+                for (int i = 0; i < read; i++) if (buffer[i] == '\n') this.addLine(offset + i + 1);
+        }
+    }
+
+    private void addLine(long start) {
+        if (this.lineCount == this.lineStarts.length)
+            this.lineStarts = Arrays.copyOf(this.lineStarts, this.lineCount * 2);
+        this.lineStarts[this.lineCount++] = start;
+    }
+
+    private String readFileLine(long start, long end) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.sourceFile, StandardOpenOption.READ)) {
+            if (end < 0) end = channel.size();
+            ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+            while (bytes.hasRemaining() && channel.read(bytes, start + bytes.position()) >= 0);
+            return new String(bytes.array(), 0, bytes.position(), Charset.defaultCharset());
+        }
     }
 
-    private void printLine() {
-        System.out.print(red("┃ "));
+    public synchronized boolean hasErrors() {
+        return this.errorCount > 0;
     }
 
-    private void printOpener() {
-        if (this.errorCount == 0) System.out.println(red("┓"));
+    public synchronized int getErrorCount() {
+        return this.errorCount;
     }
 
+    /**
+     * Writes the diagnostics reported since the last call to the sink.
+     */
     public void close() {
-        if (this.errorCount > 0) System.out.println(red("┛\n"));
+        List<Diagnostic> diagnostics;
+        synchronized (this) {
+            if (this.pending.isEmpty()) return;
+            diagnostics = List.copyOf(this.pending);
+            this.pending.clear();
+        }
+        this.sink.write(diagnostics);
     }
 
     public static String white(Object o) {
-        return String.format("\033[0;97m%s\033[0m", o.toString());
+        return WHITE + o + RESET;
     }
 
     public static String red(Object o) {
-        return String.format("\033[1;91m%s\033[0m", o.toString());
+        return RED + o + RESET;
     }
 
     public static String yellow(Object o) {
-        return String.format("\033[1;93m%s\033[0m", o.toString());
+        return YELLOW + o + RESET;
     }
 
 }
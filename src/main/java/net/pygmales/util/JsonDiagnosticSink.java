@@ -0,0 +1,54 @@
+package net.pygmales.util;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Writes every diagnostic as one JSON object per line, for tools consuming them.
+ */
+public class JsonDiagnosticSink implements DiagnosticSink {
+    private final PrintStream out;
+
+    public JsonDiagnosticSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(List<Diagnostic> diagnostics) {
+        StringBuilder lines = new StringBuilder(256 * diagnostics.size());
+        for (Diagnostic diagnostic : diagnostics) {
+            lines.append("{\"severity\":\"error\",\"file\":");
+            string(lines, diagnostic.file());
+            lines.append(",\"line\":").append(diagnostic.line());
+            lines.append(",\"column\":").append(diagnostic.column());
+            lines.append(",\"message\":");
+            string(lines, diagnostic.message());
+            lines.append(",\"description\":");
+            string(lines, diagnostic.description());
+            lines.append(",\"source\":");
+            string(lines, diagnostic.sourceLine());
+            lines.append("}\n");
+        }
+        this.out.print(lines);
+        this.out.flush();
+    }
+
+    private static void string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+                }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,52 @@
+package net.pygmales.util;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Renders diagnostics as boxes pointing at the erroneous token, colored with ANSI
+ * escape codes or as plain text.
+ */
+public class TextDiagnosticSink implements DiagnosticSink {
+    private final PrintStream out;
+    private final boolean ansi;
+
+    public TextDiagnosticSink(PrintStream out, boolean ansi) {
+        this.out = out;
+        this.ansi = ansi;
+    }
+
+    @Override
+    public void write(List<Diagnostic> diagnostics) {
+        StringBuilder text = new StringBuilder(512 * diagnostics.size());
+        this.red(text, "┓").append('\n');
+        for (Diagnostic diagnostic : diagnostics) this.render(text, diagnostic);
+        this.red(text, "┛\n").append('\n');
+        this.out.print(text);
+        this.out.flush();
+    }
+
+    private void render(StringBuilder text, Diagnostic diagnostic) {
+        String line = diagnostic.sourceLine();
+        int tokenPos = Math.max(0, diagnostic.column() - (line.length() - line.stripLeading().length()) - 1);
+
+        this.red(text, "┃ ");
+        this.red(text, "error:").append(' ');
+        this.color(text, ErrorLogger.WHITE, diagnostic.message() + "!").append('\n');
+        this.red(text, "┣━ ").append("in file \"").append(diagnostic.file()).append("\" at ")
+                .append(diagnostic.line()).append(':').append(diagnostic.column()).append('\n');
+        this.red(text, "┃").append('\n');
+        this.red(text, "┣━━━▶").append('\t').append(line.trim()).append('\n');
+        this.red(text, "┃\t\t" + " ".repeat(tokenPos) + "▲ " + diagnostic.description()).append('\n');
+        this.red(text, "┃ ").append('\n');
+    }
+
+    private StringBuilder red(StringBuilder text, String fragment) {
+        return this.color(text, ErrorLogger.RED, fragment);
+    }
+
+    private StringBuilder color(StringBuilder text, String color, String fragment) {
+        if (!this.ansi) return text.append(fragment);
+        return text.append(color).append(fragment).append(ErrorLogger.RESET);
+    }
+}
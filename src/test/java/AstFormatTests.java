@@ -0,0 +1,133 @@
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.Token;
+import net.pygmales.parser.ExpressionWalker;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.binary.AstFormatException;
+import net.pygmales.parser.binary.AstReader;
+import net.pygmales.parser.binary.AstWriter;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionVisitor;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.pygmales.lexer.TokenType.UNKNOWN;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Binary AST format tests")
+public class AstFormatTests {
+    private static Expression parse(String source) {
+        ErrorLogger logger = new ErrorLogger("test", diagnostics -> {});
+        return new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+    }
+
+    @Test
+    @DisplayName("Round trip")
+    public void testRoundTrip() throws AstFormatException {
+        String source = "(1 + 2.5) * -\"tëxt\" == !null\n!= (true == false) + \"tëxt\" - 2.5";
+        Expression expression = parse(source);
+        AstReader reader = new AstReader(AstWriter.write(expression, "script.phl", source.length()));
+
+        assertEquals(expression.toString(), reader.read().toString());
+        assertEquals("script.phl", reader.sourceName());
+        assertEquals(source.length(), reader.sourceLength());
+        assertEquals(19, reader.nodeCount());
+        assertEquals("tëxt", reader.stringSlice(1).toString());
+    }
+
+    @Test
+    @DisplayName("Error nodes keep the literals of their tokens")
+    public void testErrorTokens() throws AstFormatException {
+        for (String source : new String[]{"1 + $", "foo + 1", "(2 * \"open", "1 + identifier", "3 + (1 2)"}) {
+            Expression expression = parse(source);
+            Expression read = new AstReader(AstWriter.write(expression, null, source.length())).read();
+            assertEquals(expression.toString(), read.toString(), source);
+            assertEquals(errorTokens(expression), errorTokens(read), source);
+        }
+
+        Expression.ErrorExpression error = (Expression.ErrorExpression) new AstReader(
+                AstWriter.write(Expression.error(new Token(UNKNOWN, "$", 1, 5)), null, 5)).read();
+        assertEquals(new Token(UNKNOWN, "$", 1, 5), error.token);
+        assertEquals(5, error.token.column());
+    }
+
+    private static List<Token> errorTokens(Expression expression) {
+        List<Token> tokens = new ArrayList<>();
+        ExpressionWalker.postorder(expression, new ExpressionVisitor<Void>() {
+            @Override
+            public Void visitLiteral(Expression.LiteralExpression literal) {
+                return null;
+            }
+
+            @Override
+            public Void visitBinary(Expression.BinaryExpression binary) {
+                tokens.add(binary.operator);
+                return null;
+            }
+
+            @Override
+            public Void visitUnary(Expression.UnaryExpression unary) {
+                tokens.add(unary.operator);
+                return null;
+            }
+
+            @Override
+            public Void visitGrouping(Expression.GroupingExpression grouping) {
+                return null;
+            }
+
+            @Override
+            public Void visitError(Expression.ErrorExpression error) {
+                tokens.add(error.token);
+                return null;
+            }
+        });
+        return tokens;
+    }
+
+    @Test
+    @DisplayName("Nested groupings")
+    public void testDeepTree() throws AstFormatException {
+        Expression expression = parse("1");
+        for (int i = 0; i < 1_000; i++) expression = Expression.grouping(expression);
+        AstReader reader = new AstReader(AstWriter.write(expression, null, 0));
+        assertEquals(1_001, reader.nodeCount());
+        assertNull(reader.sourceName());
+        assertNotNull(reader.read());
+    }
+
+    @Test
+    @DisplayName("Memory-mapped files")
+    public void testMappedFile(@TempDir Path directory) throws IOException {
+        Expression expression = parse("\"a\" + \"b\" == \"ab\"");
+        Path file = directory.resolve("script.phlc");
+        AstWriter.write(expression, "script.phl", 17, file);
+        assertEquals(expression.toString(), AstReader.open(file).read().toString());
+    }
+
+    @Test
+    @DisplayName("Stale and corrupt data is rejected")
+    public void testRejected() {
+        ByteBuffer buffer = AstWriter.write(parse("1 + 2"), null, 5);
+
+        ByteBuffer stale = ByteBuffer.allocate(buffer.limit()).put(buffer.duplicate()).flip();
+        stale.putLong(8, stale.getLong(8) + 1);
+        assertThrows(AstFormatException.class, () -> new AstReader(stale));
+
+        ByteBuffer truncated = buffer.slice(0, buffer.limit() - 3);
+        assertThrows(AstFormatException.class, () -> new AstReader(truncated));
+
+        ByteBuffer corrupt = ByteBuffer.allocate(buffer.limit()).put(buffer.duplicate()).flip();
+        corrupt.put(corrupt.limit() - 5, (byte) 0x7f);
+        assertThrows(AstFormatException.class, () -> new AstReader(corrupt).read());
+
+        assertThrows(AstFormatException.class, () -> new AstReader(ByteBuffer.wrap("1 + 2".getBytes())));
+    }
+}
@@ -0,0 +1,80 @@
+import net.pygmales.interpreter.BatchDriver;
+import net.pygmales.util.DiagnosticFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Batch driver tests")
+public class BatchDriverTests {
+    @Test
+    @DisplayName("Collecting files")
+    public void testCollect(@TempDir Path directory) throws IOException {
+        Files.createDirectories(directory.resolve("nested/deeper"));
+        for (String name : List.of("a.phl", "b.txt", "nested/c.phl", "nested/deeper/d.phl"))
+            Files.writeString(directory.resolve(name), "1");
+
+        assertEquals(List.of(directory.resolve("a.phl"), directory.resolve("nested/c.phl"),
+                directory.resolve("nested/deeper/d.phl")), BatchDriver.collect(List.of(directory.toString())));
+        assertEquals(List.of(directory.resolve("nested/c.phl")),
+                BatchDriver.collect(List.of(directory + "/nested/*.phl")));
+        assertEquals(List.of(directory.resolve("b.txt"), directory.resolve("nested/c.phl")),
+                BatchDriver.collect(List.of(directory + "/b.txt", directory + "/nested/c.phl", directory + "/b.txt")));
+        assertThrows(IOException.class, () -> BatchDriver.collect(List.of(directory + "/missing")));
+    }
+
+    @Test
+    @DisplayName("Diagnostics are printed per file in order")
+    public void testRun(@TempDir Path directory) throws IOException {
+        for (int i = 0; i < 40; i++) {
+            String source = i % 10 == 3 ? "1 + $ + \"open\n" : "(1 + 2) * " + i + " == 9";
+            Files.writeString(directory.resolve(String.format("file%02d.phl", i)), source);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BatchDriver.Summary summary = new BatchDriver(4, true)
+                .run(BatchDriver.collect(List.of(directory.toString())), new PrintStream(output, true));
+
+        assertEquals(40, summary.files().size());
+        assertEquals(4, summary.failedFiles());
+        assertEquals(8, summary.errorCount());
+        String diagnostics = output.toString();
+        for (int i = 3; i < 33; i += 10) {
+            String current = String.format("file%02d.phl", i);
+            String next = String.format("file%02d.phl", i + 10);
+            assertTrue(diagnostics.lastIndexOf(current) < diagnostics.indexOf(next));
+        }
+        assertTrue(Files.exists(directory.resolve("file00.phlc")));
+        assertFalse(Files.exists(directory.resolve("file03.phlc")));
+    }
+
+    @Test
+    @DisplayName("Failures to read or write a file are reported in the diagnostic format")
+    public void testFileErrors(@TempDir Path directory) throws IOException {
+        Files.writeString(directory.resolve("bad.phl"), "1 + $");
+        Files.writeString(directory.resolve("good.phl"), "1 + 2");
+        // The precompiled file cannot be written over a directory
+        Files.createDirectory(directory.resolve("good.phlc"));
+
+        for (DiagnosticFormat format : List.of(DiagnosticFormat.JSON, DiagnosticFormat.PLAIN)) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            BatchDriver.Summary summary = new BatchDriver(2, true, format)
+                    .run(BatchDriver.collect(List.of(directory.toString())), new PrintStream(output, true));
+
+            assertEquals(2, summary.failedFiles());
+            String diagnostics = output.toString();
+            assertFalse(diagnostics.contains("\033"));
+            assertTrue(diagnostics.contains("good.phl"));
+            if (format == DiagnosticFormat.JSON)
+                assertTrue(diagnostics.lines().allMatch(line -> line.startsWith("{") && line.endsWith("}")));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import net.pygmales.interpreter.ConstantFolder;
+import net.pygmales.interpreter.Evaluator;
+import net.pygmales.interpreter.RuntimeError;
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.RpnPrinter;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Constant folder tests")
+public class ConstantFolderTests {
+    private static Expression parse(String source) {
+        ErrorLogger logger = new ErrorLogger("test");
+        return new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+    }
+
+    private static String fold(String source) {
+        return new RpnPrinter().print(new ConstantFolder().fold(parse(source)));
+    }
+
+    @Test
+    @DisplayName("Constant expressions fold into literals")
+    public void testFolding() {
+        assertEquals("true", fold("(1 + 2) * 3 == 9"));
+        assertEquals("path and l", fold("\"path\" + \" and \" + \"l\""));
+        assertEquals("4.0", fold("--4"));
+        assertEquals("null", fold("((null))"));
+
+        ConstantFolder folder = new ConstantFolder();
+        folder.fold(parse("(1 + 2) * 3 == 9"));
+        assertEquals(3, folder.getFoldedOperations());
+        assertEquals(7, folder.getRemovedNodes());
+    }
+
+    @Test
+    @DisplayName("Failing operations are kept")
+    public void testFailingOperations() {
+        assertEquals("a 3.0 + 1.0 *", fold("1 * (1 + 2 + \"a\")"));
+        assertEquals("- a", fold("-\"a\""));
+        assertEquals("- a 1.0 +", fold("---(1 + \"a\")"));
+        assertEquals("a 1.0 +", fold("!!(1 + \"a\")"));
+
+        Expression expression = parse("(2 * 3) < -(true + 1)");
+        RuntimeError expected = assertThrows(RuntimeError.class, () -> new Evaluator().evaluate(expression));
+        RuntimeError actual = assertThrows(RuntimeError.class,
+                () -> new Evaluator().evaluate(new ConstantFolder().fold(expression)));
+        assertSame(expected.token, actual.token);
+    }
+}
@@ -0,0 +1,115 @@
+import net.pygmales.lexer.Token;
+import net.pygmales.lexer.TokenType;
+import net.pygmales.util.DiagnosticFormat;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Diagnostics tests")
+public class DiagnosticsTests {
+    private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+    private ErrorLogger logger(DiagnosticFormat format) {
+        ErrorLogger logger = new ErrorLogger("test.phl", format.sink(new PrintStream(this.stream, true)));
+        logger.setSource("let a = 1;\n    a + \"text\";\n");
+        return logger;
+    }
+
+    @Test
+    @DisplayName("Plain text")
+    public void testPlain() {
+        ErrorLogger logger = logger(DiagnosticFormat.PLAIN);
+        logger.error(new Token(TokenType.PLUS, "+", 2, 7), "invalid operands for `+`", "operands must be numbers");
+        assertEquals("", this.stream.toString());
+
+        logger.close();
+        assertEquals("""
+                ┓
+                ┃ error: invalid operands for `+`!
+                ┣━ in file "test.phl" at 2:7
+                ┃
+                ┣━━━▶\ta + "text";
+                ┃\t\t  ▲ operands must be numbers
+                ┃\s
+                ┛
+
+                """, this.stream.toString());
+        assertFalse(this.stream.toString().contains("\033"));
+        assertEquals(1, logger.getErrorCount());
+    }
+
+    @Test
+    @DisplayName("JSON lines")
+    public void testJsonLines() {
+        ErrorLogger logger = logger(DiagnosticFormat.JSON);
+        logger.unexpectedToken(new Token(TokenType.UNKNOWN, "$", 1, 5));
+        logger.unclosedString(new Token(TokenType.US_ERROR, null, 2, 9));
+        logger.close();
+
+        String[] lines = this.stream.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"severity\":\"error\",\"file\":\"test.phl\",\"line\":1,\"column\":5," +
+                "\"message\":\"unexpected token `$`\",\"description\":\"no rules defined for the token `$`\"," +
+                "\"source\":\"let a = 1;\"}", lines[0]);
+        assertTrue(lines[1].contains("\"source\":\"    a + \\\"text\\\";\""));
+    }
+
+    @Test
+    @DisplayName("Concurrent reports")
+    public void testConcurrentReports() throws InterruptedException {
+        ErrorLogger logger = logger(DiagnosticFormat.ANSI);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 500; i++) {
+                    logger.error(new Token(TokenType.PLUS, "+", 2, 7), "error", "description");
+                    if (i % 50 == 0) logger.close();
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+        logger.close();
+
+        String output = this.stream.toString();
+        assertEquals(4000, logger.getErrorCount());
+        assertEquals(4000, output.split("in file", -1).length - 1);
+        int opened = output.split("┓", -1).length - 1;
+        assertEquals(opened, output.split("┛", -1).length - 1);
+        assertFalse(output.matches("(?s).*┓[^┛]*┓.*"));
+    }
+
+    @Test
+    @DisplayName("Source lines of strings and files")
+    public void testSourceLines(@TempDir Path directory) throws IOException {
+        String source = "first\r\n\n  thïrd line\nlast";
+        Path file = directory.resolve("source.phl");
+        Files.writeString(file, source);
+
+        ErrorLogger fromString = new ErrorLogger("test.phl", DiagnosticFormat.JSON.sink(new PrintStream(this.stream, true)));
+        fromString.setSource(source);
+        ErrorLogger fromFile = new ErrorLogger("test.phl", DiagnosticFormat.JSON.sink(new PrintStream(this.stream, true)));
+        fromFile.setSource(file);
+
+        String[] expected = {"first", "", "  thïrd line", "last", ""};
+        for (ErrorLogger logger : List.of(fromString, fromFile)) {
+            for (int line = 1; line <= expected.length; line++) {
+                this.stream.reset();
+                logger.error(new Token(TokenType.PLUS, "+", line, 1), "error", "description");
+                logger.close();
+                assertTrue(this.stream.toString().contains("\"source\":\"" + expected[line - 1] + "\""),
+                        this.stream.toString());
+            }
+        }
+    }
+}
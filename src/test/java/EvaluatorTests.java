@@ -0,0 +1,76 @@
+import net.pygmales.interpreter.Evaluator;
+import net.pygmales.interpreter.RuntimeError;
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Evaluator tests")
+public class EvaluatorTests {
+    private static Object evaluate(String source) {
+        ErrorLogger logger = new ErrorLogger("test");
+        Expression expression = new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+        return new Evaluator().evaluate(expression);
+    }
+
+    @Test
+    @DisplayName("Literals")
+    public void testLiterals() {
+        assertEquals(365.0, evaluate("365"));
+        assertEquals(2.5, evaluate("2.5"));
+        assertEquals("text", evaluate("\"text\""));
+        assertEquals(true, evaluate("true"));
+        assertEquals(false, evaluate("false"));
+        assertNull(evaluate("null"));
+    }
+
+    @Test
+    @DisplayName("Arithmetic")
+    public void testArithmetic() {
+        assertEquals(9.0, evaluate("(1 + 2) * 3"));
+        assertEquals(-1.5, evaluate("1 - 5 / 2"));
+        assertEquals(4.0, evaluate("--4"));
+        assertEquals(0.1 + 0.2, evaluate("0.1 + 0.2"));
+    }
+
+    @Test
+    @DisplayName("Comparison and equality")
+    public void testComparison() {
+        assertEquals(true, evaluate("(1 + 2) * 3 == 9"));
+        assertEquals(true, evaluate("2 >= 2"));
+        assertEquals(false, evaluate("3 < 2"));
+        assertEquals(true, evaluate("\"a\" == \"a\""));
+        assertEquals(false, evaluate("1 == \"1\""));
+        assertEquals(true, evaluate("null == null"));
+        assertEquals(true, evaluate("null != false"));
+    }
+
+    @Test
+    @DisplayName("Truthiness")
+    public void testTruthiness() {
+        assertEquals(true, evaluate("!null"));
+        assertEquals(true, evaluate("!false"));
+        assertEquals(false, evaluate("!0"));
+        assertEquals(false, evaluate("!\"\""));
+    }
+
+    @Test
+    @DisplayName("String concatenation")
+    public void testConcatenation() {
+        assertEquals("path and l", evaluate("\"path\" + \" and \" + \"l\""));
+    }
+
+    @Test
+    @DisplayName("Runtime type errors")
+    public void testTypeErrors() {
+        RuntimeError error = assertThrows(RuntimeError.class, () -> evaluate("1 + \"a\""));
+        assertEquals("+", error.token.literal());
+        assertThrows(RuntimeError.class, () -> evaluate("-\"a\""));
+        assertThrows(RuntimeError.class, () -> evaluate("true * 2"));
+        assertThrows(RuntimeError.class, () -> evaluate("null < 1"));
+    }
+}
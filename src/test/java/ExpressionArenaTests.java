@@ -0,0 +1,141 @@
+import net.pygmales.interpreter.ArenaEvaluator;
+import net.pygmales.interpreter.Evaluator;
+import net.pygmales.interpreter.RuntimeError;
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.Token;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.binary.AstReader;
+import net.pygmales.parser.binary.AstWriter;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionArena;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Random;
+
+import static net.pygmales.lexer.TokenType.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Expression arena tests")
+public class ExpressionArenaTests {
+    private static final String[] OPERATORS = {"==", "!=", "<", "<=", ">", ">=", "+", "-", "*", "/"};
+    private static final String[] OPERANDS = {"1", "2.5", "365", "true", "null", "\"a\"", "\"b\""};
+
+    private static Expression parse(String source) {
+        ErrorLogger logger = new ErrorLogger("test.phl", new PrintStream(new ByteArrayOutputStream()));
+        Parser parser = new Parser(logger, new Lexer(logger, source).scanBuffer());
+        parser.setIterative(true);
+        return parser.parse();
+    }
+
+    private static Object evaluate(Expression expression) {
+        try {
+            return new Evaluator().evaluate(expression);
+        } catch (RuntimeError error) {
+            return error.getMessage() + " at " + error.token.column();
+        }
+    }
+
+    private static Object evaluate(ExpressionArena arena) {
+        try {
+            return new ArenaEvaluator().evaluate(arena);
+        } catch (RuntimeError error) {
+            return error.getMessage() + " at " + error.token.column();
+        }
+    }
+
+    @Test
+    @DisplayName("Nodes and accessors")
+    public void testAccessors() {
+        ExpressionArena arena = ExpressionArena.of(parse("1 + -(2)"));
+        assertEquals(5, arena.size());
+        int root = arena.root();
+        assertEquals(ExpressionArena.BINARY, arena.kind(root));
+        assertEquals(PLUS, arena.binaryOperator(root).type());
+
+        int left = arena.binaryLeft(root);
+        assertEquals(ExpressionArena.LITERAL, arena.kind(left));
+        assertEquals(1.0, arena.literal(left));
+
+        int unary = arena.binaryRight(root);
+        assertEquals(MINUS, arena.unaryOperator(unary).type());
+        int grouping = arena.unaryExpression(unary);
+        assertEquals(2.0, arena.literal(arena.groupingExpression(grouping)));
+
+        assertThrows(IllegalArgumentException.class, () -> arena.literal(root));
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.kind(5));
+    }
+
+    @Test
+    @DisplayName("Nodes are checked when added")
+    public void testAddChecks() {
+        ExpressionArena arena = new ExpressionArena();
+        int literal = arena.addLiteral(1.0);
+        assertThrows(IllegalArgumentException.class, () -> arena.addUnary(new Token(PLUS, "+", 1, 1), literal));
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.addGrouping(literal + 1));
+        assertEquals(1, arena.size());
+    }
+
+    @Test
+    @DisplayName("Same tree after a round trip")
+    public void testRoundTrip() {
+        for (String source : new String[]{"1 + 2 * 3 - 4 / 5", "!(1 < 2) == (3 + 4 <= 7 * 1)", "\"text\" + null",
+                "(1 + ) * 2"}) {
+            Expression expression = parse(source);
+            ExpressionArena arena = ExpressionArena.of(expression);
+            assertEquals(expression.toString(), arena.toExpression(arena.root()).toString(), source);
+        }
+    }
+
+    @Test
+    @DisplayName("Same values and errors as the tree walker")
+    public void testRandomExpressions() {
+        Random random = new Random(17);
+        for (int i = 0; i < 2000; i++) {
+            String source = randomExpression(random, 3);
+            Expression expression = parse(source);
+            assertEquals(evaluate(expression), evaluate(ExpressionArena.of(expression)), source);
+        }
+    }
+
+    @Test
+    @DisplayName("Syntax errors are not evaluated")
+    public void testErrorNode() {
+        ExpressionArena arena = ExpressionArena.of(parse("1 + $"));
+        assertThrows(IllegalStateException.class, () -> new ArenaEvaluator().evaluate(arena));
+    }
+
+    @Test
+    @DisplayName("Read from the binary format")
+    public void testBinaryFormat() throws IOException {
+        Expression expression = parse("(1.5 + 2) * -3 >= \"a\" + \"b\"");
+        ExpressionArena arena = new AstReader(AstWriter.write(expression, null, 0)).readArena();
+        assertEquals(expression.toString(), arena.toExpression(arena.root()).toString());
+    }
+
+    @Test
+    @DisplayName("Deeply nested expression")
+    public void testDeepNesting() {
+        int depth = 100_000;
+        ExpressionArena arena = ExpressionArena.of(parse("(-".repeat(depth) + "1" + ")".repeat(depth)));
+        assertEquals(2 * depth + 1, arena.size());
+        assertEquals(1.0, new ArenaEvaluator().evaluate(arena));
+    }
+
+    private static String randomExpression(Random random, int depth) {
+        StringBuilder builder = new StringBuilder();
+        int operands = 1 + random.nextInt(4);
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) builder.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+            while (random.nextInt(4) == 0) builder.append(random.nextBoolean() ? "-" : "!");
+            if (depth > 0 && random.nextInt(3) == 0)
+                builder.append('(').append(randomExpression(random, depth - 1)).append(')');
+            else builder.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+        }
+        return builder.toString();
+    }
+}
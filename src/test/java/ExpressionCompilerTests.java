@@ -0,0 +1,68 @@
+import net.pygmales.interpreter.Evaluator;
+import net.pygmales.interpreter.RuntimeError;
+import net.pygmales.interpreter.compiler.CompilationLimitException;
+import net.pygmales.interpreter.compiler.ExpressionCompiler;
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Expression compiler tests")
+public class ExpressionCompilerTests {
+    private static Expression parse(String source) {
+        ErrorLogger logger = new ErrorLogger("test");
+        return new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+    }
+
+    private static void assertSameAsEvaluator(String source) {
+        Expression expression = parse(source);
+        assertEquals(new Evaluator().evaluate(expression), ExpressionCompiler.compile(expression).evaluate(), source);
+    }
+
+    private static void assertSameErrorAsEvaluator(String source) {
+        Expression expression = parse(source);
+        RuntimeError expected = assertThrows(RuntimeError.class, () -> new Evaluator().evaluate(expression));
+        RuntimeError actual = assertThrows(RuntimeError.class, () -> ExpressionCompiler.compile(expression).evaluate());
+        assertSame(expected.token, actual.token, source);
+        assertEquals(expected.getMessage(), actual.getMessage(), source);
+    }
+
+    @Test
+    @DisplayName("Same values as the evaluator")
+    public void testValues() {
+        String[] sources = {
+                "365", "\"text\"", "true", "null", "(1 + 2) * 3", "1 - 5 / 2", "--4", "0.1 + 0.2", "1 / 0",
+                "(1 + 2) * 3 == 9", "2 >= 2", "3 < 2", "2 <= 1", "4 > 1", "\"a\" == \"a\"", "1 == \"1\"",
+                "null == null", "null != false", "true == !false", "!null", "!0", "!\"\"", "!!true",
+                "\"path\" + \" and \" + \"l\"", "0 / 0 == 0 / 0"
+        };
+        for (String source : sources) assertSameAsEvaluator(source);
+    }
+
+    @Test
+    @DisplayName("Same runtime errors as the evaluator")
+    public void testErrors() {
+        String[] sources = {"1 + \"a\"", "-\"a\"", "true * 2", "null < 1", "(1 + 2) * (3 - -true)"};
+        for (String source : sources) assertSameErrorAsEvaluator(source);
+    }
+
+    @Test
+    @DisplayName("Large expressions are split into methods")
+    public void testLargeExpressions() {
+        assertSameAsEvaluator(balanced(13));
+        assertSameErrorAsEvaluator(balanced(12) + " + \"a\"");
+        assertSameAsEvaluator("-".repeat(1_500) + "1");
+        assertSameAsEvaluator("(".repeat(1_000) + "1" + ")".repeat(1_000) + " * " + "-".repeat(1_534) + "1");
+        assertThrows(CompilationLimitException.class, () -> ExpressionCompiler.compile(parse("-".repeat(1_536) + "1")));
+    }
+
+    private static String balanced(int depth) {
+        if (depth == 0) return "2.5";
+        String operator = depth % 2 == 0 ? " + " : " - ";
+        return "(" + balanced(depth - 1) + operator + balanced(depth - 1) + ")";
+    }
+}
@@ -0,0 +1,76 @@
+import net.pygmales.lexer.Token;
+import net.pygmales.lexer.TokenType;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.parser.expression.ExpressionVisitor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Modifier;
+
+import static net.pygmales.lexer.TokenCategory.*;
+import static net.pygmales.lexer.TokenType.*;
+import static net.pygmales.parser.expression.Expression.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Generated expression tests")
+public class ExpressionTests {
+    private static Token token(TokenType type) {
+        return new Token(type, type.toString(), 1, 1);
+    }
+
+    @Test
+    @DisplayName("Sealed hierarchy of final classes")
+    public void testSealedHierarchy() {
+        assertTrue(Expression.class.isSealed());
+        for (Class<?> type : Expression.class.getPermittedSubclasses())
+            assertTrue(Modifier.isFinal(type.getModifiers()), type.getName());
+        assertEquals(5, Expression.class.getPermittedSubclasses().length);
+    }
+
+    @Test
+    @DisplayName("Factories check the operator type")
+    public void testOperatorTypes() {
+        for (TokenType type : TokenType.values()) {
+            if (type.is(BINARY_OPERATOR)) assertNotNull(binary(literal(1.0), token(type), literal(2.0)));
+            else assertThrows(IllegalArgumentException.class, () -> binary(literal(1.0), token(type), literal(2.0)));
+
+            if (type.is(UNARY_OPERATOR)) assertNotNull(unary(token(type), literal(1.0)));
+            else assertThrows(IllegalArgumentException.class, () -> unary(token(type), literal(1.0)));
+        }
+    }
+
+    @Test
+    @DisplayName("Switch dispatch calls the same visit method as accept")
+    public void testDispatch() {
+        Expression[] expressions = {literal(1.0), binary(literal(1.0), token(PLUS), literal(2.0)),
+                unary(token(MINUS), literal(1.0)), grouping(literal(1.0)), error(token(UNKNOWN))};
+        ExpressionVisitor<String> visitor = new ExpressionVisitor<>() {
+            @Override
+            public String visitLiteral(LiteralExpression literal) {
+                return "literal";
+            }
+
+            @Override
+            public String visitBinary(BinaryExpression binary) {
+                return "binary";
+            }
+
+            @Override
+            public String visitUnary(UnaryExpression unary) {
+                return "unary";
+            }
+
+            @Override
+            public String visitGrouping(GroupingExpression grouping) {
+                return "grouping";
+            }
+
+            @Override
+            public String visitError(ErrorExpression error) {
+                return "error";
+            }
+        };
+        for (Expression expression : expressions)
+            assertEquals(expression.accept(visitor), Expression.dispatch(expression, visitor));
+    }
+}
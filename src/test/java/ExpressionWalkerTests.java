@@ -0,0 +1,105 @@
+import net.pygmales.interpreter.vm.BytecodeCompiler;
+import net.pygmales.interpreter.vm.VirtualMachine;
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.ExpressionWalker;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.RpnPrinter;
+import net.pygmales.parser.SyntaxTreePrinter;
+import net.pygmales.parser.binary.AstReader;
+import net.pygmales.parser.binary.AstWriter;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.pygmales.parser.expression.Expression.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Expression walker tests")
+public class ExpressionWalkerTests {
+    private static final int DEPTH = 100_000;
+
+    private static Expression parse(String source) {
+        ErrorLogger logger = new ErrorLogger("test.phl", new PrintStream(new ByteArrayOutputStream()));
+        Parser parser = new Parser(logger, new Lexer(logger, source).scanBuffer());
+        parser.setIterative(true);
+        Expression expression = parser.parse();
+        assertFalse(logger.hasErrors());
+        return expression;
+    }
+
+    private static String name(Expression expression) {
+        if (expression instanceof BinaryExpression binary) return binary.operator.literal().toString();
+        if (expression instanceof UnaryExpression unary) return "u" + unary.operator.literal();
+        if (expression instanceof GroupingExpression) return "()";
+        return String.valueOf(((LiteralExpression) expression).literal);
+    }
+
+    private static List<String> events(Expression root, boolean rightToLeft) {
+        List<String> events = new ArrayList<>();
+        ExpressionWalker.Listener listener = new ExpressionWalker.Listener() {
+            @Override
+            public void enter(Expression expression) {
+                events.add(">" + name(expression));
+            }
+
+            @Override
+            public void leave(Expression expression) {
+                events.add("<" + name(expression));
+            }
+        };
+        if (rightToLeft) ExpressionWalker.walkRightToLeft(root, listener);
+        else ExpressionWalker.walk(root, listener);
+        return events;
+    }
+
+    @Test
+    @DisplayName("Enter and leave order")
+    public void testOrder() {
+        Expression expression = parse("1 + -(2 * 3)");
+        assertEquals(List.of(">+", ">1.0", "<1.0", ">u-", ">()", ">*", ">2.0", "<2.0", ">3.0", "<3.0",
+                "<*", "<()", "<u-", "<+"), events(expression, false));
+        assertEquals(List.of(">+", ">u-", ">()", ">*", ">3.0", "<3.0", ">2.0", "<2.0", "<*", "<()", "<u-",
+                ">1.0", "<1.0", "<+"), events(expression, true));
+    }
+
+    @Test
+    @DisplayName("Syntax tree printer output")
+    public void testSyntaxTreePrinter() {
+        String printed = new SyntaxTreePrinter().print(parse("1 + -2"))
+                .replaceAll("\033\\[[0-9;]*m", "");
+        assertEquals("""
+                +
+                ┃
+                ┣━▶ 1.0
+                ┗━▶ -
+                \t┃
+                \t┗━▶ 2.0
+                """, printed);
+    }
+
+    @Test
+    @DisplayName("Deeply nested expression")
+    public void testDeepNesting() throws IOException {
+        Expression expression = parse("(-".repeat(DEPTH) + "1" + ")".repeat(DEPTH));
+
+        String rpn = new RpnPrinter().print(expression);
+        assertEquals("[ - ".repeat(DEPTH) + "1.0" + " ]".repeat(DEPTH), rpn);
+        assertEquals(1.0, new VirtualMachine().run(BytecodeCompiler.compile(expression)));
+        Expression read = new AstReader(AstWriter.write(expression, null, 0)).read();
+        assertEquals(rpn, new RpnPrinter().print(read));
+    }
+
+    @Test
+    @DisplayName("Deep left-leaning chain")
+    public void testLongChain() {
+        Expression expression = parse("1" + " - 1".repeat(DEPTH));
+        assertEquals(1.0 - DEPTH, new VirtualMachine().run(BytecodeCompiler.compile(expression)));
+    }
+}
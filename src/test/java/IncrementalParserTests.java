@@ -0,0 +1,176 @@
+import net.pygmales.lexer.EditableTokenBuffer;
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.TextEdit;
+import net.pygmales.lexer.TokenBuffer;
+import net.pygmales.parser.ExpressionWalker;
+import net.pygmales.parser.IncrementalParser;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import static net.pygmales.parser.expression.Expression.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Incremental parser tests")
+public class IncrementalParserTests {
+    private static final String[] OPERATORS = {"==", "!=", "<", "<=", ">", ">=", "+", "-", "*", "/"};
+    private static final String[] OPERANDS = {"1", "2.5", "365", "true", "null", "\"a\"", "\"b c\""};
+    private static final String[] INSERTIONS = {"", "", "1", "7", ".", "+", "-", " ", " ", "\n", "\n  ", "(", ")",
+            "\"", "\"x\"", "2.5", "!", "==", "true", "//c\n", "/* c */", "/*", "*/", "$", ";"};
+
+    /**
+     * Tokens and tree with every position, which the printed tree leaves out.
+     */
+    private static String dump(EditableTokenBuffer tokens, Expression tree) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++)
+            builder.append(tokens.token(i)).append('@').append(tokens.line(i)).append(':').append(tokens.column(i))
+                    .append('+').append(tokens.start(i)).append('/').append(tokens.length(i)).append(' ');
+        builder.append('\n').append(tree).append('\n');
+        ExpressionWalker.walk(tree, expression -> {
+            if (expression instanceof BinaryExpression binary)
+                builder.append(binary.operator.line()).append(':').append(binary.operator.column()).append(' ');
+            else if (expression instanceof UnaryExpression unary)
+                builder.append(unary.operator.line()).append(':').append(unary.operator.column()).append(' ');
+        });
+        return builder.toString();
+    }
+
+    private static String parseWhole(String source, ByteArrayOutputStream out) {
+        ErrorLogger logger = new ErrorLogger("test.phl", new PrintStream(out));
+        TokenBuffer tokens = new Lexer(logger, source).scanBuffer();
+        Parser parser = new Parser(logger, tokens);
+        return dump(new EditableTokenBuffer(tokens), parser.parse());
+    }
+
+    @Test
+    @DisplayName("Same tokens, tree and errors as a whole parse after random edits")
+    public void testRandomEdits() {
+        Random random = new Random(20);
+        for (int run = 0; run < 200; run++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IncrementalParser parser = new IncrementalParser(new ErrorLogger("test.phl", new PrintStream(out)));
+            parser.setIterative(random.nextBoolean());
+            parser.parse(random.nextBoolean() ? "(" + randomExpression(random, 4) + ")" : randomExpression(random, 4));
+
+            for (int i = 0; i < 40; i++) {
+                String source = parser.tokens().source();
+                int offset = random.nextInt(source.length() + 1);
+                int removed = Math.min(random.nextInt(4), source.length() - offset);
+                String inserted = INSERTIONS[random.nextInt(INSERTIONS.length)];
+                assertEdit(parser, out, new TextEdit(offset, removed, inserted));
+
+                // Take most broken edits back, so that the next edit starts from a clean source
+                if (parser.hasErrors() && random.nextInt(4) != 0)
+                    assertEdit(parser, out, new TextEdit(offset, inserted.length(), source.substring(offset, offset + removed)));
+            }
+        }
+    }
+
+    private static void assertEdit(IncrementalParser parser, ByteArrayOutputStream out, TextEdit edit) {
+        String edited = edit.apply(parser.tokens().source());
+        out.reset();
+        Expression tree = parser.edit(edit);
+        String printed = out.toString();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        assertEquals(parseWhole(edited, expected), dump(parser.tokens(), tree), edited);
+        assertEquals(expected.toString(), printed, edited);
+        assertEquals(!expected.toString().isEmpty(), parser.hasErrors(), edited);
+    }
+
+    @Test
+    @DisplayName("Only the literal or the innermost group is parsed again")
+    public void testReparsedTokens() {
+        IncrementalParser parser = new IncrementalParser(new ErrorLogger("test.phl", new PrintStream(new ByteArrayOutputStream())));
+        String prefix = "(1 +\n".repeat(1000);
+        String source = prefix + "(2 * 365) - 4" + ")".repeat(1000);
+        parser.parse(source);
+        Expression before = parser.tree();
+
+        int literal = prefix.length() + 5;
+        parser.edit(new TextEdit(literal, 3, "366"));
+        assertEquals(1, parser.reparsedTokens());
+        assertFalse(parser.hasErrors());
+
+        parser.edit(new TextEdit(literal, 0, "1 + "));
+        assertEquals(5, parser.reparsedTokens());
+        assertEquals(new TextEdit(literal, 0, "1 + ").apply(new TextEdit(literal, 3, "366").apply(source)),
+                parser.tokens().source());
+
+        parser.edit(new TextEdit(prefix.length(), 0, "\n\n"));
+        assertTrue(parser.reparsedTokens() < 20);
+
+        // The left operands of every outer level are still the nodes of the first tree
+        Expression expression = parser.tree();
+        Expression old = before;
+        for (int i = 0; i < 999; i++) {
+            BinaryExpression binary = (BinaryExpression) ((GroupingExpression) expression).expression;
+            BinaryExpression oldBinary = (BinaryExpression) ((GroupingExpression) old).expression;
+            assertSame(oldBinary.left, binary.left);
+            expression = binary.right;
+            old = oldBinary.right;
+        }
+    }
+
+    @Test
+    @DisplayName("Edits that do not change the tokens keep the tree")
+    public void testUnchangedTree() {
+        IncrementalParser parser = new IncrementalParser(new ErrorLogger("test.phl", new PrintStream(new ByteArrayOutputStream())));
+        Expression tree = parser.parse("1 + 2 // sum\n* 3");
+        assertSame(tree, parser.edit(new TextEdit(9, 3, "product")));
+        assertEquals(0, parser.reparsedTokens());
+    }
+
+    @Test
+    @DisplayName("Errors before an edit lead to a whole parse")
+    public void testErrorsParseWhole() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IncrementalParser parser = new IncrementalParser(new ErrorLogger("test.phl", new PrintStream(out)));
+        parser.parse("(1 + $) * 2");
+        assertTrue(parser.hasErrors());
+
+        out.reset();
+        parser.edit(new TextEdit(5, 1, "3"));
+        assertFalse(parser.hasErrors());
+        assertTrue(out.toString().isEmpty());
+        assertEquals(parser.tokens().size(), parser.reparsedTokens());
+    }
+
+    @Test
+    @DisplayName("Deeply nested expression")
+    public void testDeepNesting() {
+        int depth = 100_000;
+        IncrementalParser parser = new IncrementalParser(new ErrorLogger("test.phl", new PrintStream(new ByteArrayOutputStream())));
+        parser.setIterative(true);
+        parser.parse("(-".repeat(depth) + "1" + ")".repeat(depth));
+        parser.edit(new TextEdit(2 * depth, 1, "(2 + 3)"));
+        assertFalse(parser.hasErrors());
+        assertEquals(6, parser.reparsedTokens());
+
+        parser.edit(new TextEdit(2 * depth - 1, 0, "\n"));
+        assertFalse(parser.hasErrors());
+        EditableTokenBuffer tokens = parser.tokens();
+        assertEquals(2, tokens.line(tokens.size() - 2));
+        assertEquals(8 + depth, tokens.column(tokens.size() - 2));
+    }
+
+    private static String randomExpression(Random random, int depth) {
+        StringBuilder builder = new StringBuilder();
+        int operands = 1 + random.nextInt(4);
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) builder.append(random.nextInt(3) == 0 ? "\n" : " ")
+                    .append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+            while (random.nextInt(4) == 0) builder.append(random.nextBoolean() ? "-" : "!");
+            if (depth > 0 && random.nextInt(3) == 0)
+                builder.append('(').append(randomExpression(random, depth - 1)).append(')');
+            else builder.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,119 @@
+import net.pygmales.interpreter.BasicInterpreter;
+import net.pygmales.interpreter.BatchDriver;
+import net.pygmales.interpreter.CompilingInterpreter;
+import net.pygmales.interpreter.VmInterpreter;
+import net.pygmales.util.DiagnosticFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Interpreter tests")
+public class InterpreterTests {
+    private static final int DEPTH = 50_000;
+
+    private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    private final PrintStream out = System.out;
+
+    @BeforeEach
+    public void setOutput() {
+        System.setOut(new PrintStream(stream));
+    }
+
+    @AfterEach
+    public void resetOutput() {
+        System.setOut(this.out);
+    }
+
+    private String run(Supplier<BasicInterpreter> interpreters, boolean constantFolding, Path file) throws IOException {
+        return run(interpreters, constantFolding, 1, DiagnosticFormat.PLAIN, file);
+    }
+
+    private String run(Supplier<BasicInterpreter> interpreters, boolean constantFolding, int lexerParallelism,
+                       DiagnosticFormat format, Path file) throws IOException {
+        BasicInterpreter interpreter = interpreters.get();
+        interpreter.setConstantFolding(constantFolding);
+        interpreter.setLexerParallelism(lexerParallelism);
+        interpreter.setDiagnosticSink(format.sink(System.out));
+        this.stream.reset();
+        interpreter.runFile(file.toString());
+        return this.stream.toString().strip();
+    }
+
+    @Test
+    @DisplayName("Deeply nested programs run on every engine")
+    public void testDeepNesting(@TempDir Path directory) throws IOException {
+        Path parens = directory.resolve("parens.phl");
+        Files.writeString(parens, "(".repeat(DEPTH) + "1" + ")".repeat(DEPTH));
+        Path negations = directory.resolve("negations.phl");
+        Files.writeString(negations, "-".repeat(DEPTH) + "2 * 3");
+        Path failing = directory.resolve("failing.phl");
+        Files.writeString(failing, "-".repeat(DEPTH) + "\"text\"");
+
+        for (Supplier<BasicInterpreter> interpreters : List.<Supplier<BasicInterpreter>>of(
+                BasicInterpreter::new, VmInterpreter::new, CompilingInterpreter::new)) {
+            for (boolean constantFolding : new boolean[]{true, false}) {
+                assertEquals("1", run(interpreters, constantFolding, parens));
+                assertEquals("6", run(interpreters, constantFolding, negations));
+                assertTrue(run(interpreters, constantFolding, failing).contains("error"));
+            }
+        }
+
+        BatchDriver.Summary summary = new BatchDriver(2, false, DiagnosticFormat.PLAIN)
+                .run(List.of(parens, negations, failing), new PrintStream(this.stream));
+        assertEquals(0, summary.errorCount());
+    }
+
+    @Test
+    @DisplayName("Large files are lexed in parallel with the same results")
+    public void testParallelLexing(@TempDir Path directory) throws IOException {
+        String lines = "1 + 2 * // two\n".repeat(200_000);
+        Path valid = directory.resolve("valid.phl");
+        Files.writeString(valid, lines + "1");
+        Path invalid = directory.resolve("invalid.phl");
+        Files.writeString(invalid, lines + "1 + $ + \"open\n" + lines + "1");
+
+        // The lexer's and the parser's errors are printed as separate groups after
+        // parallel lexing, so the diagnostics are compared one per line
+        for (Path file : List.of(valid, invalid)) {
+            String sequential = run(BasicInterpreter::new, false, 1, DiagnosticFormat.JSON, file);
+            assertEquals(sequential, run(BasicInterpreter::new, false, 4, DiagnosticFormat.JSON, file));
+        }
+        assertEquals("400001", run(BasicInterpreter::new, true, 4, DiagnosticFormat.PLAIN, valid));
+        assertEquals(3, run(BasicInterpreter::new, true, 4, DiagnosticFormat.JSON, invalid).lines().count());
+    }
+
+    @Test
+    @DisplayName("The compiling interpreter falls back to the tree walker on a small stack")
+    public void testSmallStack(@TempDir Path directory) throws Exception {
+        // Under the compiler's depth limit, but too deep for its recursion on this stack
+        Path file = directory.resolve("nested.phl");
+        Files.writeString(file, "(-".repeat(767) + "1" + ")".repeat(767));
+
+        String[] output = new String[1];
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                output[0] = run(CompilingInterpreter::new, false, file);
+            } catch (Throwable throwable) {
+                failure[0] = throwable;
+            }
+        }, "small stack", 256 * 1024);
+        thread.start();
+        thread.join();
+
+        assertNull(failure[0]);
+        assertEquals("-1", output[0]);
+    }
+}
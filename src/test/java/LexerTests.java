@@ -1,9 +1,18 @@
 import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.NumberRepresentation;
 import net.pygmales.lexer.Token;
+import net.pygmales.lexer.TokenBuffer;
+import net.pygmales.lexer.TokenCategory;
+import net.pygmales.lexer.TokenCursor;
+import net.pygmales.lexer.TokenType;
+import net.pygmales.util.ErrorLogger;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static net.pygmales.lexer.TokenType.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -74,7 +83,64 @@ public class LexerTests {
     @DisplayName("Numbers tokenizing")
     public void testTokenizeNumber() {
         Lexer lexer = new Lexer("365");
-        assertEquals(List.of(new Token(NUMBER, 365.0f,1, 1), Token.EOF), lexer.scanTokens());
+        assertEquals(List.of(new Token(NUMBER, 365.0, 1, 1), Token.EOF), lexer.scanTokens());
+    }
+
+    @Test
+    @DisplayName("Numbers parsed exactly")
+    public void testNumberPrecision() {
+        List<String> literals = new ArrayList<>(List.of("0", "0.0", "007", "16777217", "9007199254740993",
+                "9223372036854775807", "9223372036854775808", "18446744073709551615", "123456789012345678901234567890",
+                "0.1", "0.30000000000000004", "2.2250738585072011", "1.7976931348623157", "3.14159265358979323846264338",
+                "0." + "0".repeat(307) + "22250738585072014", "0." + "0".repeat(323) + "49406564584124654",
+                "0." + "0".repeat(323) + "24703282292062327", "0." + "0".repeat(400) + "1", "9007199254740992.5",
+                "1.00000000000000011102230246251565404236316680908203125", "0.000000000000000000000000000000001"));
+        Random random = new Random(25);
+        for (int i = 0; i < 20_000; i++) {
+            String digits = Long.toUnsignedString(random.nextLong());
+            digits = digits.substring(random.nextInt(digits.length()));
+            int point = random.nextInt(digits.length() + 1);
+            String zeros = "0".repeat(random.nextInt(4) == 0 ? random.nextInt(330) : 0);
+            literals.add(point == 0 ? "0." + zeros + digits : digits.substring(0, point) + "." + digits.substring(point) + "0");
+        }
+
+        for (String literal : literals) {
+            TokenBuffer tokens = new Lexer(literal).scanBuffer();
+            assertEquals(NUMBER, tokens.type(0), literal);
+            assertEquals(Double.parseDouble(literal), tokens.number(0), literal);
+        }
+    }
+
+    @Test
+    @DisplayName("Integers represented as longs")
+    public void testLongNumbers() {
+        String source = "9007199254740993 + 9223372036854775807 + 9223372036854775808 + 2.5";
+        Lexer lexer = new Lexer(source);
+        lexer.setNumberRepresentation(NumberRepresentation.INT64);
+        TokenBuffer tokens = lexer.scanBuffer();
+        assertEquals(9007199254740993L, tokens.longValue(0));
+        assertEquals(9007199254740992.0, tokens.number(0));
+        assertEquals(Long.MAX_VALUE, tokens.literal(2));
+        assertTrue(tokens.isLong(2));
+        assertFalse(tokens.isLong(4));
+        assertEquals(9223372036854775808.0, tokens.literal(4));
+        assertFalse(tokens.isLong(6));
+        assertEquals(2.5, tokens.token(6).literal());
+        assertEquals(NUMBER, tokens.type(0));
+
+        Lexer streaming = new Lexer(new ErrorLogger("test.phl"), new StringReader(source));
+        streaming.setNumberRepresentation(NumberRepresentation.INT64);
+        TokenCursor cursor = streaming.cursor();
+        assertTrue(cursor.isLong());
+        assertEquals(9007199254740993L, cursor.longValue());
+        assertEquals(tokens.toList(), List.of(cursor.token(), next(cursor), next(cursor), next(cursor), next(cursor),
+                next(cursor), next(cursor), next(cursor)));
+        assertFalse(new Lexer("1").scanBuffer().isLong(0));
+    }
+
+    private static Token next(TokenCursor cursor) {
+        cursor.advance();
+        return cursor.token();
     }
 
     @Test
@@ -120,6 +186,76 @@ public class LexerTests {
                 Token.EOF), tokens);
     }
 
+    @Test
+    @DisplayName("Code after a closed multiline comment")
+    public void testCodeAfterMultilineComment() {
+        Lexer lexer = new Lexer("/* comment */ let a; /* another\n comment */ a");
+        assertEquals(List.of(LET, IDENTIFIER, SEMICOLON, IDENTIFIER, EOF),
+                lexer.scanTokens().stream().map(Token::type).toList());
+    }
+
+    @Test
+    @DisplayName("Strings on following lines")
+    public void testStringsOnFollowingLines() {
+        Lexer lexer = new Lexer("let a;\n  \"second line\"");
+        assertEquals(List.of(
+                new Token(LET, "let", 1, 1),
+                new Token(IDENTIFIER, "a", 1, 5),
+                new Token(SEMICOLON, ";", 1, 6),
+                new Token(STRING, "second line", 2, 3),
+                Token.EOF), lexer.scanTokens());
+    }
+
+    @Test
+    @DisplayName("Token buffer slices")
+    public void testTokenBufferSlices() {
+        TokenBuffer tokens = new Lexer("let name = \"value\" + 2.5;").scanBuffer();
+        assertEquals(8, tokens.size());
+        assertEquals("name", tokens.lexeme(1));
+        assertEquals(STRING, tokens.type(3));
+        assertEquals("value", tokens.lexeme(3));
+        assertEquals(12, tokens.start(3));
+        assertEquals(2.5, tokens.number(5));
+        assertEquals(new Token(NUMBER, 2.5, 1, 22), tokens.token(5));
+    }
+
+    @Test
+    @DisplayName("Streaming lexer")
+    public void testStreamingLexer() {
+        String source = "let a = \"" + "x".repeat(100_000) + "\"; /* " + "comment\n".repeat(10_000) + "*/ a >= 2.5";
+        Lexer lexer = new Lexer(new ErrorLogger("stream"), new StringReader(source));
+        List<Token> tokens = new ArrayList<>();
+        for (Token token = lexer.nextToken(); token.type() != TokenType.EOF; token = lexer.nextToken())
+            tokens.add(token);
+        tokens.add(Token.EOF);
+
+        assertEquals(new Lexer(source).scanTokens(), tokens);
+        assertEquals(10_001, tokens.get(5).line());
+    }
+
+    @Test
+    @DisplayName("Whitespace, comments and strings scanned in bulk")
+    public void testBulkScanning() {
+        String[] fragments = {" ".repeat(70), "\t\r\n".repeat(30), "\u001C\u2028\u00A0", "// " + "c".repeat(90) + "\n",
+                "/* " + "*a\n".repeat(40) + "*/", "\"" + "s".repeat(100) + "\"", "\"open " + "s".repeat(70) + "\n",
+                "/* open " + "x".repeat(70), "\0", "ä", "a1", "+", "\n"};
+        Random random = new Random(22);
+        for (int i = 0; i < 300; i++) {
+            StringBuilder builder = new StringBuilder();
+            int count = random.nextInt(30);
+            for (int j = 0; j < count; j++) builder.append(fragments[random.nextInt(fragments.length)]);
+            String source = builder.toString();
+
+            // The streaming lexer steps over every char on its own
+            Lexer lexer = new Lexer(new ErrorLogger("stream", diagnostics -> {}), new StringReader(source));
+            List<Token> tokens = new ArrayList<>();
+            for (Token token = lexer.nextToken(); token.type() != TokenType.EOF; token = lexer.nextToken())
+                tokens.add(token);
+            List<Token> scanned = new Lexer(new ErrorLogger("bulk", diagnostics -> {}), source).scanTokens();
+            assertEquals(tokens, scanned.subList(0, scanned.size() - 1), source);
+        }
+    }
+
     @Test
     @DisplayName("Long expression")
     public void testTokenizeExpression() {
@@ -161,4 +297,18 @@ public class LexerTests {
                 RETURN, STRING, SEMICOLON, RBRAC, RBRAC, EOF),
                 tokens.stream().map(Token::type).toList());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Lexeme table and categories")
+    public void testLexemeTable() {
+        for (TokenType type : TokenType.values()) {
+            boolean spelled = type.is(TokenCategory.SYMBOL | TokenCategory.KEYWORD);
+            assertEquals(spelled ? type : null, TokenType.ofLexeme(type.toString()), type.name());
+            if (spelled) assertEquals(List.of(type), new Lexer(type.toString()).scanTokens().stream()
+                    .map(Token::type).filter(scanned -> scanned != EOF).toList());
+        }
+        assertThrows(UnsupportedOperationException.class, () -> TokenType.lexemes().put("x", IDENTIFIER));
+        assertTrue(MINUS.is(TokenCategory.UNARY_OPERATOR) && MINUS.is(TokenCategory.TERM_OPERATOR));
+        assertFalse(PLUS.is(TokenCategory.UNARY_OPERATOR | TokenCategory.FACTOR_OPERATOR));
+    }
+}
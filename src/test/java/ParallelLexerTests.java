@@ -0,0 +1,87 @@
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.ParallelLexer;
+import net.pygmales.lexer.TokenBuffer;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static net.pygmales.lexer.TokenType.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Parallel lexer tests")
+public class ParallelLexerTests {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+    private static final String[] FRAGMENTS = {"let x = 1.5 * (y + 2);\n", "\"text // not a comment\"", "\"/* nor this\"",
+            "// \"not a string\n", "/* one\n two \" three\n*/", "/*/ still open */", "\n", "\n\n", " ", "print a != b;",
+            "\"unclosed\n", "/* unclosed", "`", "$ ", "\0", "1.", ".5", "/", "*", "a/b", "a//b\n", "if (a >= 1) {\n}\n"};
+
+    @AfterAll
+    public static void shutDown() {
+        POOL.shutdown();
+    }
+
+    private static String dump(TokenBuffer tokens) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++)
+            builder.append(tokens.token(i)).append('@').append(tokens.line(i)).append(':').append(tokens.column(i))
+                    .append('+').append(tokens.start(i)).append('/').append(tokens.length(i))
+                    .append('#').append(tokens.symbol(i)).append('\n');
+        return builder.toString();
+    }
+
+    private static void assertSameAsSequential(String source, int chunkSize) {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        String expectedTokens = dump(new Lexer(new ErrorLogger("test.phl", new PrintStream(expected)), source).scanBuffer());
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ParallelLexer lexer = new ParallelLexer(new ErrorLogger("test.phl", new PrintStream(actual)), source, POOL);
+        lexer.setChunkSize(chunkSize);
+        assertEquals(expectedTokens, dump(lexer.scanBuffer()), source);
+        assertEquals(expected.toString(), actual.toString(), source);
+    }
+
+    @Test
+    @DisplayName("Same tokens and errors as the sequential lexer")
+    public void testRandomSources() {
+        Random random = new Random(21);
+        for (int i = 0; i < 500; i++) {
+            StringBuilder source = new StringBuilder();
+            int fragments = random.nextInt(60);
+            for (int j = 0; j < fragments; j++) source.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            assertSameAsSequential(source.toString(), 1 + random.nextInt(40));
+        }
+    }
+
+    @Test
+    @DisplayName("Unclosed comment and string across chunk boundaries")
+    public void testUnclosedAcrossChunks() {
+        String source = "1 + 2\n".repeat(20) + "/* open\n" + "3 * 4\n".repeat(20) + "\"open\n" + "5\n".repeat(20);
+        assertSameAsSequential(source, 8);
+
+        String string = "a\nb\n\"still a string /*\nc\n";
+        assertSameAsSequential(string, 1);
+    }
+
+    @Test
+    @DisplayName("Chunks start on the right line")
+    public void testLines() {
+        String source = "a\n/* two\nlines */ b\n\"c\"\n// d\ne";
+        ParallelLexer lexer = new ParallelLexer(new ErrorLogger("test.phl", new PrintStream(new ByteArrayOutputStream())),
+                source, POOL);
+        lexer.setChunkSize(1);
+        TokenBuffer tokens = lexer.scanBuffer();
+        assertEquals(5, tokens.size());
+        assertEquals(IDENTIFIER, tokens.type(1));
+        assertEquals(3, tokens.line(1));
+        assertEquals(10, tokens.column(1));
+        assertEquals(4, tokens.line(2));
+        assertEquals(6, tokens.line(3));
+        assertEquals(EOF, tokens.type(4));
+    }
+}
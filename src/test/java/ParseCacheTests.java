@@ -0,0 +1,78 @@
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.cache.CacheStatistics;
+import net.pygmales.parser.cache.ParseCache;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Parse cache tests")
+public class ParseCacheTests {
+    private static Expression parse(String source) {
+        ErrorLogger logger = new ErrorLogger("test");
+        return new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+    }
+
+    @Test
+    @DisplayName("Least recently used entries are evicted")
+    public void testEviction() {
+        ParseCache cache = new ParseCache(2, 100, null);
+        String[] sources = {"1 + 2", "\"text\"", "-3 * 4"};
+        for (String source : sources) cache.put(ParseCache.key(source), parse(source), source.length());
+
+        assertNull(cache.get(ParseCache.key(sources[0])));
+        assertNotNull(cache.get(ParseCache.key(sources[1])));
+        cache.put(ParseCache.key("null"), parse("null"), 4);
+        assertNull(cache.get(ParseCache.key(sources[2])));
+        assertNotNull(cache.get(ParseCache.key(sources[1])));
+
+        cache.put(ParseCache.key("true"), parse("true"), 100);
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.entries());
+        assertEquals(100, statistics.weight());
+        assertEquals(2, statistics.hits());
+        assertEquals(2, statistics.misses());
+        assertEquals(4, statistics.evictions());
+    }
+
+    @Test
+    @DisplayName("Disk layer")
+    public void testDiskLayer(@TempDir Path directory) throws IOException {
+        String source = "(1 + 2.5) * -\"text\" == !null\n!= true";
+        Expression expression = parse(source);
+        String key = ParseCache.key(source);
+        new ParseCache(directory).put(key, expression, source.length());
+
+        ParseCache cache = new ParseCache(directory);
+        Expression loaded = cache.get(key);
+        assertEquals(expression.toString(), loaded.toString());
+        assertEquals(1, cache.getStatistics().diskHits());
+        assertEquals(source.length(), cache.getStatistics().weight());
+        assertSame(loaded, cache.get(key));
+        assertEquals(1, cache.getStatistics().hits());
+
+        try (var files = Files.list(directory)) {
+            Files.writeString(files.findFirst().orElseThrow(), "stale");
+        }
+        ParseCache stale = new ParseCache(directory);
+        assertNull(stale.get(key));
+        assertEquals(1, stale.getStatistics().misses());
+    }
+
+    @Test
+    @DisplayName("Keys of files and strings")
+    public void testKeys(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("script.phl");
+        Files.writeString(file, "1 + 2 // ünïcode");
+        assertEquals(ParseCache.key("1 + 2 // ünïcode"), ParseCache.key(file));
+        assertNotEquals(ParseCache.key("1 + 2"), ParseCache.key("1 + 3"));
+    }
+}
@@ -0,0 +1,123 @@
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.RpnPrinter;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.DiagnosticFormat;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Parser errors")
+public class ParserErrorTests {
+    private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    private ErrorLogger logger;
+
+    private Expression parse(String source) {
+        return parse(source, false);
+    }
+
+    private Expression parse(String source, boolean iterative) {
+        this.logger = new ErrorLogger("test.phl", DiagnosticFormat.JSON.sink(new PrintStream(this.stream, true)));
+        Parser parser = new Parser(this.logger, new Lexer(this.logger, source).scanBuffer());
+        parser.setIterative(iterative);
+        return parser.parse();
+    }
+
+    private List<String> messages() {
+        return Arrays.stream(this.stream.toString().split("\n"))
+                .filter(line -> !line.isEmpty())
+                .map(line -> line.replaceAll(".*\"line\":(\\d+),\"column\":(\\d+),\"message\":\"([^\"]*)\".*", "$1:$2 $3"))
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Valid expression")
+    public void testValidExpression() {
+        Expression expression = parse("(1 + 2) * 3;");
+        assertFalse(this.logger.hasErrors());
+        assertEquals("3.0 [ 2.0 1.0 + ] *", new RpnPrinter().print(expression));
+    }
+
+    @Test
+    @DisplayName("Every broken group in one pass")
+    public void testBrokenGroups() {
+        Expression expression = parse("(1 + ) * (2 * ) - (3 4) + 5");
+        assertEquals(List.of("1:6 not an expression", "1:15 not an expression", "1:22 unclosed expression"), messages());
+        assertEquals("5.0 <error> <error> <error> * - +", new RpnPrinter().print(expression));
+    }
+
+    @Test
+    @DisplayName("Nested groups are skipped as a whole")
+    public void testNestedGroups() {
+        Expression expression = parse("(1 + * (2) 3) + 4");
+        assertEquals(List.of("1:6 not an expression"), messages());
+        assertEquals("4.0 <error> +", new RpnPrinter().print(expression));
+    }
+
+    @Test
+    @DisplayName("One error for each following statement")
+    public void testTrailingStatements() {
+        parse("1 + 2 3; let a = 1; print a;\n4");
+        assertEquals(List.of("1:7 unexpected token", "1:10 unexpected token",
+                "1:21 unexpected token", "2:1 unexpected token"), messages());
+    }
+
+    @Test
+    @DisplayName("No second report at a synchronization point")
+    public void testSynchronizationPoint() {
+        parse("1 + ) + 2");
+        assertEquals(List.of("1:5 not an expression"), messages());
+        assertEquals(1, this.logger.getErrorCount());
+    }
+
+    @Test
+    @DisplayName("Lexer errors become error nodes")
+    public void testLexerErrors() {
+        Expression expression = parse("1 + $ * 2 - \"text");
+        assertEquals(2, messages().size());
+        assertTrue(messages().get(0).endsWith("unexpected token `$`"));
+        assertEquals("<error> 2.0 <error> * 1.0 + -", new RpnPrinter().print(expression));
+    }
+
+    @Test
+    @DisplayName("Unclosed group at the end")
+    public void testUnclosedAtEnd() {
+        Expression expression = parse("((1 + 2)");
+        assertEquals(List.of("1:9 unclosed expression"), messages());
+        assertEquals("<error>", new RpnPrinter().print(expression));
+    }
+
+    @Test
+    @DisplayName("Same errors and trees in the iterative mode")
+    public void testIterativeMode() {
+        String[] pieces = {"1", "2.5", "true", "\"s\"", "+", "-", "*", "==", "<", "!", "(", "(", ")", ";", "let", "$", "}"};
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder source = new StringBuilder();
+            for (int j = random.nextInt(12); j >= 0; j--) source.append(pieces[random.nextInt(pieces.length)]).append(' ');
+
+            String recursive = new RpnPrinter().print(parse(source.toString()));
+            List<String> recursiveMessages = messages();
+            this.stream.reset();
+            String iterative = new RpnPrinter().print(parse(source.toString(), true));
+            assertEquals(recursive, iterative, source.toString());
+            assertEquals(recursiveMessages, messages(), source.toString());
+            this.stream.reset();
+        }
+    }
+
+    @Test
+    @DisplayName("Long broken input takes one pass")
+    public void testManyErrors() {
+        parse("(1 + ) + ".repeat(500) + "1");
+        assertEquals(500, this.logger.getErrorCount());
+    }
+}
@@ -0,0 +1,175 @@
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.Token;
+import net.pygmales.lexer.TokenCursor;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import static net.pygmales.lexer.TokenCategory.*;
+import static net.pygmales.lexer.TokenType.*;
+import static net.pygmales.parser.expression.Expression.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Parser tests")
+public class ParserTests {
+    private static final String[] OPERATORS = {"==", "!=", "<", "<=", ">", ">=", "+", "-", "*", "/"};
+    private static final String[] OPERANDS = {"1", "2.5", "365", "true", "false", "null", "\"text\""};
+
+    private static ErrorLogger logger() {
+        return new ErrorLogger("test.phl", new PrintStream(new ByteArrayOutputStream()));
+    }
+
+    private static Expression parse(String source) {
+        return parse(source, false);
+    }
+
+    private static Expression parse(String source, boolean iterative) {
+        ErrorLogger logger = logger();
+        Parser parser = new Parser(logger, new Lexer(logger, source).scanBuffer());
+        parser.setIterative(iterative);
+        Expression expression = parser.parse();
+        assertFalse(logger.hasErrors(), source);
+        return expression;
+    }
+
+    private static Expression parseWithReference(String source) {
+        ErrorLogger logger = logger();
+        return new ReferenceParser(new Lexer(logger, source).scanBuffer().cursor()).parse();
+    }
+
+    private static void assertSameTree(String source) {
+        String expected = parseWithReference(source).toString();
+        assertEquals(expected, parse(source).toString(), source);
+        assertEquals(expected, parse(source, true).toString(), source);
+    }
+
+    @Test
+    @DisplayName("Precedence and associativity")
+    public void testPrecedence() {
+        assertSameTree("1 + 2 * 3 - 4 / 5");
+        assertSameTree("1 - 2 - 3 - 4");
+        assertSameTree("8 / 4 / 2 * 3");
+        assertSameTree("1 < 2 == 3 >= 4 != true");
+        assertSameTree("1 == 2 == 3");
+        assertSameTree("- - 1 * !true + -(2)");
+        assertSameTree("!(1 < 2) == (3 + 4 <= 7 * 1)");
+        assertSameTree("((((1))))");
+        assertSameTree("\"text\" + null == false");
+    }
+
+    @Test
+    @DisplayName("Expected tree")
+    public void testExpectedTree() {
+        Expression expression = parse("1 - 2 * -3 < 4");
+        Expression expected = binary(
+                binary(literal(1.0), new Token(MINUS, "-", 1, 3),
+                        binary(literal(2.0), new Token(STAR, "*", 1, 7),
+                                unary(new Token(MINUS, "-", 1, 9), literal(3.0)))),
+                new Token(LESS, "<", 1, 12), literal(4.0));
+        assertEquals(expected.toString(), expression.toString());
+    }
+
+    @Test
+    @DisplayName("Random expressions")
+    public void testRandomExpressions() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) assertSameTree(randomExpression(random, 4));
+    }
+
+    @Test
+    @DisplayName("Long flat operator chain")
+    public void testFlatChain() {
+        StringBuilder builder = new StringBuilder("1");
+        for (int i = 1; i < 1000; i++) builder.append(' ').append(OPERATORS[i % OPERATORS.length]).append(' ').append(i);
+        assertSameTree(builder.toString());
+    }
+
+    @Test
+    @DisplayName("Deep nesting in the iterative mode")
+    public void testDeepNesting() {
+        int depth = 100_000;
+        Expression expression = parse("(-".repeat(depth) + "1" + ")".repeat(depth), true);
+        for (int i = 0; i < depth; i++) {
+            GroupingExpression grouping = assertInstanceOf(GroupingExpression.class, expression);
+            expression = assertInstanceOf(UnaryExpression.class, grouping.expression).expression;
+        }
+        assertEquals(literal(1.0).toString(), expression.toString());
+    }
+
+    private static String randomExpression(Random random, int depth) {
+        StringBuilder builder = new StringBuilder();
+        int operands = 1 + random.nextInt(4);
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) builder.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+            while (random.nextInt(4) == 0) builder.append(random.nextBoolean() ? "-" : "!");
+            if (depth > 0 && random.nextInt(3) == 0)
+                builder.append('(').append(randomExpression(random, depth - 1)).append(')');
+            else builder.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The recursive-descent chain the parser started out with, kept as the reference
+     * for the trees of valid expressions.
+     */
+    private static class ReferenceParser {
+        private static final int[] LEVELS = {EQUALITY_OPERATOR, COMPARISON_OPERATOR, TERM_OPERATOR, FACTOR_OPERATOR};
+
+        private final TokenCursor tokens;
+
+        private ReferenceParser(TokenCursor tokens) {
+            this.tokens = tokens;
+        }
+
+        private Expression parse() {
+            return this.binaryLevel(0);
+        }
+
+        private Expression binaryLevel(int level) {
+            if (level == LEVELS.length) return this.unary();
+
+            Expression exp = this.binaryLevel(level + 1);
+            while (this.tokens.type().is(LEVELS[level])) {
+                Token operator = this.tokens.token();
+                this.tokens.advance();
+                exp = binary(exp, operator, this.binaryLevel(level + 1));
+            }
+            return exp;
+        }
+
+        private Expression unary() {
+            if (this.tokens.type().is(UNARY_OPERATOR)) {
+                Token operator = this.tokens.token();
+                this.tokens.advance();
+                return Expression.unary(operator, this.unary());
+            }
+            return this.primary();
+        }
+
+        private Expression primary() {
+            Expression exp = switch (this.tokens.type()) {
+                case NUMBER -> literal(this.tokens.number());
+                case TRUE -> literal(true);
+                case FALSE -> literal(false);
+                case NULL -> literal(null);
+                case STRING -> literal(this.tokens.literal());
+                case LPAR -> {
+                    this.tokens.advance();
+                    Expression inner = this.binaryLevel(0);
+                    assertEquals(RPAR, this.tokens.type());
+                    yield grouping(inner);
+                }
+                default -> throw new IllegalStateException("Not an expression: " + this.tokens.token());
+            };
+            this.tokens.advance();
+            return exp;
+        }
+    }
+}
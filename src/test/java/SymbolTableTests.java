@@ -0,0 +1,79 @@
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.SymbolTable;
+import net.pygmales.lexer.Token;
+import net.pygmales.lexer.TokenBuffer;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Symbol table tests")
+public class SymbolTableTests {
+    @Test
+    @DisplayName("Names are interned as dense ids")
+    public void testIntern() {
+        SymbolTable symbols = new SymbolTable();
+        assertEquals(0, symbols.intern("x"));
+        assertEquals(1, symbols.intern("y"));
+        assertEquals(0, symbols.intern(new String("x")));
+        assertEquals(2, symbols.size());
+        assertEquals("y", symbols.name(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> symbols.name(2));
+
+        // Enough names to grow the table several times, among them ones with equal hashes
+        for (int i = 0; i < 10_000; i++) assertEquals(i + 2, symbols.intern("name" + i));
+        assertEquals(10_002, symbols.intern("Aa"));
+        assertEquals(10_003, symbols.intern("BB"));
+        for (int i = 0; i < 10_000; i++) assertEquals(i + 2, symbols.intern("name" + i));
+        assertEquals(10_003, symbols.intern("BB"));
+    }
+
+    @Test
+    @DisplayName("Identifiers and strings share one String per name")
+    public void testLexerSymbols() {
+        TokenBuffer tokens = new Lexer("size + \"size\" + count * size + Aa + BB").scanBuffer();
+        assertEquals(0, tokens.symbol(0));
+        assertEquals(0, tokens.symbol(2));
+        assertEquals(1, tokens.symbol(4));
+        assertEquals(0, tokens.symbol(6));
+        assertEquals(SymbolTable.NONE, tokens.symbol(1));
+        assertNotEquals(tokens.symbol(8), tokens.symbol(10));
+        assertSame(tokens.literal(0), tokens.literal(6));
+        assertSame(tokens.literal(0), tokens.literal(2));
+        assertEquals(tokens.symbol(6), tokens.token(6).symbol());
+
+        Lexer lexer = new Lexer(new ErrorLogger("test.phl"), new StringReader("size + \"size\" + count * size"));
+        List<Token> streamed = new ArrayList<>();
+        for (int i = 0; i < 8; i++) streamed.add(lexer.nextToken());
+        assertEquals(List.of(0, SymbolTable.NONE, 0, SymbolTable.NONE, 1, SymbolTable.NONE, 0, SymbolTable.NONE),
+                streamed.stream().map(Token::symbol).toList());
+        assertSame(streamed.get(0).literal(), streamed.get(6).literal());
+    }
+
+    @Test
+    @DisplayName("Lexers sharing a table agree on the ids")
+    public void testSharedTable() {
+        SymbolTable symbols = new SymbolTable();
+        Lexer first = new Lexer("a + b");
+        first.setSymbols(symbols);
+        Lexer second = new Lexer("b + c");
+        second.setSymbols(symbols);
+
+        TokenBuffer firstTokens = first.scanBuffer();
+        TokenBuffer secondTokens = second.scanBuffer();
+        assertEquals(firstTokens.symbol(2), secondTokens.symbol(0));
+        assertEquals(2, secondTokens.symbol(2));
+        assertSame(symbols, secondTokens.symbolTable());
+
+        Lexer unshared = new Lexer("b");
+        unshared.setSymbols(null);
+        TokenBuffer unsharedTokens = unshared.scanBuffer();
+        assertEquals(SymbolTable.NONE, unsharedTokens.symbol(0));
+        assertEquals("b", unsharedTokens.literal(0));
+    }
+}
@@ -0,0 +1,98 @@
+import net.pygmales.lexer.Lexer;
+import net.pygmales.lexer.Token;
+import net.pygmales.lexer.Utf8Lexer;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.pygmales.lexer.TokenType.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UTF-8 lexer tests")
+public class Utf8LexerTests {
+    private static final byte[][] FRAGMENTS = {
+            bytes("let x = 1.5 * (y + 2);\n"), bytes("\"text // not a comment\""), bytes("// comment ünd mehr\n"),
+            bytes("/* one\n twö */"), bytes("größe_2"), bytes("变量"), bytes("\"字符串\""), bytes("𝑥"),
+            bytes("😀="), bytes("é="), bytes("\u2028"), bytes("\u00A0"), bytes("\uFEFF"), bytes("\u0663"),
+            bytes("\"open\n"), bytes("/* open"), bytes("\0"), bytes("a.5"), bytes(" \t\r\n"), bytes("\u001F"), bytes("!="),
+            {(byte) 0xE4, (byte) 0xB8}, {(byte) 0xFF}, {(byte) 0xC0, (byte) 0x80}, {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+            {(byte) 0xF0, (byte) 0x9F}, {'"', (byte) 0xE4, '"'}, {'a', (byte) 0x80, 'b'}};
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(UTF_8);
+    }
+
+    /**
+     * Decodes the way a source file is read for the {@link Lexer}.
+     */
+    private static String decode(byte[] bytes) throws CharacterCodingException {
+        return UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(ByteBuffer.wrap(bytes)).toString();
+    }
+
+    private static String dump(List<Token> tokens) {
+        StringBuilder builder = new StringBuilder();
+        for (Token token : tokens)
+            builder.append(token).append('@').append(token.line()).append(':').append(token.column())
+                    .append('#').append(token.symbol()).append('\n');
+        return builder.toString();
+    }
+
+    private static void assertSameAsLexer(byte[] bytes) throws CharacterCodingException {
+        String source = decode(bytes);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ErrorLogger expectedLogger = new ErrorLogger("test.phl", new PrintStream(expected));
+        String expectedTokens = dump(new Lexer(expectedLogger, source).scanTokens());
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ErrorLogger logger = new ErrorLogger("test.phl", new PrintStream(actual));
+        logger.setSource(source);
+        assertEquals(expectedTokens, dump(new Utf8Lexer(logger, bytes).scanTokens()), source);
+        assertEquals(expected.toString(), actual.toString(), source);
+    }
+
+    @Test
+    @DisplayName("Same tokens and errors as the lexer on the decoded source")
+    public void testRandomSources() throws CharacterCodingException {
+        Random random = new Random(23);
+        for (int i = 0; i < 1000; i++) {
+            ByteArrayOutputStream source = new ByteArrayOutputStream();
+            int fragments = random.nextInt(25);
+            for (int j = 0; j < fragments; j++) source.writeBytes(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            assertSameAsLexer(source.toByteArray());
+        }
+    }
+
+    @Test
+    @DisplayName("Non-ASCII identifiers and strings")
+    public void testNonAscii() {
+        List<Token> tokens = new Utf8Lexer(new ErrorLogger("test.phl"), bytes("let größe = \"多\";\n  größe")).scanTokens();
+        assertEquals(List.of(LET, IDENTIFIER, EQUAL, STRING, SEMICOLON, IDENTIFIER, EOF), tokens.stream().map(Token::type).toList());
+        assertEquals("größe", tokens.get(1).literal());
+        assertEquals("多", tokens.get(3).literal());
+        assertEquals(16, tokens.get(4).column());
+        assertEquals(2, tokens.get(5).line());
+        assertEquals(3, tokens.get(5).column());
+    }
+
+    @Test
+    @DisplayName("Direct buffers and buffer positions")
+    public void testDirectBuffer() {
+        byte[] bytes = bytes("xx1 + größe");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().position(2);
+        List<Token> tokens = new Utf8Lexer(new ErrorLogger("test.phl"), buffer).scanTokens();
+        assertEquals(List.of(NUMBER, PLUS, IDENTIFIER, EOF), tokens.stream().map(Token::type).toList());
+        assertEquals("größe", tokens.get(2).literal());
+    }
+}
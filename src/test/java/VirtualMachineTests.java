@@ -0,0 +1,70 @@
+import net.pygmales.interpreter.Evaluator;
+import net.pygmales.interpreter.RuntimeError;
+import net.pygmales.interpreter.vm.BytecodeCompiler;
+import net.pygmales.interpreter.vm.Disassembler;
+import net.pygmales.interpreter.vm.VirtualMachine;
+import net.pygmales.lexer.Lexer;
+import net.pygmales.parser.Parser;
+import net.pygmales.parser.expression.Expression;
+import net.pygmales.util.ErrorLogger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Virtual machine tests")
+public class VirtualMachineTests {
+    private static Expression parse(String source) {
+        ErrorLogger logger = new ErrorLogger("test");
+        return new Parser(logger, new Lexer(logger, source).scanBuffer()).parse();
+    }
+
+    @Test
+    @DisplayName("Same values as the evaluator")
+    public void testValues() {
+        String[] sources = {
+                "365", "\"text\"", "true", "null", "(1 + 2) * 3", "1 - 5 / 2", "--4", "0.1 + 0.2", "1 / 0",
+                "(1 + 2) * 3 == 9", "2 >= 2", "3 < 2", "2 <= 1", "4 > 1", "\"a\" == \"a\"", "1 == \"1\"",
+                "null == null", "null != false", "true == !false", "!null", "!0", "!\"\"", "!!true",
+                "\"path\" + \" and \" + \"l\"", "0 / 0 == 0 / 0"
+        };
+        VirtualMachine machine = new VirtualMachine();
+        for (String source : sources) {
+            Expression expression = parse(source);
+            assertEquals(new Evaluator().evaluate(expression), machine.run(BytecodeCompiler.compile(expression)), source);
+        }
+    }
+
+    @Test
+    @DisplayName("Same runtime errors as the evaluator")
+    public void testErrors() {
+        String[] sources = {"1 + \"a\"", "-\"a\"", "true * 2", "null < 1", "(1 + 2) * (3 - -true)"};
+        for (String source : sources) {
+            Expression expression = parse(source);
+            RuntimeError expected = assertThrows(RuntimeError.class, () -> new Evaluator().evaluate(expression));
+            RuntimeError actual = assertThrows(RuntimeError.class,
+                    () -> new VirtualMachine().run(BytecodeCompiler.compile(expression)));
+            assertSame(expected.token, actual.token, source);
+            assertEquals(expected.getMessage(), actual.getMessage(), source);
+        }
+    }
+
+    @Test
+    @DisplayName("Disassembly")
+    public void testDisassembly() {
+        String expected = """
+                0000 NUMBER          0 (1)
+                0002 NUMBER          1 (2.5)
+                0004 ADD             0 (+ at 1:3)
+                0006 CONSTANT        1 ("a")
+                0008 CONSTANT        1 ("a")
+                0010 EQUAL
+                0011 NOT
+                0012 EQUAL
+                0013 NUMBER          0 (1)
+                0015 NEGATE          2 (- at 1:29)
+                0017 NOT_EQUAL
+                0018 RETURN""";
+        assertEquals(expected, new Disassembler().print(BytecodeCompiler.compile(parse("1 + 2.5 == !(\"a\" == \"a\") != -1"))));
+    }
+}